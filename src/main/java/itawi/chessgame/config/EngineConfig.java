@@ -0,0 +1,91 @@
+package itawi.chessgame.config;
+
+import itawi.chessgame.core.engine.CachedEvaluator;
+import itawi.chessgame.core.engine.EngineScheduler;
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.SearchFeatures;
+import itawi.chessgame.core.engine.book.OpeningBook;
+import itawi.chessgame.core.engine.nnue.NnueEvaluator;
+import itawi.chessgame.core.engine.nnue.NnueNetwork;
+import itawi.chessgame.core.engine.tablebase.Tablebase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+@Configuration
+public class EngineConfig {
+
+    /**
+     * Evaluator used by every engine. The NNUE network is loaded once at startup and shared;
+     * without a network file the classical evaluator is used.
+     */
+    @Bean
+    public EvaluatorFactory evaluatorFactory(@Value("${chess.engine.nnue.file:}") String networkFile) {
+        if (networkFile.isBlank()) {
+            return EvaluatorFactory.CLASSICAL;
+        }
+        try {
+            NnueNetwork network = NnueNetwork.load(Path.of(networkFile));
+            return () -> new CachedEvaluator(new NnueEvaluator(network));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load NNUE network " + networkFile, e);
+        }
+    }
+
+    /**
+     * Endgame tablebases probed by the search and used to adjudicate draws.
+     * Generate them with TablebaseGenerator; without a directory the engine plays endgames by search alone.
+     */
+    @Bean
+    public Tablebase tablebase(@Value("${chess.engine.tablebase.dir:}") String directory) {
+        if (directory.isBlank()) {
+            return Tablebase.empty();
+        }
+        try {
+            Tablebase tablebase = Tablebase.open(Path.of(directory));
+            System.out.println("Loaded endgame tablebases up to " + tablebase.getMaxPieces() + " pieces from " + directory);
+            return tablebase;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open tablebases in " + directory, e);
+        }
+    }
+
+    /**
+     * Opening book shared by every engine, memory-mapped rather than loaded
+     */
+    @Bean
+    public OpeningBook openingBook(@Value("${chess.engine.book.file:}") String bookFile) {
+        if (bookFile.isBlank()) {
+            return OpeningBook.empty();
+        }
+        try {
+            return OpeningBook.open(Path.of(bookFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open opening book " + bookFile, e);
+        }
+    }
+
+    /**
+     * Threads and queue shared by every search started from a request, so searches cannot starve the web threads
+     */
+    @Bean(destroyMethod = "close")
+    public EngineScheduler engineScheduler(@Value("${chess.engine.scheduler.threads:2}") int threads,
+                                           @Value("${chess.engine.scheduler.queue-capacity:16}") int queueCapacity) {
+        return new EngineScheduler(threads, queueCapacity);
+    }
+
+    /**
+     * Selective search features used by every engine; switch one off to trade speed for a fuller search
+     */
+    @Bean
+    public SearchFeatures searchFeatures(@Value("${chess.engine.search.null-move:true}") boolean nullMove,
+                                         @Value("${chess.engine.search.lmr:true}") boolean lateMoveReductions,
+                                         @Value("${chess.engine.search.futility:true}") boolean futility,
+                                         @Value("${chess.engine.search.aspiration:true}") boolean aspiration) {
+        return new SearchFeatures(nullMove, lateMoveReductions, futility, aspiration);
+    }
+}
@@ -0,0 +1,75 @@
+package itawi.chessgame.config;
+
+import itawi.chessgame.core.engine.EngineMetrics;
+import itawi.chessgame.core.engine.Search;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the engine's search counters as Micrometer meters, served by the actuator metrics endpoint,
+ * e.g. /actuator/metrics/chess.engine.nodes. The meters read the counters only when scraped.
+ * Rates are published twice: over all searches (scope=all) and for the most recent search (scope=last).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public EngineMetrics engineMetrics() {
+        return new EngineMetrics();
+    }
+
+    @Bean
+    public MeterBinder engineMeters(EngineMetrics metrics) {
+        return registry -> {
+            counter(registry, metrics, "chess.engine.nodes", "Nodes searched, quiescence included", EngineMetrics::getNodes);
+            counter(registry, metrics, "chess.engine.qnodes", "Quiescence nodes searched", EngineMetrics::getQuiescenceNodes);
+            counter(registry, metrics, "chess.engine.tt.probes", "Transposition table probes", EngineMetrics::getTranspositionProbes);
+            counter(registry, metrics, "chess.engine.tt.hits", "Transposition table probes that found an entry", EngineMetrics::getTranspositionHits);
+            counter(registry, metrics, "chess.engine.cutoffs", "Beta cutoffs", EngineMetrics::getBetaCutoffs);
+            counter(registry, metrics, "chess.engine.cutoffs.first.move", "Beta cutoffs by the first move searched", EngineMetrics::getFirstMoveCutoffs);
+            FunctionTimer.builder("chess.engine.search.time", metrics, EngineMetrics::getSearches,
+                            EngineMetrics::getSearchNanos, TimeUnit.NANOSECONDS)
+                    .description("Searches and the time they took")
+                    .register(registry);
+
+            rate(registry, metrics, "chess.engine.nps", "Nodes per second",
+                    EngineMetrics::getNodesPerSecond, last -> last.nodesPerSecond());
+            rate(registry, metrics, "chess.engine.tt.hit.rate", "Share of transposition table probes that hit",
+                    EngineMetrics::getTranspositionHitRate, last -> last.transpositionHitRate());
+            rate(registry, metrics, "chess.engine.cutoff.first.move.rate", "Share of beta cutoffs by the first move",
+                    EngineMetrics::getFirstMoveCutoffRate, last -> last.firstMoveCutoffRate());
+            rate(registry, metrics, "chess.engine.branching.factor", "Effective branching factor",
+                    EngineMetrics::getEffectiveBranchingFactor, last -> last.effectiveBranchingFactor());
+
+            // Time from the start of a search until each depth completed
+            for (int depth = 1; depth <= Search.MAX_PLY; depth++) {
+                int d = depth;
+                FunctionTimer.builder("chess.engine.time.to.depth", metrics, m -> m.getDepthCount(d),
+                                m -> m.getDepthNanos(d), TimeUnit.NANOSECONDS)
+                        .tag("depth", Integer.toString(depth))
+                        .description("Time to complete an iteration of this depth")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static void counter(MeterRegistry registry, EngineMetrics metrics, String name, String description,
+                                ToDoubleFunction<EngineMetrics> value) {
+        FunctionCounter.builder(name, metrics, value).description(description).register(registry);
+    }
+
+    private static void rate(MeterRegistry registry, EngineMetrics metrics, String name, String description,
+                             ToDoubleFunction<EngineMetrics> all, ToDoubleFunction<EngineMetrics.LastSearch> last) {
+        Gauge.builder(name, metrics, all).tag("scope", "all").description(description).register(registry);
+        Gauge.builder(name, metrics, m -> last.applyAsDouble(m.getLastSearch()))
+                .tag("scope", "last").description(description).register(registry);
+    }
+}
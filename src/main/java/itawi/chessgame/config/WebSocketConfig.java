@@ -0,0 +1,26 @@
+package itawi.chessgame.config;
+
+import itawi.chessgame.controller.GameSocketHandler;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket endpoint pushing each game's moves, status and clocks to its clients
+ */
+@Configuration
+@EnableWebSocket
+@AllArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final GameSocketHandler gameSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(gameSocketHandler, GameSocketHandler.PATH)
+                .addInterceptors(gameSocketHandler)
+                .setAllowedOrigins(WebConfig.ALLOWED_ORIGINS);
+    }
+}
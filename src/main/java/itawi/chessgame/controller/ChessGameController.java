@@ -1,13 +1,22 @@
 package itawi.chessgame.controller;
 
 import itawi.chessgame.service.ChessGameService;
+import itawi.chessgame.service.GameSnapshot;
+import itawi.chessgame.service.MateService;
 import itawi.chessgame.dto.PieceDTO;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/v1/chess")
@@ -15,77 +24,153 @@ import java.util.Map;
 public class ChessGameController {
 
     private final ChessGameService chessGameService;
-
-    @PostMapping("/new-game")
-    public ResponseEntity<Void> newGame(@RequestBody(required = false) Map<String, Integer> gameSettings) {
+    private final MateService mateService;
+
+    /**
+     * Start a game, with a clock if the settings give timeMinutes
+     * @return the ID addressing the game in every other endpoint
+     */
+    @PostMapping("/games")
+    public ResponseEntity<Map<String, String>> newGame(@RequestBody(required = false) Map<String, Integer> gameSettings) {
+        String gameId;
         if (gameSettings != null && gameSettings.containsKey("timeMinutes")) {
             // Start a new game with specified time control
-            chessGameService.newGame(gameSettings.get("timeMinutes"));
+            gameId = chessGameService.newGame(gameSettings.get("timeMinutes"),
+                    gameSettings.getOrDefault("incrementSeconds", 0), gameSettings.getOrDefault("delaySeconds", 0));
         } else {
             // Start a new game without time control
-            chessGameService.newGame();
+            gameId = chessGameService.newGame();
         }
-        return ResponseEntity.ok().build();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("gameId", gameId));
     }
 
-    @GetMapping("/board")
-    public ResponseEntity<List<PieceDTO>> getBoard() {
-        return ResponseEntity.ok(chessGameService.getBoardAsPieceDTOs());
+    @DeleteMapping("/games/{gameId}")
+    public ResponseEntity<Void> deleteGame(@PathVariable String gameId) {
+        chessGameService.deleteGame(gameId);
+        return ResponseEntity.noContent().build();
     }
 
-    @GetMapping("/status")
-    public ResponseEntity<Map<String, Object>> getGameStatus() {
-        return ResponseEntity.ok(chessGameService.getGameStatus());
+    /**
+     * The board as JSON pieces. Like the other board and status reads, it carries a strong ETag:
+     * a poll with a matching If-None-Match gets 304 Not Modified and no body.
+     */
+    @GetMapping(value = "/games/{gameId}/board", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<PieceDTO>> getBoard(@PathVariable String gameId, WebRequest request) {
+        GameSnapshot snapshot = chessGameService.getSnapshot(gameId);
+        if (request.checkNotModified(snapshot.boardTag("json"))) {
+            return null;
+        }
+        return ResponseEntity.ok(snapshot.board());
     }
 
-    @PostMapping("/promote")
-    public ResponseEntity<Map<String, Object>> promotePawn(@RequestBody Map<String, String> promotionRequest) {
-        String position = promotionRequest.get("position");
-        String pieceType = promotionRequest.get("pieceType");
+    /**
+     * The board as the piece placement field of a FEN, for clients that send Accept: text/plain
+     */
+    @GetMapping(value = "/games/{gameId}/board", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getBoardPlacement(@PathVariable String gameId, WebRequest request) {
+        GameSnapshot snapshot = chessGameService.getSnapshot(gameId);
+        if (request.checkNotModified(snapshot.boardTag("fen"))) {
+            return null;
+        }
+        return ResponseEntity.ok(snapshot.placement());
+    }
 
-        chessGameService.promotePawn(position, pieceType);
+    /**
+     * The board in 32 bytes, a 4-bit piece code per square, for clients that send Accept: application/octet-stream
+     */
+    @GetMapping(value = "/games/{gameId}/board", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getPackedBoard(@PathVariable String gameId, WebRequest request) {
+        GameSnapshot snapshot = chessGameService.getSnapshot(gameId);
+        if (request.checkNotModified(snapshot.boardTag("packed"))) {
+            return null;
+        }
+        return ResponseEntity.ok(snapshot.packed());
+    }
 
-        Map<String, Object> response = Map.of(
-                "board", chessGameService.getBoardAsPieceDTOs(),
-                "gameStatus", chessGameService.getGameStatus()
-        );
+    @GetMapping("/games/{gameId}/status")
+    public ResponseEntity<Map<String, Object>> getGameStatus(@PathVariable String gameId, WebRequest request) {
+        GameSnapshot snapshot = chessGameService.getSnapshot(gameId);
+        long now = System.nanoTime();
+        if (request.checkNotModified(snapshot.statusTag(now))) {
+            return null;
+        }
+        return ResponseEntity.ok(snapshot.currentStatus(now));
+    }
 
-        return ResponseEntity.ok(response);
+    @PostMapping("/games/{gameId}/promote")
+    public ResponseEntity<Map<String, Object>> promotePawn(@PathVariable String gameId,
+                                                           @RequestBody Map<String, String> promotionRequest) {
+        String position = promotionRequest.get("position");
+        String pieceType = promotionRequest.get("pieceType");
+
+        return ResponseEntity.ok(chessGameService.promotePawn(gameId, position, pieceType));
     }
 
-    @PostMapping("/square-click")
-    public ResponseEntity<Map<String, Object>> handleSquareClick(@RequestBody Map<String, String> clickRequest) {
+    @PostMapping("/games/{gameId}/square-click")
+    public ResponseEntity<Map<String, Object>> handleSquareClick(@PathVariable String gameId,
+                                                                 @RequestBody Map<String, String> clickRequest) {
         String position = clickRequest.get("position");
         String selectedPosition = clickRequest.get("selectedPosition");
 
-        Map<String, Object> response = chessGameService.handleSquareClick(position, selectedPosition);
+        Map<String, Object> response = chessGameService.handleSquareClick(gameId, position, selectedPosition);
 
         return ResponseEntity.ok(response);
     }
 
-    @PostMapping("/timer/pause")
-    public ResponseEntity<Map<String, Object>> pauseTimer() {
-        // Only pause if the game has started
-        if (chessGameService.getCurrentGame().getTimer().isTimerRunning()) {
-            chessGameService.getCurrentGame().getTimer().stopTimer();
-        }
+    @PostMapping("/games/{gameId}/engine-move")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> makeEngineMove(@PathVariable String gameId) {
+        return deferred(chessGameService.makeEngineMove(gameId));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "timerRunning", chessGameService.getCurrentGame().getTimer().isTimerRunning(),
-                "gameStatus", chessGameService.getGameStatus()
-        ));
+    /**
+     * Opening book moves for the game's position
+     */
+    @GetMapping("/games/{gameId}/book-moves")
+    public ResponseEntity<List<Map<String, Object>>> getBookMoves(@PathVariable String gameId) {
+        return ResponseEntity.ok(chessGameService.getBookMoves(gameId));
     }
 
-    @PostMapping("/timer/resume")
-    public ResponseEntity<Map<String, Object>> resumeTimer() {
-        // Only resume if the game is not over
-        if (!chessGameService.getCurrentGame().isGameOver()) {
-            chessGameService.getCurrentGame().getTimer().startTimer();
-        }
+    /**
+     * Stream the best lines for the game's position as server-sent events while the engine searches
+     */
+    @GetMapping("/games/{gameId}/analyze")
+    public SseEmitter analyze(@PathVariable String gameId,
+                              @RequestParam(defaultValue = "3") int lines,
+                              @RequestParam(defaultValue = "3000") long timeMillis) {
+        return chessGameService.analyze(gameId, lines, timeMillis);
+    }
+
+    @PostMapping("/games/{gameId}/timer/pause")
+    public ResponseEntity<Map<String, Object>> pauseTimer(@PathVariable String gameId) {
+        return ResponseEntity.ok(chessGameService.pauseTimer(gameId));
+    }
+
+    @PostMapping("/games/{gameId}/timer/resume")
+    public ResponseEntity<Map<String, Object>> resumeTimer(@PathVariable String gameId) {
+        return ResponseEntity.ok(chessGameService.resumeTimer(gameId));
+    }
+
+    /**
+     * Forced mate for the side to move in any position, solved by proof-number search
+     */
+    @GetMapping("/mate")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> findMate(@RequestParam String fen,
+                                                                        @RequestParam(defaultValue = "5") int maxMoves) {
+        return deferred(mateService.findMate(fen, maxMoves));
+    }
 
-        return ResponseEntity.ok(Map.of(
-                "timerRunning", chessGameService.getCurrentGame().getTimer().isTimerRunning(),
-                "gameStatus", chessGameService.getGameStatus()
-        ));
+    // Answer once the engine job finishes, without holding a web thread; a client that goes away cancels the job
+    private static <T> DeferredResult<ResponseEntity<T>> deferred(CompletableFuture<T> job) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+        result.onError(error -> job.cancel(true));
+        result.onTimeout(() -> job.cancel(true));
+        job.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(ResponseEntity.ok(value));
+            } else {
+                result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+        return result;
     }
 }
@@ -0,0 +1,204 @@
+package itawi.chessgame.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import itawi.chessgame.core.exception.GameNotFoundException;
+import itawi.chessgame.service.GameRegistry;
+import itawi.chessgame.service.GameSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes a game's moves, status and clocks to every client connected to /api/v1/chess/games/{gameId}/ws.
+ * Each frame is a small JSON object with a "type":
+ * "sync" with the whole game when a client connects, "move" after a move, "status" after any other change
+ * such as a promotion or a paused clock, and "clock" once a second while a clock is running.
+ * Boards are sent as the piece placement field of a FEN. Clients keep sending their moves over HTTP.
+ */
+@Component
+public class GameSocketHandler extends TextWebSocketHandler implements HandshakeInterceptor {
+    public static final String PATH = "/api/v1/chess/games/*/ws";
+    private static final String GAME_ID = "gameId";
+    private static final long CLOCK_INTERVAL_MILLIS = 1_000;
+    // A client that cannot keep up is dropped rather than holding up the game's other clients
+    private static final int SEND_TIME_LIMIT_MILLIS = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private final GameRegistry registry;
+    private final ObjectMapper mapper;
+    // Connected clients by game ID, then by session ID
+    private final Map<String, Map<String, WebSocketSession>> sessions = new ConcurrentHashMap<>();
+    // The ply of the last snapshot sent for each game, to tell moves from other changes
+    private final Map<String, Integer> sentPlies = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService clockTicker;
+
+    public GameSocketHandler(GameRegistry registry, ObjectMapper mapper) {
+        this.registry = registry;
+        this.mapper = mapper;
+        registry.addPublishListener((entry, snapshot) -> publish(entry.getId(), snapshot));
+        registry.addRemovalListener(entry -> closeAll(entry.getId()));
+        this.clockTicker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("game-clocks").factory());
+        clockTicker.scheduleWithFixedDelay(this::pushClocks, CLOCK_INTERVAL_MILLIS, CLOCK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Accept the handshake only for a game that exists, and remember which game the connection is for
+     */
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler handler, Map<String, Object> attributes) {
+        // The path ends with /games/{gameId}/ws
+        String[] segments = request.getURI().getPath().split("/");
+        String gameId = segments.length >= 2 ? segments[segments.length - 2] : null;
+        try {
+            registry.get(gameId);
+        } catch (GameNotFoundException e) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        attributes.put(GAME_ID, gameId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler handler, Exception exception) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String gameId = (String) session.getAttributes().get(GAME_ID);
+        WebSocketSession client = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, BUFFER_SIZE_LIMIT);
+        sessions.compute(gameId, (id, clients) -> {
+            Map<String, WebSocketSession> connected = clients == null ? new ConcurrentHashMap<>() : clients;
+            connected.put(session.getId(), client);
+            return connected;
+        });
+        try {
+            GameSnapshot snapshot = registry.snapshot(gameId);
+            sentPlies.merge(gameId, ply(snapshot), Math::max); // A snapshot published meanwhile may be newer
+            send(client, frame("sync", snapshot));
+        } catch (GameNotFoundException e) {
+            closeAll(gameId); // Removed while the client connected
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        String gameId = (String) session.getAttributes().get(GAME_ID);
+        sessions.computeIfPresent(gameId, (id, clients) -> {
+            clients.remove(session.getId());
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clockTicker.shutdownNow();
+    }
+
+    // Runs on the game's mailbox, so a game's frames go out in the order its snapshots were published
+    private void publish(String gameId, GameSnapshot snapshot) {
+        int ply = ply(snapshot);
+        Integer previous = sentPlies.put(gameId, ply);
+        Map<String, WebSocketSession> clients = sessions.get(gameId);
+        if (clients == null || clients.isEmpty()) {
+            return;
+        }
+        // A promotion or a paused clock keeps the ply, and an undo lowers it
+        boolean moved = ply > Objects.requireNonNullElse(previous, 0);
+        String frame = frame(moved ? "move" : "status", snapshot);
+        clients.values().forEach(client -> send(client, frame));
+    }
+
+    private void pushClocks() {
+        sessions.forEach((gameId, clients) -> {
+            GameSnapshot snapshot;
+            try {
+                snapshot = registry.snapshot(gameId);
+            } catch (GameNotFoundException e) {
+                return;
+            }
+            if (snapshot.clock() == null || !snapshot.clock().running()
+                    || Boolean.TRUE.equals(snapshot.status().get("isGameOver"))) {
+                return;
+            }
+            Map<String, Object> status = snapshot.currentStatus();
+            Map<String, Object> clock = new LinkedHashMap<>();
+            clock.put("type", "clock");
+            clock.put("currentTurn", status.get("currentTurn"));
+            clock.put("whiteTime", status.get("whiteTime"));
+            clock.put("blackTime", status.get("blackTime"));
+            String frame = toJson(clock);
+            clients.values().forEach(client -> send(client, frame));
+        });
+    }
+
+    private static int ply(GameSnapshot snapshot) {
+        return ((Number) snapshot.status().get("ply")).intValue();
+    }
+
+    private String frame(String type, GameSnapshot snapshot) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", type);
+        frame.put("version", snapshot.version());
+        if (!type.equals("status")) {
+            frame.put("move", snapshot.lastMove());
+        }
+        frame.put("board", snapshot.placement());
+        frame.put("status", snapshot.currentStatus());
+        return toJson(frame);
+    }
+
+    private String toJson(Map<String, Object> frame) {
+        try {
+            return mapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write game frame", e);
+        }
+    }
+
+    private void send(WebSocketSession client, String frame) {
+        try {
+            client.sendMessage(new TextMessage(frame));
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(client, CloseStatus.SESSION_NOT_RELIABLE); // Gone, or too slow to keep up
+        }
+    }
+
+    private void closeAll(String gameId) {
+        Map<String, WebSocketSession> clients = sessions.remove(gameId);
+        sentPlies.remove(gameId);
+        if (clients != null) {
+            clients.values().forEach(client -> closeQuietly(client, CloseStatus.GOING_AWAY));
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession client, CloseStatus status) {
+        try {
+            client.close(status);
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+}
@@ -308,8 +308,8 @@ public class Board {
                 continue;
             }
 
-            // Get the possible moves of the opponent's piece
-            List<String> possibleMoves = piece.getPossibleMoves(board);
+            // Get the possible moves of the opponent's piece; a pawn attacks diagonally whether or not it can move there
+            List<String> possibleMoves = piece instanceof Pawn pawn ? pawn.getAttackedSquares() : piece.getPossibleMoves(board);
 
             // Check if any of the squares are in the opponent's possible moves
             for (String square : squares) {
@@ -0,0 +1,36 @@
+package itawi.chessgame.core.engine;
+
+import lombok.Getter;
+
+/**
+ * Evaluator that remembers recent evaluations by position key, so positions reached again
+ * through transpositions or re-searches are not evaluated twice
+ */
+public class CachedEvaluator implements Evaluator {
+    public static final int DEFAULT_ENTRIES = 1 << 16;
+
+    @Getter
+    private final Evaluator evaluator;
+    @Getter
+    private final ScoreCache cache;
+
+    public CachedEvaluator(Evaluator evaluator) {
+        this(evaluator, DEFAULT_ENTRIES);
+    }
+
+    public CachedEvaluator(Evaluator evaluator, int entries) {
+        this.evaluator = evaluator;
+        this.cache = new ScoreCache(entries);
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        // The key includes the side to move, so the cached score has the right sign
+        int score = cache.probe(position.getKey());
+        if (score == ScoreCache.MISS) {
+            score = evaluator.evaluate(position);
+            cache.store(position.getKey(), score);
+        }
+        return score;
+    }
+}
@@ -0,0 +1,184 @@
+package itawi.chessgame.core.engine;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Classical handcrafted evaluation: material, piece-square tables and pawn structure.
+ * Scores are in centipawns from the point of view of the side to move.
+ * Pawn structure only changes on pawn moves and captures, so it is cached by the pawn-only hash key.
+ */
+public class ClassicalEvaluator implements Evaluator {
+    // Indexed by piece type
+    public static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 20000};
+
+    // Piece-square tables from white's point of view, a1 first
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 5, 5, 0, 0, 0,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_TABLE = {
+            20, 30, 10, 0, 0, 10, 30, 20,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30
+    };
+    private static final int[][] TABLES = {null, PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE};
+
+    // Pawn structure terms
+    public static final int DOUBLED_PAWN_PENALTY = 12;
+    public static final int ISOLATED_PAWN_PENALTY = 15;
+    // Indexed by rank counted from the pawn's own side
+    public static final int[] PASSED_PAWN_BONUS = {0, 5, 10, 20, 35, 60, 100, 0};
+    public static final int PAWN_HASH_ENTRIES = 1 << 14;
+
+    @Getter
+    private final ScoreCache pawnHash = new ScoreCache(PAWN_HASH_ENTRIES);
+
+    // Scratch tables for the pawn structure of one position, indexed by [color][file]
+    private final int[][] pawnCount = new int[2][8];
+    private final int[] whiteRearmost = new int[8];
+    private final int[] blackRearmost = new int[8];
+
+    @Override
+    public int evaluate(Position position) {
+        int score = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece == EMPTY) {
+                continue;
+            }
+            int type = typeOf(piece);
+            if (colorOf(piece) == WHITE) {
+                score += PIECE_VALUES[type] + TABLES[type][square];
+            } else {
+                score -= PIECE_VALUES[type] + TABLES[type][square ^ 56]; // Mirror the rank for black
+            }
+        }
+        score += pawnStructure(position);
+        return position.getSideToMove() == WHITE ? score : -score;
+    }
+
+    /**
+     * Pawn structure score from white's point of view, from the pawn hash when possible
+     */
+    public int pawnStructure(Position position) {
+        long key = position.getPawnKey();
+        int score = pawnHash.probe(key);
+        if (score == ScoreCache.MISS) {
+            score = computePawnStructure(position);
+            pawnHash.store(key, score);
+        }
+        return score;
+    }
+
+    private int computePawnStructure(Position position) {
+        for (int[] counts : pawnCount) {
+            Arrays.fill(counts, 0);
+        }
+        // Rank of the least advanced pawn on each file: a pawn is passed if no enemy pawn is ahead on nearby files
+        Arrays.fill(whiteRearmost, 8);
+        Arrays.fill(blackRearmost, -1);
+        int whitePawn = makePiece(PAWN, WHITE);
+        int blackPawn = makePiece(PAWN, BLACK);
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >> 3;
+            if (position.pieceAt(square) == whitePawn) {
+                pawnCount[WHITE][file]++;
+                whiteRearmost[file] = Math.min(whiteRearmost[file], rank);
+            } else if (position.pieceAt(square) == blackPawn) {
+                pawnCount[BLACK][file]++;
+                blackRearmost[file] = Math.max(blackRearmost[file], rank);
+            }
+        }
+
+        int score = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != whitePawn && piece != blackPawn) {
+                continue;
+            }
+            int color = colorOf(piece);
+            int file = square & 7;
+            int rank = square >> 3;
+            int sign = color == WHITE ? 1 : -1;
+
+            boolean isolated = true;
+            boolean passed = true;
+            for (int adjacent = Math.max(0, file - 1); adjacent <= Math.min(7, file + 1); adjacent++) {
+                if (adjacent != file && pawnCount[color][adjacent] > 0) {
+                    isolated = false;
+                }
+                if (color == WHITE ? blackRearmost[adjacent] > rank : whiteRearmost[adjacent] < rank) {
+                    passed = false;
+                }
+            }
+            if (isolated) {
+                score -= sign * ISOLATED_PAWN_PENALTY;
+            }
+            if (passed) {
+                score += sign * PASSED_PAWN_BONUS[color == WHITE ? rank : 7 - rank];
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            score -= DOUBLED_PAWN_PENALTY * Math.max(0, pawnCount[WHITE][file] - 1);
+            score += DOUBLED_PAWN_PENALTY * Math.max(0, pawnCount[BLACK][file] - 1);
+        }
+        return score;
+    }
+}
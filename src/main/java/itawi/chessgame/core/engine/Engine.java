@@ -0,0 +1,298 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.engine.book.OpeningBook;
+import itawi.chessgame.core.engine.tablebase.Tablebase;
+import itawi.chessgame.core.game.Game;
+import itawi.chessgame.core.timer.ChessTimer;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Engine player for a game: picks search limits from the game's clock and searches the current position.
+ * While the opponent thinks on a timed game, the engine can ponder on the reply it expects.
+ */
+public class Engine {
+    // Thinking time per move for games without a clock
+    public static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+
+    public static final int MAX_ANALYSIS_LINES = 8;
+    // Analyses run beside play with their own, smaller table
+    private static final int ANALYSIS_HASH_MB = 4;
+
+    // Ponder tasks spend most of their life waiting to be cancelled; virtual threads keep thousands of them cheap
+    private static final ExecutorService PONDER_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ponder-", 0).factory());
+    private static final ExecutorService ANALYSIS_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-", 0).factory());
+
+    private final EvaluatorFactory evaluatorFactory;
+    private final Tablebase tablebase;
+    @Getter
+    private final Search search;
+    private static final TimeManager TIME_MANAGER = new TimeManager();
+    // Opening moves are played from the book without searching
+    @Setter
+    private OpeningBook book = OpeningBook.empty();
+    // Receives the counters of every search, including analyses
+    private EngineMetrics metrics = EngineMetrics.none();
+    private SearchFeatures features = SearchFeatures.ALL;
+
+    // State of the running ponder search, if any
+    private volatile Future<SearchResult> ponderTask;
+    private volatile AtomicBoolean ponderStop;
+    private volatile int ponderMove = Move.NONE;
+    private volatile Game ponderGame;
+    private long ponderKey;
+
+    public Engine() {
+        this(EvaluatorFactory.CLASSICAL);
+    }
+
+    public Engine(EvaluatorFactory evaluatorFactory) {
+        this(evaluatorFactory, Tablebase.empty());
+    }
+
+    public Engine(EvaluatorFactory evaluatorFactory, Tablebase tablebase) {
+        this.evaluatorFactory = evaluatorFactory;
+        this.tablebase = tablebase;
+        this.search = new Search(evaluatorFactory.create(), new TranspositionTable());
+        this.search.setTablebase(tablebase);
+    }
+
+    /**
+     * Play a book move if the position is in the opening book, else
+     * search the game's current position within the time the side to move can afford.
+     * On a ponder hit the pondered result is played at once if it already used the budget;
+     * otherwise the search restarts warm from everything the ponder search stored.
+     */
+    public SearchResult think(Game game) {
+        return think(game, new AtomicBoolean());
+    }
+
+    /**
+     * Think like think(game), stopping early with the best move so far once the stop flag is set
+     */
+    public SearchResult think(Game game, AtomicBoolean stop) {
+        Position position = Position.fromGame(game);
+        return think(position, limitsFor(game, position), stop);
+    }
+
+    /**
+     * Think like think(game) on a snapshot of a game's position, so the game itself can change meanwhile
+     */
+    public synchronized SearchResult think(Position position, SearchLimits limits, AtomicBoolean stop) {
+        int bookMove = book.pickMove(position, ThreadLocalRandom.current());
+        if (bookMove != Move.NONE) {
+            finishPondering(0);
+            return new SearchResult(bookMove, 0, 0, new int[]{bookMove}, 0, 0, 0);
+        }
+
+        SearchResult pondered = finishPondering(position.getKey());
+        if (pondered != null && pondered.bestMove() != Move.NONE
+                && (pondered.elapsedMillis() >= limits.softTimeMillis() || pondered.isMate())) {
+            return pondered;
+        }
+        return search.search(position, limits, stop);
+    }
+
+    /**
+     * Analyse a position in the background, reporting the best lines after every completed depth.
+     * The analysis uses its own search, so it can run while the engine plays or ponders.
+     * @param lines Number of principal variations, between 1 and MAX_ANALYSIS_LINES
+     * @param stop Setting this flag ends the analysis early
+     * @param listener Receives the lines of each completed depth, best first, on the analysis thread
+     * @return the lines of the last completed depth
+     */
+    public CompletableFuture<List<SearchResult>> analyze(Position position, int lines, SearchLimits limits,
+                                                         AtomicBoolean stop, Consumer<List<SearchResult>> listener) {
+        checkAnalysisLines(lines);
+        return CompletableFuture.supplyAsync(
+                () -> analyzeNow(position, lines, limits, stop, listener), ANALYSIS_EXECUTOR);
+    }
+
+    /**
+     * Analyse a position like analyze, on the calling thread, e.g. a job of an EngineScheduler
+     */
+    public List<SearchResult> analyzeNow(Position position, int lines, SearchLimits limits,
+                                         AtomicBoolean stop, Consumer<List<SearchResult>> listener) {
+        checkAnalysisLines(lines);
+        Search analysis = new Search(evaluatorFactory.create(), new TranspositionTable(ANALYSIS_HASH_MB));
+        analysis.setTablebase(tablebase);
+        analysis.setMetrics(metrics);
+        analysis.setFeatures(features);
+        return analysis.searchLines(position, limits, lines, stop, listener);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the number of lines is not between 1 and MAX_ANALYSIS_LINES
+     */
+    public static void checkAnalysisLines(int lines) {
+        if (lines < 1 || lines > MAX_ANALYSIS_LINES) {
+            throw new IllegalArgumentException("Number of lines must be between 1 and " + MAX_ANALYSIS_LINES);
+        }
+    }
+
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+        search.setMetrics(metrics);
+    }
+
+    /**
+     * Switch selective search features on or off, for play and analysis alike
+     */
+    public void setFeatures(SearchFeatures features) {
+        this.features = features;
+        search.setFeatures(features);
+    }
+
+    /**
+     * Search limits for the side to move: a budget from the clock on timed boards, a fixed time otherwise
+     */
+    public static SearchLimits limitsFor(Game game, Position position) {
+        ChessTimer timer = game.getTimer();
+        if (timer == null) {
+            return SearchLimits.moveTime(DEFAULT_MOVE_TIME_MILLIS);
+        }
+        return TIME_MANAGER.limitsFor(timer, game.getCurrentTurn(), position);
+    }
+
+    /**
+     * Start searching the position after the opponent's expected reply, on the opponent's clock.
+     * Call this right after the engine's own move has been played on the game.
+     * @param lastResult The search that chose the engine's move; its principal variation predicts the reply
+     */
+    public synchronized void startPondering(Game game, SearchResult lastResult) {
+        finishPondering(0);
+        if (game.isGameOver() || game.getTimer() == null) {
+            return; // Pondering only pays off against a clock
+        }
+
+        Position position = Position.fromGame(game);
+        int predicted = predictedReply(position, lastResult);
+        if (predicted == Move.NONE || !position.makeMove(predicted)) {
+            return;
+        }
+
+        // Ponder for at most as long as the opponent can think
+        long opponentTime = game.getTimer().getRemainingTimeMillis(game.getCurrentTurn());
+        SearchLimits limits = new SearchLimits(Search.MAX_PLY, opponentTime, opponentTime);
+        AtomicBoolean stop = new AtomicBoolean();
+
+        ponderStop = stop;
+        ponderMove = predicted;
+        ponderGame = game;
+        ponderKey = position.getKey();
+        ponderTask = PONDER_EXECUTOR.submit(() -> search.search(position, limits, stop));
+    }
+
+    /**
+     * Move listener for the game: a move other than the predicted one cancels the ponder search
+     */
+    public void onMovePlayed(String from, String to) {
+        int predicted = ponderMove;
+        AtomicBoolean stop = ponderStop;
+        if (predicted == Move.NONE || stop == null) {
+            return;
+        }
+        boolean expected = Position.squareName(Move.from(predicted)).equals(from)
+                && Position.squareName(Move.to(predicted)).equals(to);
+        if (!expected) {
+            stop.set(true);
+        }
+    }
+
+    /**
+     * Ask a ponder search on the given game to stop, without waiting for it.
+     * Lets an engine that moves in a game stop another engine that was pondering on it.
+     */
+    public void cancelPondering(Game game) {
+        AtomicBoolean stop = ponderStop;
+        if (stop != null && ponderGame == game) {
+            stop.set(true);
+        }
+    }
+
+    /**
+     * Whether this engine is pondering on the given game
+     */
+    public boolean isPonderingOn(Game game) {
+        return ponderGame == game && isPondering();
+    }
+
+    /**
+     * Whether a ponder search is still running
+     */
+    public boolean isPondering() {
+        Future<SearchResult> task = ponderTask;
+        return task != null && !task.isDone();
+    }
+
+    /**
+     * Stop pondering without using the result, e.g. when the game is abandoned
+     */
+    public synchronized void stopPondering() {
+        finishPondering(0);
+    }
+
+    /**
+     * Forget the previous game
+     */
+    public synchronized void newGame() {
+        finishPondering(0);
+        search.clear();
+    }
+
+    // Stop the ponder search and wait for it; its result is only returned if it searched the given position
+    private SearchResult finishPondering(long currentKey) {
+        if (ponderTask == null) {
+            return null;
+        }
+        ponderStop.set(true);
+
+        SearchResult result;
+        try {
+            result = ponderTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = null;
+        } catch (ExecutionException e) {
+            result = null;
+        }
+
+        boolean hit = ponderKey == currentKey;
+        ponderTask = null;
+        ponderStop = null;
+        ponderMove = Move.NONE;
+        ponderGame = null;
+        return hit ? result : null;
+    }
+
+    // The second move of the principal variation, or the stored best reply if the variation was cut short
+    private int predictedReply(Position position, SearchResult lastResult) {
+        int predicted = lastResult != null && lastResult.principalVariation().length >= 2
+                ? lastResult.principalVariation()[1]
+                : TranspositionTable.move(search.getTranspositionTable().probe(position.getKey()));
+        if (predicted == Move.NONE) {
+            return Move.NONE;
+        }
+
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, legalMoves);
+        for (int i = 0; i < count; i++) {
+            if (legalMoves[i] == predicted) {
+                return predicted;
+            }
+        }
+        return Move.NONE;
+    }
+}
@@ -0,0 +1,10 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Thrown when the engine scheduler cannot take a job: its queue is full, or the job's deadline passed while it waited
+ */
+public class EngineBusyException extends RuntimeException {
+    public EngineBusyException(String message) {
+        super(message);
+    }
+}
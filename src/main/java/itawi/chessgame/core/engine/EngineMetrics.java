@@ -0,0 +1,162 @@
+package itawi.chessgame.core.engine;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of every search that reports to it, for monitoring.
+ * Searches count into their own SearchStats and add them here once per search (time to depth once per iteration),
+ * so nothing is shared on the hot path. The totals are striped LongAdders, so searches on many threads can
+ * report at the same time without contending.
+ */
+public class EngineMetrics {
+    private static final EngineMetrics NONE = new EngineMetrics(false);
+
+    /**
+     * Figures of the most recent search
+     */
+    public record LastSearch(long nodes, double nodesPerSecond, double transpositionHitRate,
+                             double firstMoveCutoffRate, double effectiveBranchingFactor) {
+    }
+
+    private final boolean enabled;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder quiescenceNodes = new LongAdder();
+    private final LongAdder transpositionProbes = new LongAdder();
+    private final LongAdder transpositionHits = new LongAdder();
+    private final LongAdder betaCutoffs = new LongAdder();
+    private final LongAdder firstMoveCutoffs = new LongAdder();
+    // Only searches with two completed iterations have a branching factor
+    private final DoubleAdder branchingFactorSum = new DoubleAdder();
+    private final LongAdder branchingFactorSamples = new LongAdder();
+    // Per depth: iterations completed and time from the start of their search
+    private final LongAdder[] depthCounts = new LongAdder[Search.MAX_PLY + 1];
+    private final LongAdder[] depthNanos = new LongAdder[Search.MAX_PLY + 1];
+    private volatile LastSearch lastSearch = new LastSearch(0, 0, 0, 0, 0);
+
+    public EngineMetrics() {
+        this(true);
+    }
+
+    private EngineMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int depth = 0; depth <= Search.MAX_PLY; depth++) {
+            depthCounts[depth] = new LongAdder();
+            depthNanos[depth] = new LongAdder();
+        }
+    }
+
+    /**
+     * Metrics that ignore everything reported, for searches nobody monitors
+     */
+    public static EngineMetrics none() {
+        return NONE;
+    }
+
+    void recordIteration(int depth, long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        depthCounts[depth].increment();
+        depthNanos[depth].add(elapsedNanos);
+    }
+
+    void recordSearch(SearchStats stats, long elapsedNanos) {
+        if (!enabled) {
+            return;
+        }
+        searches.increment();
+        searchNanos.add(elapsedNanos);
+        nodes.add(stats.getNodes());
+        quiescenceNodes.add(stats.getQuiescenceNodes());
+        transpositionProbes.add(stats.getTranspositionProbes());
+        transpositionHits.add(stats.getTranspositionHits());
+        betaCutoffs.add(stats.getBetaCutoffs());
+        firstMoveCutoffs.add(stats.getFirstMoveCutoffs());
+        double branchingFactor = stats.getEffectiveBranchingFactor();
+        if (branchingFactor > 0) {
+            branchingFactorSum.add(branchingFactor);
+            branchingFactorSamples.increment();
+        }
+        lastSearch = new LastSearch(stats.getNodes(), rate(stats.getNodes(), elapsedNanos / 1e9),
+                stats.getTranspositionHitRate(), stats.getFirstMoveCutoffRate(), branchingFactor);
+    }
+
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    public long getSearchNanos() {
+        return searchNanos.sum();
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes.sum();
+    }
+
+    public long getTranspositionProbes() {
+        return transpositionProbes.sum();
+    }
+
+    public long getTranspositionHits() {
+        return transpositionHits.sum();
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs.sum();
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs.sum();
+    }
+
+    public LastSearch getLastSearch() {
+        return lastSearch;
+    }
+
+    /**
+     * Nodes per second over all searches
+     */
+    public double getNodesPerSecond() {
+        return rate(getNodes(), getSearchNanos() / 1e9);
+    }
+
+    public double getTranspositionHitRate() {
+        return rate(getTranspositionHits(), getTranspositionProbes());
+    }
+
+    public double getFirstMoveCutoffRate() {
+        return rate(getFirstMoveCutoffs(), getBetaCutoffs());
+    }
+
+    /**
+     * Mean effective branching factor of the searches that have one
+     */
+    public double getEffectiveBranchingFactor() {
+        return rate(branchingFactorSum.sum(), branchingFactorSamples.sum());
+    }
+
+    /**
+     * Iterations of the given depth completed so far
+     */
+    public long getDepthCount(int depth) {
+        return depthCounts[depth].sum();
+    }
+
+    /**
+     * Total time from the start of a search until an iteration of the given depth completed
+     */
+    public long getDepthNanos(int depth) {
+        return depthNanos[depth].sum();
+    }
+
+    private static double rate(double amount, double per) {
+        return per == 0 ? 0.0 : amount / per;
+    }
+}
@@ -0,0 +1,206 @@
+package itawi.chessgame.core.engine;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs engine jobs on a fixed number of worker threads, so searches cannot take more CPU than they are given
+ * and never run on the threads that serve requests.
+ * Waiting jobs are ordered by priority, then by arrival. The queue is bounded: a job that does not fit is rejected
+ * at once with an EngineBusyException rather than waiting indefinitely.
+ * <p>
+ * Every job has a deadline. A job still waiting at its deadline fails with an EngineBusyException; a running job
+ * has its stop flag set, so a search returns its last completed iteration. Cancelling a job's future also sets
+ * the flag, or drops the job if it has not started yet.
+ */
+public class EngineScheduler implements AutoCloseable {
+
+    public enum Priority {
+        // Moves in games being played, where a player's clock is running
+        LIVE_GAME,
+        // Analysis and puzzle solving, which can wait
+        ANALYSIS
+    }
+
+    private final PriorityBlockingQueue<Job<?>> queue = new PriorityBlockingQueue<>();
+    private final int queueCapacity;
+    private final Thread[] workers;
+    private final ScheduledThreadPoolExecutor deadlineTimer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param threads Number of jobs that run at the same time
+     * @param queueCapacity Number of jobs that may wait for a worker
+     */
+    public EngineScheduler(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Engine scheduler needs at least one thread and a non-negative queue");
+        }
+        this.queueCapacity = queueCapacity;
+        this.deadlineTimer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("engine-deadlines").daemon().factory());
+        this.deadlineTimer.setRemoveOnCancelPolicy(true);
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = Thread.ofPlatform().name("engine-" + i).daemon().start(this::work);
+        }
+    }
+
+    /**
+     * Queue a job
+     * @param task Work to run on an engine thread; it should poll the stop flag it is given and return soon once set
+     * @param deadlineMillis Time from now until the job is stopped, or dropped if it has not started
+     * @return the job's result; cancel it to stop or drop the job
+     * @throws EngineBusyException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, long deadlineMillis, Function<AtomicBoolean, T> task) {
+        if (closed) {
+            throw new IllegalStateException("Engine scheduler is closed");
+        }
+        // Count the job before queueing it, so concurrent submissions cannot overfill the queue
+        if (queued.incrementAndGet() > queueCapacity + idleWorkers()) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new EngineBusyException("The engine is busy, please try again shortly");
+        }
+
+        Job<T> job = new Job<>(priority, sequence.getAndIncrement(), task);
+        job.deadline = deadlineTimer.schedule(() -> expire(job), Math.max(0, deadlineMillis), TimeUnit.MILLISECONDS);
+        job.future.whenComplete((result, error) -> {
+            job.deadline.cancel(false);
+            if (error instanceof CancellationException) {
+                job.stop.set(true);
+                if (job.leaveQueue()) {
+                    queue.remove(job);
+                }
+            }
+        });
+        queue.add(job);
+        return job.future;
+    }
+
+    /**
+     * Jobs waiting for a worker
+     */
+    public int getQueuedJobs() {
+        return queued.get();
+    }
+
+    /**
+     * Jobs being run by a worker
+     */
+    public int getRunningJobs() {
+        return running.get();
+    }
+
+    /**
+     * Jobs turned away because the queue was full, since the scheduler started
+     */
+    public long getRejectedJobs() {
+        return rejected.get();
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Stop every job and the workers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        deadlineTimer.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Job<?> job;
+        while ((job = queue.poll()) != null) {
+            job.future.cancel(false);
+        }
+    }
+
+    // A job waiting for a worker that is about to take it should not count against the queue
+    private int idleWorkers() {
+        return Math.max(0, workers.length - running.get());
+    }
+
+    private void work() {
+        while (!closed) {
+            Job<?> job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!job.leaveQueue()) {
+                continue; // Cancelled or expired while waiting
+            }
+            running.incrementAndGet();
+            try {
+                job.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private void expire(Job<?> job) {
+        job.stop.set(true);
+        if (job.leaveQueue()) {
+            queue.remove(job);
+            job.future.completeExceptionally(new EngineBusyException("The engine could not start the job before its deadline"));
+        }
+    }
+
+    private final class Job<T> implements Comparable<Job<?>> {
+        private final Priority priority;
+        private final long sequence;
+        private final Function<AtomicBoolean, T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicBoolean stop = new AtomicBoolean();
+        // Set once the job is taken by a worker, cancelled or expired, whichever comes first
+        private final AtomicBoolean dequeued = new AtomicBoolean();
+        private volatile ScheduledFuture<?> deadline;
+
+        Job(Priority priority, long sequence, Function<AtomicBoolean, T> task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        boolean leaveQueue() {
+            if (dequeued.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        void run() {
+            try {
+                future.complete(task.apply(stop));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(Job<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
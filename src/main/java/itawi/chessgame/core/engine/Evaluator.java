@@ -0,0 +1,14 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Static evaluation used at the leaves of the search.
+ * Implementations may keep per-search state, so each Search gets its own instance.
+ */
+public interface Evaluator {
+
+    /**
+     * Evaluate the position
+     * @return score in centipawns, positive when the side to move is better
+     */
+    int evaluate(Position position);
+}
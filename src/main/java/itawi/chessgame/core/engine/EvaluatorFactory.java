@@ -0,0 +1,11 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Creates a fresh evaluator for each engine, since evaluators may carry per-search state
+ */
+@FunctionalInterface
+public interface EvaluatorFactory {
+    EvaluatorFactory CLASSICAL = () -> new CachedEvaluator(new ClassicalEvaluator());
+
+    Evaluator create();
+}
@@ -0,0 +1,161 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Moves are packed into a single int so the engine can keep them in primitive arrays.
+ * Bits 0-5 hold the from square, bits 6-11 the to square, bits 12-14 the promotion
+ * piece type and bits 15-16 the move flag.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    // Move flags
+    public static final int NORMAL = 0;
+    public static final int EN_PASSANT = 1;
+    public static final int CASTLING = 2;
+    public static final int DOUBLE_PUSH = 3;
+
+    // Piece letters of standard algebraic notation, indexed by piece type
+    private static final String PIECE_LETTERS = " PNBRQK";
+
+    private Move() {
+    }
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int of(int from, int to, int promotion, int flag) {
+        return from | (to << 6) | (promotion << 12) | (flag << 15);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 15) & 0x3;
+    }
+
+    public static boolean isPromotion(int move) {
+        return promotion(move) != Position.EMPTY;
+    }
+
+    // Captures and promotions are "tactical"; everything else is a quiet move for ordering purposes
+    public static boolean isTactical(Position position, int move) {
+        return position.pieceAt(to(move)) != Position.EMPTY || flag(move) == EN_PASSANT || isPromotion(move);
+    }
+
+    /**
+     * Format a move in coordinate notation (e.g. "e2e4", "e7e8q")
+     */
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String uci = Position.squareName(from(move)) + Position.squareName(to(move));
+        return switch (promotion(move)) {
+            case Position.QUEEN -> uci + "q";
+            case Position.ROOK -> uci + "r";
+            case Position.BISHOP -> uci + "b";
+            case Position.KNIGHT -> uci + "n";
+            default -> uci;
+        };
+    }
+
+    /**
+     * Name of a promotion piece as the game expects it (e.g. "queen")
+     */
+    public static String promotionName(int move) {
+        return switch (promotion(move)) {
+            case Position.ROOK -> "rook";
+            case Position.BISHOP -> "bishop";
+            case Position.KNIGHT -> "knight";
+            default -> "queen";
+        };
+    }
+
+    /**
+     * Find the legal move in the position matching the given coordinate notation
+     * @return the move, or NONE if it is not legal in this position
+     */
+    public static int fromUci(Position position, String uci) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        for (int i = 0; i < count; i++) {
+            if (toUci(moves[i]).equalsIgnoreCase(uci)) {
+                return moves[i];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Find the legal move in the position matching the given standard algebraic notation (e.g. "Nbd7", "exd8=Q+", "O-O")
+     * @return the move, or NONE if no legal move or more than one matches
+     */
+    public static int fromSan(Position position, String san) {
+        String text = san.replaceAll("[+#!?]+$", "");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            boolean kingSide = text.length() == 3;
+            for (int i = 0; i < count; i++) {
+                if (flag(moves[i]) == CASTLING && (to(moves[i]) > from(moves[i])) == kingSide) {
+                    return moves[i];
+                }
+            }
+            return NONE;
+        }
+
+        int promotion = Position.EMPTY;
+        int equals = text.indexOf('=');
+        if (equals >= 0 && equals + 1 < text.length()) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        } else if (text.length() > 2 && PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)) > Position.PAWN) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)); // "e8Q"
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.length() < 2 || promotion < Position.EMPTY) {
+            return NONE;
+        }
+
+        int type = PIECE_LETTERS.indexOf(text.charAt(0));
+        if (type > Position.PAWN) {
+            text = text.substring(1);
+        } else {
+            type = Position.PAWN;
+        }
+        String destination = text.substring(text.length() - 2);
+        if (!destination.matches("[a-h][1-8]")) {
+            return NONE;
+        }
+        int to = Position.squareOf(destination);
+        // Whatever is left is the capture sign and the from file and/or rank
+        String disambiguation = text.substring(0, text.length() - 2).replace("x", "");
+
+        int found = NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (to(move) != to || promotion(move) != promotion
+                    || Position.typeOf(position.pieceAt(from(move))) != type
+                    || !Position.squareName(from(move)).contains(disambiguation)) {
+                continue;
+            }
+            if (found != NONE) {
+                return NONE; // Ambiguous
+            }
+            found = move;
+        }
+        return found;
+    }
+}
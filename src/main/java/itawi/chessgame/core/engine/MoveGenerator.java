@@ -0,0 +1,236 @@
+package itawi.chessgame.core.engine;
+
+import java.util.Arrays;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Pseudo-legal move generation on the engine's mailbox position.
+ * Moves are written into a caller-supplied array so search can reuse its buffers.
+ */
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 256;
+
+    // Direction indexes into RAYS: orthogonal first, then diagonal
+    static final int[] DX = {0, 0, 1, -1, 1, -1, 1, -1};
+    static final int[] DY = {1, -1, 0, 0, 1, 1, -1, -1};
+
+    static final int[][] KNIGHT_TARGETS = new int[64][];
+    static final int[][] KING_TARGETS = new int[64][];
+    static final int[][][] PAWN_ATTACKS = new int[2][64][];
+    static final int[][][] RAYS = new int[64][8][];
+
+    static {
+        int[] knightDx = {2, 2, 1, 1, -1, -1, -2, -2};
+        int[] knightDy = {1, -1, 2, -2, 2, -2, 1, -1};
+        for (int square = 0; square < 64; square++) {
+            int x = square & 7;
+            int y = square >> 3;
+            KNIGHT_TARGETS[square] = targets(x, y, knightDx, knightDy);
+            KING_TARGETS[square] = targets(x, y, DX, DY);
+            PAWN_ATTACKS[WHITE][square] = targets(x, y, new int[]{-1, 1}, new int[]{1, 1});
+            PAWN_ATTACKS[BLACK][square] = targets(x, y, new int[]{-1, 1}, new int[]{-1, -1});
+            for (int direction = 0; direction < 8; direction++) {
+                int length = 0;
+                int[] ray = new int[7];
+                int nx = x + DX[direction];
+                int ny = y + DY[direction];
+                while (nx >= 0 && nx < 8 && ny >= 0 && ny < 8) {
+                    ray[length++] = nx + 8 * ny;
+                    nx += DX[direction];
+                    ny += DY[direction];
+                }
+                RAYS[square][direction] = Arrays.copyOf(ray, length);
+            }
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    private static int[] targets(int x, int y, int[] dx, int[] dy) {
+        int[] result = new int[dx.length];
+        int length = 0;
+        for (int i = 0; i < dx.length; i++) {
+            int nx = x + dx[i];
+            int ny = y + dy[i];
+            if (nx >= 0 && nx < 8 && ny >= 0 && ny < 8) {
+                result[length++] = nx + 8 * ny;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Generate all pseudo-legal moves for the side to move
+     * @return the number of moves written into the array
+     */
+    public static int generateMoves(Position position, int[] moves) {
+        return generate(position, moves, false);
+    }
+
+    /**
+     * Generate captures and queen promotions only, as used by quiescence search
+     * @return the number of moves written into the array
+     */
+    public static int generateCaptures(Position position, int[] moves) {
+        return generate(position, moves, true);
+    }
+
+    /**
+     * Generate only the moves that do not leave the own king in check
+     * @return the number of moves written into the array
+     */
+    public static int generateLegalMoves(Position position, int[] moves) {
+        int count = generateMoves(position, moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (position.makeMove(moves[i])) {
+                position.unmakeMove();
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    private static int generate(Position position, int[] moves, boolean capturesOnly) {
+        int us = position.getSideToMove();
+        int count = 0;
+
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece == EMPTY || colorOf(piece) != us) {
+                continue;
+            }
+
+            switch (typeOf(piece)) {
+                case PAWN -> count = addPawnMoves(position, square, us, moves, count, capturesOnly);
+                case KNIGHT -> count = addStepMoves(position, square, KNIGHT_TARGETS[square], us, moves, count, capturesOnly);
+                case BISHOP -> count = addSlidingMoves(position, square, 4, 8, us, moves, count, capturesOnly);
+                case ROOK -> count = addSlidingMoves(position, square, 0, 4, us, moves, count, capturesOnly);
+                case QUEEN -> count = addSlidingMoves(position, square, 0, 8, us, moves, count, capturesOnly);
+                case KING -> {
+                    count = addStepMoves(position, square, KING_TARGETS[square], us, moves, count, capturesOnly);
+                    if (!capturesOnly) {
+                        count = addCastlingMoves(position, us, moves, count);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static int addPawnMoves(Position position, int square, int us, int[] moves, int count, boolean capturesOnly) {
+        int forward = us == WHITE ? 8 : -8;
+        int startRank = us == WHITE ? 1 : 6;
+        int promotionRank = us == WHITE ? 7 : 0;
+
+        // Pushes
+        int to = square + forward;
+        if (position.pieceAt(to) == EMPTY) {
+            if (to >> 3 == promotionRank) {
+                count = addPromotions(square, to, moves, count, capturesOnly);
+            } else if (!capturesOnly) {
+                moves[count++] = Move.of(square, to);
+                int doublePush = to + forward;
+                if (square >> 3 == startRank && position.pieceAt(doublePush) == EMPTY) {
+                    moves[count++] = Move.of(square, doublePush, EMPTY, Move.DOUBLE_PUSH);
+                }
+            }
+        }
+
+        // Captures, including en passant
+        for (int target : PAWN_ATTACKS[us][square]) {
+            if (target == position.getEnPassantSquare()) {
+                moves[count++] = Move.of(square, target, EMPTY, Move.EN_PASSANT);
+                continue;
+            }
+            int victim = position.pieceAt(target);
+            if (victim != EMPTY && colorOf(victim) != us) {
+                if (target >> 3 == promotionRank) {
+                    count = addPromotions(square, target, moves, count, capturesOnly);
+                } else {
+                    moves[count++] = Move.of(square, target);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private static int addPromotions(int from, int to, int[] moves, int count, boolean queenOnly) {
+        moves[count++] = Move.of(from, to, QUEEN, Move.NORMAL);
+        if (!queenOnly) {
+            moves[count++] = Move.of(from, to, KNIGHT, Move.NORMAL);
+            moves[count++] = Move.of(from, to, ROOK, Move.NORMAL);
+            moves[count++] = Move.of(from, to, BISHOP, Move.NORMAL);
+        }
+        return count;
+    }
+
+    private static int addStepMoves(Position position, int square, int[] targets, int us, int[] moves, int count, boolean capturesOnly) {
+        for (int target : targets) {
+            int occupant = position.pieceAt(target);
+            if (occupant == EMPTY) {
+                if (!capturesOnly) {
+                    moves[count++] = Move.of(square, target);
+                }
+            } else if (colorOf(occupant) != us) {
+                moves[count++] = Move.of(square, target);
+            }
+        }
+        return count;
+    }
+
+    private static int addSlidingMoves(Position position, int square, int firstDirection, int lastDirection,
+                                       int us, int[] moves, int count, boolean capturesOnly) {
+        for (int direction = firstDirection; direction < lastDirection; direction++) {
+            for (int target : RAYS[square][direction]) {
+                int occupant = position.pieceAt(target);
+                if (occupant == EMPTY) {
+                    if (!capturesOnly) {
+                        moves[count++] = Move.of(square, target);
+                    }
+                    continue;
+                }
+                if (colorOf(occupant) != us) {
+                    moves[count++] = Move.of(square, target);
+                }
+                break; // Blocked
+            }
+        }
+        return count;
+    }
+
+    private static int addCastlingMoves(Position position, int us, int[] moves, int count) {
+        int rights = position.getCastlingRights();
+        int them = us ^ 1;
+        int kingSquare = us == WHITE ? 4 : 60;
+        int kingSide = us == WHITE ? WHITE_KING_SIDE : BLACK_KING_SIDE;
+        int queenSide = us == WHITE ? WHITE_QUEEN_SIDE : BLACK_QUEEN_SIDE;
+
+        if ((rights & (kingSide | queenSide)) == 0 || position.isSquareAttacked(kingSquare, them)) {
+            return count;
+        }
+
+        // King-side: f and g files must be empty and not attacked
+        if ((rights & kingSide) != 0
+                && position.pieceAt(kingSquare + 1) == EMPTY && position.pieceAt(kingSquare + 2) == EMPTY
+                && !position.isSquareAttacked(kingSquare + 1, them) && !position.isSquareAttacked(kingSquare + 2, them)) {
+            moves[count++] = Move.of(kingSquare, kingSquare + 2, EMPTY, Move.CASTLING);
+        }
+
+        // Queen-side: b, c and d files must be empty, the king only crosses d and c
+        if ((rights & queenSide) != 0
+                && position.pieceAt(kingSquare - 1) == EMPTY && position.pieceAt(kingSquare - 2) == EMPTY
+                && position.pieceAt(kingSquare - 3) == EMPTY
+                && !position.isSquareAttacked(kingSquare - 1, them) && !position.isSquareAttacked(kingSquare - 2, them)) {
+            moves[count++] = Move.of(kingSquare, kingSquare - 2, EMPTY, Move.CASTLING);
+        }
+
+        return count;
+    }
+}
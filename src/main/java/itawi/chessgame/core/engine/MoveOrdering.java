@@ -0,0 +1,157 @@
+package itawi.chessgame.core.engine;
+
+import java.util.Arrays;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Move ordering heuristics for alpha-beta search.
+ * Captures are ordered by MVV-LVA, quiet moves by killer slots, counter-moves and a butterfly history table.
+ * All tables are primitive arrays owned by one search and reused between searches.
+ */
+public class MoveOrdering {
+    // Score bands, so every capture is tried before killers and killers before plain quiet moves
+    private static final int HASH_MOVE_SCORE = 2_000_000;
+    private static final int GOOD_CAPTURE_SCORE = 1_000_000;
+    private static final int KILLER_SCORE = 900_000;
+    private static final int COUNTER_MOVE_SCORE = 800_000;
+    private static final int HISTORY_LIMIT = 16_384;
+
+    private final int[][] killers = new int[Search.MAX_PLY + 1][2];
+    private final int[] history = new int[2 * 64 * 64]; // [color][from][to]
+    private final int[] counterMoves = new int[16 * 64]; // [piece][to] of the previous move
+
+    /**
+     * Most valuable victim first, least valuable attacker as tie-break
+     */
+    public static int mvvLva(Position position, int move) {
+        int victim = Move.flag(move) == Move.EN_PASSANT ? PAWN : typeOf(position.pieceAt(Move.to(move)));
+        int attacker = typeOf(position.pieceAt(Move.from(move)));
+        return victim * 8 - attacker + Move.promotion(move) * 8;
+    }
+
+    /**
+     * Assign an ordering score to each move
+     * @param hashMove Best move remembered for this position, tried first
+     * @param previousMove The opponent's last move, used for the counter-move table
+     */
+    public void scoreMoves(Position position, int[] moves, int[] scores, int count, int ply, int hashMove, int previousMove) {
+        int side = position.getSideToMove();
+        int counter = counterMoveFor(position, previousMove);
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isTactical(position, move)) {
+                scores[i] = GOOD_CAPTURE_SCORE + mvvLva(position, move);
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == counter) {
+                scores[i] = COUNTER_MOVE_SCORE;
+            } else {
+                scores[i] = history[historyIndex(side, move)];
+            }
+        }
+    }
+
+    /**
+     * Score captures for quiescence search, where only MVV-LVA matters
+     */
+    public void scoreCaptures(Position position, int[] moves, int[] scores, int count) {
+        for (int i = 0; i < count; i++) {
+            scores[i] = mvvLva(position, moves[i]);
+        }
+    }
+
+    /**
+     * Move the best remaining move to the given index (lazy selection sort, since most nodes cut off early)
+     */
+    public static int pickMove(int[] moves, int[] scores, int count, int index) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return moves[index];
+    }
+
+    /**
+     * Update killers, history and counter-move after a quiet move caused a beta cutoff
+     * @param quietsTried Quiet moves searched before the cutoff move, which get a history penalty
+     */
+    public void recordCutoff(Position position, int move, int ply, int depth, int previousMove,
+                             int[] quietsTried, int quietCount) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int side = position.getSideToMove();
+        int bonus = Math.min(depth * depth, 400);
+        updateHistory(historyIndex(side, move), bonus);
+        for (int i = 0; i < quietCount; i++) {
+            if (quietsTried[i] != move) {
+                updateHistory(historyIndex(side, quietsTried[i]), -bonus);
+            }
+        }
+
+        if (previousMove != Move.NONE) {
+            counterMoves[counterIndex(position, previousMove)] = move;
+        }
+    }
+
+    // History gravity keeps every entry within +/- HISTORY_LIMIT without periodic rescaling
+    private void updateHistory(int index, int bonus) {
+        history[index] += bonus - history[index] * Math.abs(bonus) / HISTORY_LIMIT;
+    }
+
+    private int counterMoveFor(Position position, int previousMove) {
+        return previousMove == Move.NONE ? Move.NONE : counterMoves[counterIndex(position, previousMove)];
+    }
+
+    // The previous move's piece now stands on its destination square
+    private static int counterIndex(Position position, int previousMove) {
+        int to = Move.to(previousMove);
+        return position.pieceAt(to) * 64 + to;
+    }
+
+    private static int historyIndex(int side, int move) {
+        return (side << 12) | (Move.from(move) << 6) | Move.to(move);
+    }
+
+    /**
+     * Prepare for a new search: killers are position specific, history is kept but aged
+     */
+    public void newSearch() {
+        for (int[] slots : killers) {
+            slots[0] = Move.NONE;
+            slots[1] = Move.NONE;
+        }
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 2;
+        }
+    }
+
+    /**
+     * Forget everything, e.g. when a new game starts
+     */
+    public void clear() {
+        for (int[] slots : killers) {
+            Arrays.fill(slots, Move.NONE);
+        }
+        Arrays.fill(history, 0);
+        Arrays.fill(counterMoves, Move.NONE);
+    }
+}
@@ -0,0 +1,684 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.board.Board;
+import itawi.chessgame.core.game.Game;
+import itawi.chessgame.core.piece.*;
+import itawi.chessgame.core.util.Utils;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static itawi.chessgame.core.engine.MoveGenerator.*;
+
+/**
+ * Compact mailbox position used by the engine.
+ * Squares are numbered 0-63 with a1 = 0 and h8 = 63, i.e. x + 8 * y in Utils coordinates.
+ * Pieces are encoded as type | color << 3 so a whole board fits in one int array.
+ */
+public class Position {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece types
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    // Castling right bits
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int MAX_HISTORY = 1024;
+    private static final String PIECE_CHARS = " PNBRQK  pnbrqk";
+
+    // Castling rights that survive a move touching each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[0] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_MASK[7] &= ~WHITE_KING_SIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEEN_SIDE;
+        CASTLING_MASK[63] &= ~BLACK_KING_SIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+    }
+
+    private final int[] squares = new int[64];
+    private final int[] kingSquare = {-1, -1};
+    @Getter
+    private int sideToMove;
+    @Getter
+    private int castlingRights;
+    @Getter
+    private int enPassantSquare = -1;
+    @Getter
+    private int halfMoveClock;
+    @Getter
+    private int fullMoveNumber = 1;
+    @Getter
+    private long key;
+    // Hash of the pawns alone, for caching pawn-structure evaluation
+    @Getter
+    private long pawnKey;
+
+    // Undo stack, indexed by ply since the position was set up
+    private final int[] moveHistory = new int[MAX_HISTORY];
+    private final int[] movedPieceHistory = new int[MAX_HISTORY];
+    private final int[] capturedHistory = new int[MAX_HISTORY];
+    private final int[] castlingHistory = new int[MAX_HISTORY];
+    private final int[] enPassantHistory = new int[MAX_HISTORY];
+    private final int[] halfMoveHistory = new int[MAX_HISTORY];
+    private final long[] keyHistory = new long[MAX_HISTORY];
+    private final long[] pawnKeyHistory = new long[MAX_HISTORY];
+    @Getter
+    private int historyPly;
+
+    private Position() {
+    }
+
+    public static int makePiece(int type, int color) {
+        return type | (color << 3);
+    }
+
+    public static int typeOf(int piece) {
+        return piece & 7;
+    }
+
+    public static int colorOf(int piece) {
+        return piece >> 3;
+    }
+
+    public static String squareName(int square) {
+        return Utils.getPosition(square & 7, square >> 3);
+    }
+
+    public static int squareOf(String position) {
+        int[] coords = Utils.getCoordinates(position);
+        return coords[0] + 8 * coords[1];
+    }
+
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public int kingSquare(int color) {
+        return kingSquare[color];
+    }
+
+    public boolean isInCheck() {
+        return isSquareAttacked(kingSquare[sideToMove], sideToMove ^ 1);
+    }
+
+    /**
+     * Create a copy that shares no state with this position (history is not copied)
+     */
+    public Position copy() {
+        return fromFen(toFen());
+    }
+
+    /**
+     * Build an engine position from the current state of a game
+     */
+    public static Position fromGame(Game game) {
+        return fromBoard(game.getBoard(), game.getCurrentTurn(), game.getHalfMoveCounter());
+    }
+
+    /**
+     * Build an engine position from the object board used by the game rules
+     * @param board The board to convert
+     * @param currentTurn "white" or "black"
+     * @param halfMoveCounter Half moves since the last capture or pawn move
+     */
+    public static Position fromBoard(Board board, String currentTurn, int halfMoveCounter) {
+        Position position = new Position();
+        for (Map.Entry<String, Piece> entry : board.getBoardState().entrySet()) {
+            Piece piece = entry.getValue();
+            int type = switch (piece.getType()) {
+                case PAWN -> PAWN;
+                case KNIGHT -> KNIGHT;
+                case BISHOP -> BISHOP;
+                case ROOK -> ROOK;
+                case QUEEN -> QUEEN;
+                case KING -> KING;
+            };
+            int color = piece.getColor().equals("white") ? WHITE : BLACK;
+            position.putPiece(squareOf(entry.getKey()), makePiece(type, color));
+        }
+
+        position.sideToMove = currentTurn.equals("white") ? WHITE : BLACK;
+        position.castlingRights = castlingRightsOf(board);
+        position.halfMoveClock = halfMoveCounter;
+        if (board.getEnPassantTarget() != null) {
+            position.enPassantSquare = squareOf(board.getEnPassantTarget());
+        }
+        position.finishSetup();
+        return position;
+    }
+
+    // Castling is available while the king and the matching rook are still unmoved on their home squares
+    private static int castlingRightsOf(Board board) {
+        int rights = 0;
+        if (isUnmovedKing(board.getPieceAt("e1"), "white")) {
+            rights |= isUnmovedRook(board.getPieceAt("h1"), "white") ? WHITE_KING_SIDE : 0;
+            rights |= isUnmovedRook(board.getPieceAt("a1"), "white") ? WHITE_QUEEN_SIDE : 0;
+        }
+        if (isUnmovedKing(board.getPieceAt("e8"), "black")) {
+            rights |= isUnmovedRook(board.getPieceAt("h8"), "black") ? BLACK_KING_SIDE : 0;
+            rights |= isUnmovedRook(board.getPieceAt("a8"), "black") ? BLACK_QUEEN_SIDE : 0;
+        }
+        return rights;
+    }
+
+    private static boolean isUnmovedKing(Piece piece, String color) {
+        return piece instanceof King king && king.getColor().equals(color) && !king.getHasMoved();
+    }
+
+    private static boolean isUnmovedRook(Piece piece, String color) {
+        return piece instanceof Rook rook && rook.getColor().equals(color) && !rook.getHasMoved();
+    }
+
+    /**
+     * Parse a position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException if the FEN is malformed or the position cannot arise in a game:
+     *                                  a pawn on the first or last rank, or the side not to move in check
+     */
+    public static Position fromFen(String fen) {
+        if (fen == null || fen.isBlank()) {
+            throw new IllegalArgumentException("FEN must not be empty");
+        }
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        Position position = new Position();
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        for (int i = 0; i < 8; i++) {
+            int y = 7 - i;
+            int x = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    x += c - '0';
+                    continue;
+                }
+                int index = PIECE_CHARS.indexOf(c);
+                if (index <= 0 || x > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                position.putPiece(x + 8 * y, index);
+                x++;
+            }
+            if (x != 8) {
+                throw new IllegalArgumentException("Invalid FEN: " + fen);
+            }
+        }
+
+        position.sideToMove = switch (fields[1]) {
+            case "w" -> WHITE;
+            case "b" -> BLACK;
+            default -> throw new IllegalArgumentException("Invalid side to move in FEN: " + fen);
+        };
+
+        if (fields.length > 2 && !fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                position.castlingRights |= switch (c) {
+                    case 'K' -> WHITE_KING_SIDE;
+                    case 'Q' -> WHITE_QUEEN_SIDE;
+                    case 'k' -> BLACK_KING_SIDE;
+                    case 'q' -> BLACK_QUEEN_SIDE;
+                    default -> throw new IllegalArgumentException("Invalid castling rights in FEN: " + fen);
+                };
+            }
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            if (!Utils.isValidPosition(fields[3])) {
+                throw new IllegalArgumentException("Invalid en passant square in FEN: " + fen);
+            }
+            position.enPassantSquare = squareOf(fields[3]);
+        }
+        try {
+            if (fields.length > 4) {
+                position.halfMoveClock = Integer.parseInt(fields[4]);
+            }
+            if (fields.length > 5) {
+                position.fullMoveNumber = Math.max(1, Integer.parseInt(fields[5]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid move counters in FEN: " + fen);
+        }
+
+        for (int file = 0; file < 8; file++) {
+            if (typeOf(position.squares[file]) == PAWN || typeOf(position.squares[56 + file]) == PAWN) {
+                throw new IllegalArgumentException("Pawns cannot stand on the first or last rank in FEN: " + fen);
+            }
+        }
+        position.finishSetup();
+        // The side that just moved cannot have left its king in check
+        int opponent = position.sideToMove ^ 1;
+        if (position.isSquareAttacked(position.kingSquare[opponent], position.sideToMove)) {
+            throw new IllegalArgumentException("The side not to move is in check in FEN: " + fen);
+        }
+        return position;
+    }
+
+    /**
+     * Replace the contents of this position with the given pieces, without castling rights, en passant square or history.
+     * Lets tablebase generation reuse one position for millions of setups.
+     * @param pieces Piece codes, placed on the square at the same index
+     * @throws IllegalArgumentException if a king is missing
+     */
+    public void setUp(int[] pieces, int[] squares, int sideToMove) {
+        Arrays.fill(this.squares, EMPTY);
+        kingSquare[WHITE] = -1;
+        kingSquare[BLACK] = -1;
+        for (int i = 0; i < pieces.length; i++) {
+            putPiece(squares[i], pieces[i]);
+        }
+        this.sideToMove = sideToMove;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        halfMoveClock = 0;
+        fullMoveNumber = 1;
+        historyPly = 0;
+        finishSetup();
+    }
+
+    // Validate kings, drop rights and en passant squares that cannot be used, and compute the hash key
+    private void finishSetup() {
+        if (kingSquare[WHITE] < 0 || kingSquare[BLACK] < 0) {
+            throw new IllegalArgumentException("Both kings must be on the board");
+        }
+        if (squares[4] != makePiece(KING, WHITE)) {
+            castlingRights &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        }
+        if (squares[60] != makePiece(KING, BLACK)) {
+            castlingRights &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        }
+        if (squares[7] != makePiece(ROOK, WHITE)) castlingRights &= ~WHITE_KING_SIDE;
+        if (squares[0] != makePiece(ROOK, WHITE)) castlingRights &= ~WHITE_QUEEN_SIDE;
+        if (squares[63] != makePiece(ROOK, BLACK)) castlingRights &= ~BLACK_KING_SIDE;
+        if (squares[56] != makePiece(ROOK, BLACK)) castlingRights &= ~BLACK_QUEEN_SIDE;
+        if (enPassantSquare >= 0 && !canCaptureEnPassant(enPassantSquare, sideToMove)) {
+            enPassantSquare = -1;
+        }
+        key = computeKey();
+        pawnKey = computePawnKey();
+    }
+
+    private long computeKey() {
+        long hash = 0;
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != EMPTY) {
+                hash ^= Zobrist.PIECE_SQUARE[squares[square]][square];
+            }
+        }
+        hash ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare >= 0) {
+            hash ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        if (sideToMove == BLACK) {
+            hash ^= Zobrist.SIDE;
+        }
+        return hash;
+    }
+
+    private long computePawnKey() {
+        long hash = 0;
+        for (int square = 0; square < 64; square++) {
+            if (typeOf(squares[square]) == PAWN) {
+                hash ^= Zobrist.PIECE_SQUARE[squares[square]][square];
+            }
+        }
+        return hash;
+    }
+
+    // Only remember an en passant square when a pawn of the given side could actually capture on it
+    private boolean canCaptureEnPassant(int target, int color) {
+        int pawn = makePiece(PAWN, color);
+        for (int square : PAWN_ATTACKS[color ^ 1][target]) {
+            if (squares[square] == pawn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putPiece(int square, int piece) {
+        squares[square] = piece;
+        if (typeOf(piece) == KING) {
+            kingSquare[colorOf(piece)] = square;
+        }
+    }
+
+    /**
+     * Play a pseudo-legal move
+     * @return false if the move left the mover's king in check, in which case it has already been taken back
+     */
+    public boolean makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        int piece = squares[from];
+        int us = sideToMove;
+        int them = us ^ 1;
+        int captured = squares[to];
+
+        // Save the irreversible state
+        moveHistory[historyPly] = move;
+        movedPieceHistory[historyPly] = piece;
+        capturedHistory[historyPly] = captured;
+        castlingHistory[historyPly] = castlingRights;
+        enPassantHistory[historyPly] = enPassantSquare;
+        halfMoveHistory[historyPly] = halfMoveClock;
+        keyHistory[historyPly] = key;
+        pawnKeyHistory[historyPly] = pawnKey;
+        historyPly++;
+
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+            enPassantSquare = -1;
+        }
+        halfMoveClock++;
+
+        if (captured != EMPTY) {
+            key ^= Zobrist.PIECE_SQUARE[captured][to];
+            if (typeOf(captured) == PAWN) {
+                pawnKey ^= Zobrist.PIECE_SQUARE[captured][to];
+            }
+            halfMoveClock = 0;
+        }
+
+        // Move the piece
+        squares[from] = EMPTY;
+        squares[to] = piece;
+        key ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+
+        switch (typeOf(piece)) {
+            case PAWN -> {
+                halfMoveClock = 0;
+                pawnKey ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+                if (flag == Move.EN_PASSANT) {
+                    int capturedSquare = to + (us == WHITE ? -8 : 8);
+                    key ^= Zobrist.PIECE_SQUARE[squares[capturedSquare]][capturedSquare];
+                    pawnKey ^= Zobrist.PIECE_SQUARE[squares[capturedSquare]][capturedSquare];
+                    squares[capturedSquare] = EMPTY;
+                } else if (flag == Move.DOUBLE_PUSH) {
+                    int skipped = (from + to) >> 1;
+                    if (canCaptureEnPassant(skipped, them)) {
+                        enPassantSquare = skipped;
+                        key ^= Zobrist.EN_PASSANT_FILE[skipped & 7];
+                    }
+                } else if (Move.isPromotion(move)) {
+                    int promoted = makePiece(Move.promotion(move), us);
+                    squares[to] = promoted;
+                    key ^= Zobrist.PIECE_SQUARE[piece][to] ^ Zobrist.PIECE_SQUARE[promoted][to];
+                    pawnKey ^= Zobrist.PIECE_SQUARE[piece][to];
+                }
+            }
+            case KING -> {
+                kingSquare[us] = to;
+                if (flag == Move.CASTLING) {
+                    int rookFrom = to > from ? to + 1 : to - 2;
+                    int rookTo = to > from ? to - 1 : to + 1;
+                    int rook = squares[rookFrom];
+                    squares[rookFrom] = EMPTY;
+                    squares[rookTo] = rook;
+                    key ^= Zobrist.PIECE_SQUARE[rook][rookFrom] ^ Zobrist.PIECE_SQUARE[rook][rookTo];
+                }
+            }
+            default -> {
+            }
+        }
+
+        key ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castlingRights];
+
+        if (us == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove = them;
+        key ^= Zobrist.SIDE;
+
+        if (isSquareAttacked(kingSquare[us], them)) {
+            unmakeMove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take back the last move played with makeMove
+     */
+    public void unmakeMove() {
+        historyPly--;
+        int move = moveHistory[historyPly];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+
+        sideToMove ^= 1;
+        int us = sideToMove;
+        if (us == BLACK) {
+            fullMoveNumber--;
+        }
+
+        int piece = Move.isPromotion(move) ? makePiece(PAWN, us) : squares[to];
+        squares[from] = piece;
+        squares[to] = capturedHistory[historyPly];
+
+        if (typeOf(piece) == KING) {
+            kingSquare[us] = from;
+            if (flag == Move.CASTLING) {
+                int rookFrom = to > from ? to + 1 : to - 2;
+                int rookTo = to > from ? to - 1 : to + 1;
+                squares[rookFrom] = squares[rookTo];
+                squares[rookTo] = EMPTY;
+            }
+        } else if (flag == Move.EN_PASSANT) {
+            squares[to + (us == WHITE ? -8 : 8)] = makePiece(PAWN, us ^ 1);
+        }
+
+        castlingRights = castlingHistory[historyPly];
+        enPassantSquare = enPassantHistory[historyPly];
+        halfMoveClock = halfMoveHistory[historyPly];
+        key = keyHistory[historyPly];
+        pawnKey = pawnKeyHistory[historyPly];
+    }
+
+    /**
+     * Pass the move, for null-move pruning. The null move is recorded as Move.NONE and counts as irreversible,
+     * so no repetition is found across it. Must not be played in check.
+     */
+    public void makeNullMove() {
+        moveHistory[historyPly] = Move.NONE;
+        movedPieceHistory[historyPly] = EMPTY;
+        capturedHistory[historyPly] = EMPTY;
+        castlingHistory[historyPly] = castlingRights;
+        enPassantHistory[historyPly] = enPassantSquare;
+        halfMoveHistory[historyPly] = halfMoveClock;
+        keyHistory[historyPly] = key;
+        pawnKeyHistory[historyPly] = pawnKey;
+        historyPly++;
+
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+            enPassantSquare = -1;
+        }
+        halfMoveClock = 0;
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    /**
+     * Take back a null move played with makeNullMove
+     */
+    public void unmakeNullMove() {
+        historyPly--;
+        sideToMove ^= 1;
+        enPassantSquare = enPassantHistory[historyPly];
+        halfMoveClock = halfMoveHistory[historyPly];
+        key = keyHistory[historyPly];
+    }
+
+    /**
+     * Whether the side has pieces other than pawns and its king; without them passing is often the best move
+     */
+    public boolean hasNonPawnMaterial(int color) {
+        for (int square = 0; square < 64; square++) {
+            int piece = squares[square];
+            if (piece != EMPTY && colorOf(piece) == color && typeOf(piece) != PAWN && typeOf(piece) != KING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The move that led to the current position, or Move.NONE at the root
+     */
+    public int lastMove() {
+        return historyPly > 0 ? moveHistory[historyPly - 1] : Move.NONE;
+    }
+
+    /**
+     * The move played from the position at the given ply (0 is the position as set up)
+     */
+    public int moveAt(int ply) {
+        return moveHistory[ply];
+    }
+
+    /**
+     * The piece that moved from the position at the given ply, before any promotion
+     */
+    public int movedPieceAt(int ply) {
+        return movedPieceHistory[ply];
+    }
+
+    /**
+     * The piece captured on the destination square by the move at the given ply (EMPTY for en passant)
+     */
+    public int capturedAt(int ply) {
+        return capturedHistory[ply];
+    }
+
+    /**
+     * The hash key of the position at the given ply, up to and including the current one
+     */
+    public long keyAt(int ply) {
+        return ply == historyPly ? key : keyHistory[ply];
+    }
+
+    /**
+     * Check whether the current position already occurred since the last irreversible move
+     */
+    public boolean isRepetition() {
+        int oldest = Math.max(0, historyPly - halfMoveClock);
+        for (int ply = historyPly - 2; ply >= oldest; ply -= 2) {
+            if (keyHistory[ply] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a square is attacked by any piece of the given color
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        // Pawns attack the square from where a pawn of the other color on it would attack
+        int pawn = makePiece(PAWN, byColor);
+        for (int from : PAWN_ATTACKS[byColor ^ 1][square]) {
+            if (squares[from] == pawn) {
+                return true;
+            }
+        }
+
+        int knight = makePiece(KNIGHT, byColor);
+        for (int from : KNIGHT_TARGETS[square]) {
+            if (squares[from] == knight) {
+                return true;
+            }
+        }
+
+        int king = makePiece(KING, byColor);
+        for (int from : KING_TARGETS[square]) {
+            if (squares[from] == king) {
+                return true;
+            }
+        }
+
+        int queen = makePiece(QUEEN, byColor);
+        int rook = makePiece(ROOK, byColor);
+        int bishop = makePiece(BISHOP, byColor);
+        for (int direction = 0; direction < 8; direction++) {
+            int slider = direction < 4 ? rook : bishop;
+            for (int from : RAYS[square][direction]) {
+                int piece = squares[from];
+                if (piece == EMPTY) {
+                    continue;
+                }
+                if (piece == slider || piece == queen) {
+                    return true;
+                }
+                break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Format the position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int y = 7; y >= 0; y--) {
+            int empty = 0;
+            for (int x = 0; x < 8; x++) {
+                int piece = squares[x + 8 * y];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(PIECE_CHARS.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (y > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KING_SIDE) != 0) fen.append('K');
+            if ((castlingRights & WHITE_QUEEN_SIDE) != 0) fen.append('Q');
+            if ((castlingRights & BLACK_KING_SIDE) != 0) fen.append('k');
+            if ((castlingRights & BLACK_QUEEN_SIDE) != 0) fen.append('q');
+        }
+        fen.append(' ').append(enPassantSquare >= 0 ? squareName(enPassantSquare) : "-");
+        fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return fen.toString();
+    }
+}
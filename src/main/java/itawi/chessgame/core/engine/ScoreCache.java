@@ -0,0 +1,71 @@
+package itawi.chessgame.core.engine;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Direct-mapped cache from a hash key to a score, used for the pawn hash and the evaluation cache.
+ * The size is a power of two so the slot is the low bits of the key; a new entry simply replaces the old one.
+ * Not synchronized: each cache belongs to one evaluator.
+ */
+public class ScoreCache {
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    @Getter
+    private long probes;
+    @Getter
+    private long hits;
+
+    /**
+     * @param entries Number of entries, rounded down to a power of two
+     */
+    public ScoreCache(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries));
+        this.keys = new long[capacity];
+        this.scores = new int[capacity];
+        this.mask = capacity - 1;
+        clear();
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return the cached score, or MISS
+     */
+    public int probe(long key) {
+        probes++;
+        int index = (int) key & mask;
+        if (keys[index] == key && scores[index] != MISS) {
+            hits++;
+            return scores[index];
+        }
+        return MISS;
+    }
+
+    public void store(long key, int score) {
+        int index = (int) key & mask;
+        keys[index] = key;
+        scores[index] = score;
+    }
+
+    /**
+     * Share of probes answered from the cache
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(scores, MISS);
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,503 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.engine.tablebase.Tablebase;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Iterative deepening alpha-beta search with quiescence.
+ * One instance owns its move buffers and ordering tables and reuses them between searches,
+ * so it must not be shared between threads.
+ */
+public class Search {
+    public static final int MAX_PLY = 64;
+    public static final int INFINITE = 32_000;
+    public static final int MATE_SCORE = 31_000;
+    public static final int MATE_BOUND = MATE_SCORE - 2 * MAX_PLY;
+
+    // How often the clock is checked, in nodes (must be a power of two minus one)
+    private static final int TIME_CHECK_MASK = 1023;
+    // Don't start an iteration that is unlikely to finish before the soft limit
+    private static final double NEXT_ITERATION_SHARE = 0.6;
+    // Each best-move change since the previous iteration extends the soft limit by this share
+    private static final double INSTABILITY_EXTENSION = 0.5;
+
+    // Selective search parameters, in plies and centipawns
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    // Moves searched at full depth before later quiet moves are reduced
+    private static final int LMR_FULL_DEPTH_MOVES = 3;
+    private static final int[] FUTILITY_MARGIN = {0, 200, 500};
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 40;
+
+    private final Evaluator evaluator;
+    @Getter
+    private final TranspositionTable transpositionTable;
+    @Getter
+    private final MoveOrdering ordering = new MoveOrdering();
+    @Getter
+    private final SearchStats stats = new SearchStats();
+    // Exact results for endgames with few pieces
+    @Setter
+    private Tablebase tablebase = Tablebase.empty();
+    // Where the counters of every search are added up
+    @Setter
+    private EngineMetrics metrics = EngineMetrics.none();
+    @Getter
+    @Setter
+    private SearchFeatures features = SearchFeatures.ALL;
+
+    // Per-ply buffers, allocated once
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] quietsTried = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    // Root moves skipped by the current iteration, so multi-PV can find the next best line
+    private final int[] excludedRootMoves = new int[MoveGenerator.MAX_MOVES];
+    private int excludedCount;
+
+    private Position position;
+    private int rootBestMove;
+    private long hardDeadlineNanos;
+    private boolean stopped;
+    // Set from other threads to cancel the running search cooperatively
+    private volatile AtomicBoolean stopSignal = new AtomicBoolean();
+
+    public Search() {
+        this(EvaluatorFactory.CLASSICAL.create(), new TranspositionTable());
+    }
+
+    public Search(Evaluator evaluator, TranspositionTable transpositionTable) {
+        this.evaluator = evaluator;
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Ask the running search to stop; it returns its last completed iteration
+     */
+    public void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * Forget everything learned from earlier searches, e.g. when a new game starts
+     */
+    public void clear() {
+        transpositionTable.clear();
+        ordering.clear();
+    }
+
+    /**
+     * Search the position to a fixed depth
+     * @param position The position to search; it is restored to its original state afterwards
+     * @param maxDepth Maximum depth in plies
+     */
+    public SearchResult search(Position position, int maxDepth) {
+        return search(position, SearchLimits.depth(maxDepth));
+    }
+
+    /**
+     * Search the position within the given depth and time limits.
+     * When the hard time limit is hit the unfinished iteration is discarded and the last completed one is returned.
+     * @param position The position to search; it is restored to its original state afterwards
+     */
+    public SearchResult search(Position position, SearchLimits limits) {
+        return search(position, limits, new AtomicBoolean());
+    }
+
+    /**
+     * Search the position within the given limits until they expire or the stop signal is set
+     * @param stopSignal Flag polled during the search; setting it from any thread stops the search
+     */
+    public SearchResult search(Position position, SearchLimits limits, AtomicBoolean stopSignal) {
+        return search(position, limits, stopSignal, result -> {
+        });
+    }
+
+    /**
+     * Search the position like search(position, limits, stopSignal), reporting every completed iteration
+     * @param listener Called with the result of each completed depth, on the searching thread
+     */
+    public SearchResult search(Position position, SearchLimits limits, AtomicBoolean stopSignal,
+                               Consumer<SearchResult> listener) {
+        long start = startSearch(position, limits, stopSignal);
+        long softLimitNanos = limits.isTimed() ? limits.softTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        long hardLimitNanos = hardDeadlineNanos - start;
+        int legalRootMoves = MoveGenerator.generateLegalMoves(position, moves[0]);
+
+        SearchResult result = null;
+        for (int depth = 1; depth <= Math.min(limits.maxDepth(), MAX_PLY); depth++) {
+            int score = features.aspirationWindows() && depth >= ASPIRATION_MIN_DEPTH && result != null
+                    && Math.abs(result.score()) < MATE_BOUND
+                    ? aspirationSearch(depth, result.score())
+                    : negamax(depth, 0, -INFINITE, INFINITE);
+            if (stopped) {
+                break; // The unfinished iteration cannot be trusted
+            }
+
+            int previousBestMove = rootBestMove;
+            rootBestMove = pvLength[0] > 0 ? pvTable[0][0] : Move.NONE;
+            long elapsed = System.nanoTime() - start;
+            completeIteration(depth, elapsed);
+            result = new SearchResult(rootBestMove, score, depth, Arrays.copyOf(pvTable[0], pvLength[0]),
+                    stats.getNodes(), stats.getFirstMoveCutoffRate(), elapsed / 1_000_000);
+            listener.accept(result);
+
+            // Nothing to gain from deeper iterations once a mate or a position without moves is found
+            if (rootBestMove == Move.NONE || result.isMate()) {
+                break;
+            }
+            if (limits.isTimed()) {
+                // A forced move is played at once
+                if (legalRootMoves == 1) {
+                    break;
+                }
+                // Give the search more time while it keeps changing its mind
+                if (depth > 1 && rootBestMove != previousBestMove) {
+                    softLimitNanos = Math.min(hardLimitNanos,
+                            softLimitNanos + (long) (limits.softTimeMillis() * 1_000_000 * INSTABILITY_EXTENSION));
+                }
+                if (elapsed >= softLimitNanos * NEXT_ITERATION_SHARE) {
+                    break;
+                }
+            }
+        }
+
+        metrics.recordSearch(stats, System.nanoTime() - start);
+        return result != null ? result : fallbackResult(start);
+    }
+
+    /**
+     * Search the best lines of the position (multi-PV). Each depth searches the root once per line,
+     * excluding the first moves of the better lines already found at that depth.
+     * @param lines Number of principal variations wanted
+     * @param listener Called with the lines of every completed depth, best first
+     * @return the lines of the last completed depth, best first; empty if the side to move has no moves
+     */
+    public List<SearchResult> searchLines(Position position, SearchLimits limits, int lines,
+                                          AtomicBoolean stopSignal, Consumer<List<SearchResult>> listener) {
+        long start = startSearch(position, limits, stopSignal);
+        int wanted = Math.min(lines, MoveGenerator.generateLegalMoves(position, moves[0]));
+
+        List<SearchResult> completed = List.of();
+        for (int depth = 1; depth <= Math.min(limits.maxDepth(), MAX_PLY) && wanted > 0; depth++) {
+            List<SearchResult> found = new ArrayList<>(wanted);
+            excludedCount = 0;
+            while (found.size() < wanted) {
+                int score = negamax(depth, 0, -INFINITE, INFINITE);
+                if (stopped) {
+                    break;
+                }
+                int move = pvTable[0][0];
+                found.add(new SearchResult(move, score, depth, Arrays.copyOf(pvTable[0], pvLength[0]),
+                        stats.getNodes(), stats.getFirstMoveCutoffRate(), (System.nanoTime() - start) / 1_000_000));
+                excludedRootMoves[excludedCount++] = move;
+            }
+            excludedCount = 0;
+            if (stopped) {
+                break; // The unfinished depth cannot be trusted
+            }
+
+            rootBestMove = found.get(0).bestMove();
+            completed = List.copyOf(found);
+            completeIteration(depth, System.nanoTime() - start);
+            listener.accept(completed);
+            // Analysis has no move to play, so it uses all of its time; the hard limit discards the last depth
+            if (limits.isTimed() && System.nanoTime() - start >= limits.softTimeMillis() * 1_000_000) {
+                break;
+            }
+        }
+        metrics.recordSearch(stats, System.nanoTime() - start);
+        return completed;
+    }
+
+    // Reset the per-search state and arm the deadline; returns the start time
+    private long startSearch(Position position, SearchLimits limits, AtomicBoolean stopSignal) {
+        this.position = position;
+        this.rootBestMove = Move.NONE;
+        this.excludedCount = 0;
+        this.stopped = false;
+        this.stopSignal = stopSignal;
+        ordering.newSearch();
+        stats.reset();
+
+        long start = System.nanoTime();
+        hardDeadlineNanos = limits.isTimed() ? start + limits.hardTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        return start;
+    }
+
+    // Search the root in a window around the previous iteration's score, widening it on either side until the score fits
+    private int aspirationSearch(int depth, int previousScore) {
+        int window = ASPIRATION_WINDOW;
+        int alpha = previousScore - window;
+        int beta = previousScore + window;
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta);
+            if (stopped || (score > alpha && score < beta)) {
+                return score;
+            }
+            window *= 2;
+            if (score <= alpha) {
+                alpha = Math.max(-INFINITE, score - window);
+            } else {
+                beta = Math.min(INFINITE, score + window);
+            }
+        }
+    }
+
+    private void completeIteration(int depth, long elapsedNanos) {
+        stats.completeIteration();
+        metrics.recordIteration(depth, elapsedNanos);
+    }
+
+    private boolean isExcludedRootMove(int move) {
+        for (int i = 0; i < excludedCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The hard limit expired during the first iteration: fall back to any legal move
+    private SearchResult fallbackResult(long start) {
+        int count = MoveGenerator.generateLegalMoves(position, moves[0]);
+        int move = count > 0 ? moves[0][0] : Move.NONE;
+        int[] pv = move == Move.NONE ? new int[0] : new int[]{move};
+        return new SearchResult(move, 0, 0, pv, stats.getNodes(), stats.getFirstMoveCutoffRate(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Poll the clock and stop signal every few nodes; once either fires, every node unwinds immediately
+    private void checkTime() {
+        if ((stats.getNodes() & TIME_CHECK_MASK) != 0) {
+            return;
+        }
+        if (stopSignal.get() || System.nanoTime() >= hardDeadlineNanos) {
+            stopped = true;
+        }
+        // Searches are CPU bound; on a virtual thread, let other virtual threads use the carrier now and then
+        if (Thread.currentThread().isVirtual()) {
+            Thread.yield();
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+
+        if (ply > 0 && (position.getHalfMoveClock() >= 100 || position.isRepetition())) {
+            return 0; // Draw by repetition or fifty-move rule
+        }
+        if (ply > 0) {
+            int tablebaseScore = tablebase.score(position, ply);
+            if (tablebaseScore != Tablebase.NO_SCORE) {
+                stats.countNode();
+                return tablebaseScore;
+            }
+        }
+
+        boolean inCheck = position.isInCheck();
+        if (inCheck && ply < MAX_PLY) {
+            depth++; // Check extension
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        stats.countNode();
+        checkTime();
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(position);
+        }
+
+        // A deep enough stored result for this position can answer the node without searching it
+        long entry = transpositionTable.probe(position.getKey());
+        stats.countProbe(entry != TranspositionTable.NO_ENTRY);
+        int hashMove = ply == 0 && rootBestMove != Move.NONE ? rootBestMove : TranspositionTable.move(entry);
+        if (entry != TranspositionTable.NO_ENTRY && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int storedScore = TranspositionTable.score(entry, ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && storedScore >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && storedScore <= alpha)) {
+                return storedScore;
+            }
+        }
+
+        // Pruning trusts the static evaluation, which is meaningless in check and not trusted on the principal variation
+        boolean pvNode = beta - alpha > 1;
+        boolean canPrune = ply > 0 && !inCheck && !pvNode && Math.abs(beta) < MATE_BOUND;
+        int staticEval = canPrune && (features.nullMovePruning() || features.futilityPruning())
+                ? evaluator.evaluate(position) : 0;
+
+        // Null move: if passing still fails high, some real move almost certainly would too.
+        // Not twice in a row, and not without pieces, where passing might be the best move (zugzwang)
+        if (canPrune && features.nullMovePruning() && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                && position.lastMove() != Move.NONE && position.hasNonPawnMaterial(position.getSideToMove())) {
+            int reduction = depth > 6 ? 3 : 2;
+            position.makeNullMove();
+            int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1);
+            position.unmakeNullMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta; // A mate found after passing is not a real mate
+            }
+        }
+
+        // Futility: near the leaves, a quiet move cannot bring a position this far below alpha back up
+        int futilityValue = canPrune && features.futilityPruning() && depth < FUTILITY_MARGIN.length
+                ? staticEval + FUTILITY_MARGIN[depth] : INFINITE;
+        boolean futile = futilityValue <= alpha;
+
+        int previousMove = position.lastMove();
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int count = MoveGenerator.generateMoves(position, plyMoves);
+        ordering.scoreMoves(position, plyMoves, plyScores, count, ply, hashMove, previousMove);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITE;
+        int bestMove = Move.NONE;
+        int legalMoves = 0;
+        int quietCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickMove(plyMoves, plyScores, count, i);
+            if (ply == 0 && excludedCount > 0 && isExcludedRootMove(move)) {
+                continue;
+            }
+            boolean quiet = !Move.isTactical(position, move);
+            if (!position.makeMove(move)) {
+                continue;
+            }
+            legalMoves++;
+            boolean givesCheck = position.isInCheck();
+
+            if (futile && quiet && !givesCheck && legalMoves > 1) {
+                position.unmakeMove();
+                bestScore = Math.max(bestScore, futilityValue);
+                continue;
+            }
+
+            int score;
+            if (features.lateMoveReductions() && ply > 0 && depth >= LMR_MIN_DEPTH
+                    && legalMoves > LMR_FULL_DEPTH_MOVES && quiet && !inCheck && !givesCheck) {
+                // Late quiet moves rarely matter: search them shallower, and again at full depth only if they beat alpha
+                int reduction = legalMoves > 2 * LMR_FULL_DEPTH_MOVES && depth >= 6 ? 2 : 1;
+                score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && !stopped) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            } else {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            }
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(ply, move);
+
+                    if (score >= beta) {
+                        stats.countCutoff(legalMoves == 1);
+                        if (quiet) {
+                            ordering.recordCutoff(position, move, ply, depth, previousMove, quietsTried[ply], quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+
+            if (quiet) {
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+
+        if (legalMoves == 0) {
+            bestScore = inCheck ? -MATE_SCORE + ply : 0; // Checkmate or stalemate
+        }
+
+        // A root searched without some of its moves has no true score to remember
+        if (ply > 0 || excludedCount == 0) {
+            int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                    : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+            transpositionTable.store(position.getKey(), bestMove, bestScore, depth, bound, ply);
+        }
+        return bestScore;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        stats.countQuiescenceNode();
+        checkTime();
+        if (stopped) {
+            return 0;
+        }
+
+        int standPat = evaluator.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] plyMoves = moves[ply];
+        int[] plyScores = scores[ply];
+        int count = MoveGenerator.generateCaptures(position, plyMoves);
+        ordering.scoreCaptures(position, plyMoves, plyScores, count);
+
+        int bestScore = standPat;
+        for (int i = 0; i < count; i++) {
+            int move = MoveOrdering.pickMove(plyMoves, plyScores, count, i);
+            if (!position.makeMove(move)) {
+                continue;
+            }
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int childLength = Math.max(pvLength[ply + 1], ply + 1);
+        for (int next = ply + 1; next < childLength; next++) {
+            pvTable[ply][next] = pvTable[ply + 1][next];
+        }
+        pvLength[ply] = childLength;
+    }
+}
@@ -0,0 +1,43 @@
+package itawi.chessgame.core.engine;
+
+import java.util.List;
+
+/**
+ * Selective search features, each of which can be switched off to measure what it costs and saves
+ * @param nullMovePruning Skip nodes where passing the move still fails high
+ * @param lateMoveReductions Search late quiet moves less deeply unless they beat alpha
+ * @param futilityPruning Skip quiet moves near the leaves that cannot raise a static evaluation far below alpha
+ * @param aspirationWindows Search each iteration in a narrow window around the previous score
+ */
+public record SearchFeatures(boolean nullMovePruning, boolean lateMoveReductions, boolean futilityPruning,
+                             boolean aspirationWindows) {
+    public static final SearchFeatures ALL = new SearchFeatures(true, true, true, true);
+    public static final SearchFeatures NONE = new SearchFeatures(false, false, false, false);
+
+    // Short names, as used by UCI options and the feature benchmark
+    public static final List<String> NAMES = List.of("NullMove", "LMR", "Futility", "Aspiration");
+
+    public boolean isEnabled(String name) {
+        return switch (name.toLowerCase()) {
+            case "nullmove" -> nullMovePruning;
+            case "lmr" -> lateMoveReductions;
+            case "futility" -> futilityPruning;
+            case "aspiration" -> aspirationWindows;
+            default -> throw new IllegalArgumentException("Unknown search feature: " + name);
+        };
+    }
+
+    /**
+     * The same features with one switched on or off
+     * @throws IllegalArgumentException if the name is not one of NAMES
+     */
+    public SearchFeatures with(String name, boolean enabled) {
+        return switch (name.toLowerCase()) {
+            case "nullmove" -> new SearchFeatures(enabled, lateMoveReductions, futilityPruning, aspirationWindows);
+            case "lmr" -> new SearchFeatures(nullMovePruning, enabled, futilityPruning, aspirationWindows);
+            case "futility" -> new SearchFeatures(nullMovePruning, lateMoveReductions, enabled, aspirationWindows);
+            case "aspiration" -> new SearchFeatures(nullMovePruning, lateMoveReductions, futilityPruning, enabled);
+            default -> throw new IllegalArgumentException("Unknown search feature: " + name);
+        };
+    }
+}
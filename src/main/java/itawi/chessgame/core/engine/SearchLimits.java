@@ -0,0 +1,23 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Limits for one search
+ * @param maxDepth Maximum iteration depth in plies
+ * @param softTimeMillis No new iteration is started after this much time; may be extended while the best move is unstable
+ * @param hardTimeMillis The search is aborted once this much time has passed
+ */
+public record SearchLimits(int maxDepth, long softTimeMillis, long hardTimeMillis) {
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, NO_LIMIT, NO_LIMIT);
+    }
+
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits(Search.MAX_PLY, millis, millis);
+    }
+
+    public boolean isTimed() {
+        return hardTimeMillis != NO_LIMIT;
+    }
+}
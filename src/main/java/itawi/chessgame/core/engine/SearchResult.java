@@ -0,0 +1,33 @@
+package itawi.chessgame.core.engine;
+
+/**
+ * Outcome of a completed search iteration
+ * @param bestMove Best move found, or Move.NONE if the side to move has no legal moves
+ * @param score Score in centipawns from the side to move's point of view
+ * @param depth Deepest fully searched depth
+ * @param principalVariation Expected line of play starting with the best move
+ * @param nodes Nodes searched, including quiescence nodes
+ * @param firstMoveCutoffRate Share of beta cutoffs produced by the first move tried
+ * @param elapsedMillis Wall-clock time spent searching
+ */
+public record SearchResult(int bestMove, int score, int depth, int[] principalVariation,
+                           long nodes, double firstMoveCutoffRate, long elapsedMillis) {
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    /**
+     * Moves until mate, negative when the side to move gets mated, or 0 if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        return score > 0 ? (Search.MATE_SCORE - score + 1) / 2 : -(Search.MATE_SCORE + score) / 2;
+    }
+
+    public String bestMoveUci() {
+        return Move.toUci(bestMove);
+    }
+}
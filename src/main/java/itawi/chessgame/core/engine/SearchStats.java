@@ -0,0 +1,83 @@
+package itawi.chessgame.core.engine;
+
+import lombok.Getter;
+
+/**
+ * Counters collected during one search, used to track move ordering quality between releases
+ */
+@Getter
+public class SearchStats {
+    private long nodes;
+    private long quiescenceNodes;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private long transpositionProbes;
+    private long transpositionHits;
+    // Nodes searched by the last two completed iterations alone, for the branching factor
+    private long lastIterationNodes;
+    private long previousIterationNodes;
+    private long nodesAtLastIteration;
+
+    void reset() {
+        nodes = 0;
+        quiescenceNodes = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        transpositionProbes = 0;
+        transpositionHits = 0;
+        lastIterationNodes = 0;
+        previousIterationNodes = 0;
+        nodesAtLastIteration = 0;
+    }
+
+    void countNode() {
+        nodes++;
+    }
+
+    void countQuiescenceNode() {
+        nodes++;
+        quiescenceNodes++;
+    }
+
+    void countCutoff(boolean firstMove) {
+        betaCutoffs++;
+        if (firstMove) {
+            firstMoveCutoffs++;
+        }
+    }
+
+    void countProbe(boolean hit) {
+        transpositionProbes++;
+        if (hit) {
+            transpositionHits++;
+        }
+    }
+
+    void completeIteration() {
+        previousIterationNodes = lastIterationNodes;
+        lastIterationNodes = nodes - nodesAtLastIteration;
+        nodesAtLastIteration = nodes;
+    }
+
+    /**
+     * Share of transposition table probes that found an entry for the position
+     */
+    public double getTranspositionHitRate() {
+        return transpositionProbes == 0 ? 0.0 : (double) transpositionHits / transpositionProbes;
+    }
+
+    /**
+     * Nodes of the last completed iteration over those of the one before: how much each extra ply costs.
+     * 0.0 until two iterations have completed.
+     */
+    public double getEffectiveBranchingFactor() {
+        return previousIterationNodes == 0 ? 0.0 : (double) lastIterationNodes / previousIterationNodes;
+    }
+
+    /**
+     * Share of beta cutoffs produced by the first move searched; close to 1.0 means near-perfect ordering
+     */
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+}
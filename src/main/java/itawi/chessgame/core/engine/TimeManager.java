@@ -0,0 +1,58 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.timer.ChessTimer;
+
+/**
+ * Derives search limits from the time left on a side's clock
+ */
+public class TimeManager {
+    // Time kept in reserve for the HTTP round trip and move bookkeeping
+    private static final long SAFETY_MARGIN_MILLIS = 50;
+    private static final long MIN_THINK_MILLIS = 5;
+    private static final int MIN_MOVES_TO_GO = 15;
+    // Never let a single move use more than this fraction of the remaining time
+    private static final int MAX_SHARE_DIVISOR = 4;
+    // The hard limit leaves room to extend the soft limit while the best move keeps changing
+    private static final int HARD_TO_SOFT_RATIO = 5;
+
+    /**
+     * Limits for the side to move on a game clock
+     */
+    public SearchLimits limitsFor(ChessTimer timer, String color, Position position) {
+        // A Bronstein delay gives back up to its length after each move, so it is budgeted like an increment;
+        // both are only credited after the move, so neither raises the limits above the time left
+        return limitsFor(timer.getRemainingTimeMillis(color), timer.getIncrementMillis() + timer.getDelayMillis(), position);
+    }
+
+    /**
+     * Split the remaining time over the moves expected until the end of the game
+     * @param remainingMillis Time left on the clock
+     * @param incrementMillis Time added after each move
+     * @param position The position to search, used to estimate how many moves are left
+     */
+    public SearchLimits limitsFor(long remainingMillis, long incrementMillis, Position position) {
+        long usable = Math.max(0, remainingMillis - SAFETY_MARGIN_MILLIS);
+
+        // Fewer pieces on the board means fewer moves left to budget for
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, countPieces(position) + 8);
+
+        long hard = usable / MAX_SHARE_DIVISOR + incrementMillis / 2;
+        long soft = usable / movesToGo + incrementMillis * 3 / 4;
+        // The increment arrives only after the move, so neither limit may pass the time actually left;
+        // the minimum think time applies only when the clock has it
+        soft = Math.clamp(Math.min(soft, hard / 2), Math.min(MIN_THINK_MILLIS, usable), usable);
+        hard = Math.clamp(Math.min(hard, soft * HARD_TO_SOFT_RATIO), soft, usable);
+
+        return new SearchLimits(Search.MAX_PLY, soft, hard);
+    }
+
+    private static int countPieces(Position position) {
+        int pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            if (position.pieceAt(square) != Position.EMPTY) {
+                pieces++;
+            }
+        }
+        return pieces;
+    }
+}
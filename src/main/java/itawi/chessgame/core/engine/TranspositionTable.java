@@ -0,0 +1,115 @@
+package itawi.chessgame.core.engine;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of previously searched positions, indexed by Zobrist key.
+ * Entries are packed into two parallel long arrays so the table carries no per-entry objects.
+ * Not synchronized: one table belongs to one engine, and searches on it never run concurrently.
+ */
+public class TranspositionTable {
+    // Bound types
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    public static final long NO_ENTRY = 0;
+    public static final int DEFAULT_SIZE_MB = 16;
+    private static final int ENTRY_BYTES = 16;
+    private static final long VALID = 1L << 42;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param sizeMb Table size in megabytes, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int sizeMb) {
+        long requested = Math.max(1, sizeMb) * 1024L * 1024L / ENTRY_BYTES;
+        int capacity = Integer.highestOneBit((int) Math.min(requested, 1 << 30));
+        this.keys = new long[capacity];
+        this.entries = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Look up a position
+     * @return the packed entry, or NO_ENTRY if the position is not stored
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        return keys[index] == key ? entries[index] : NO_ENTRY;
+    }
+
+    /**
+     * Store a search result. Deeper results for the same position are kept over shallower ones.
+     * @param ply Distance from the root, used to store mate scores relative to this position
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int index = (int) key & mask;
+        if (keys[index] == key && entries[index] != NO_ENTRY && depth < depth(entries[index]) && bound != EXACT) {
+            return;
+        }
+        // Keep the old move when the new result did not find one
+        if (move == Move.NONE && keys[index] == key) {
+            move = move(entries[index]);
+        }
+        keys[index] = key;
+        entries[index] = VALID
+                | move
+                | ((long) (toStoredScore(score, ply) + 32768) << 17)
+                | ((long) Math.max(0, Math.min(depth, 127)) << 33)
+                | ((long) bound << 40);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0x1FFFF);
+    }
+
+    /**
+     * The stored score, converted back to be relative to the root for mate scores
+     */
+    public static int score(long entry, int ply) {
+        int score = (int) ((entry >>> 17) & 0xFFFF) - 32768;
+        if (score >= Search.MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 33) & 0x7F);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 40) & 0x3);
+    }
+
+    // Mate scores are stored as distance from this position instead of from the root
+    private static int toStoredScore(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(entries, NO_ENTRY);
+    }
+}
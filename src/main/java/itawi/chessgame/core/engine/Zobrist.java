@@ -0,0 +1,33 @@
+package itawi.chessgame.core.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for incremental position hashing.
+ * A fixed seed keeps keys identical between runs so node counts stay deterministic.
+ */
+final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[16][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x1F2E3D4C5B6A7988L);
+        for (int piece = 0; piece < 16; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,341 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import lombok.Setter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Builds an opening book from PGN files of any size.
+ * Files are split into chunks that worker threads parse and replay in parallel, counting wins, draws and losses
+ * per position and move in off-heap maps. Full maps are spilled to disk as sorted runs, which are merged into
+ * the book at the end, so memory use is bounded by the configured map size whatever the corpus.
+ * A move's weight is 2 * wins + draws for the side that played it, as in Polyglot books.
+ * <p>
+ * Usage: {@code BookBuilder <book> <pgn...> [--threads=N] [--max-ply=N] [--min-games=N] [--memory-mb=N]}
+ */
+public class BookBuilder {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    // Outcomes for the side that played a move
+    private static final int WIN = 0;
+    private static final int DRAW = 1;
+    private static final int LOSS = 2;
+
+    private final int threads;
+    private final long memoryBytes;
+    // Only the first plies of each game go into the book
+    @Setter
+    private int maxPly = 24;
+    // Moves played in fewer games are left out
+    @Setter
+    private int minGames = 2;
+    @Setter
+    private long chunkBytes = 64L << 20;
+
+    /**
+     * Summary of a build
+     * @param games Games replayed into the book
+     * @param skippedGames Games without a result or with a move that could not be read
+     * @param runs Sorted runs spilled to disk
+     * @param entries Book entries written
+     */
+    public record Summary(long games, long skippedGames, int runs, long entries) {
+    }
+
+    private record Chunk(Path file, long start, long end) {
+    }
+
+    /**
+     * @param threads Worker threads parsing PGN
+     * @param memoryBytes Off-heap memory for move counts, shared between the threads
+     */
+    public BookBuilder(int threads, long memoryBytes) {
+        this.threads = Math.max(1, threads);
+        this.memoryBytes = memoryBytes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BookBuilder <book> <pgn...> [--threads=N] [--max-ply=N] [--min-games=N] [--memory-mb=N]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        long memory = 512L << 20;
+        int maxPly = 24;
+        int minGames = 2;
+        List<Path> pgnFiles = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--memory-mb=")) {
+                memory = Long.parseLong(arg.substring("--memory-mb=".length())) << 20;
+            } else if (arg.startsWith("--max-ply=")) {
+                maxPly = Integer.parseInt(arg.substring("--max-ply=".length()));
+            } else if (arg.startsWith("--min-games=")) {
+                minGames = Integer.parseInt(arg.substring("--min-games=".length()));
+            } else {
+                pgnFiles.add(Path.of(arg));
+            }
+        }
+
+        BookBuilder builder = new BookBuilder(threads, memory);
+        builder.setMaxPly(maxPly);
+        builder.setMinGames(minGames);
+        long start = System.nanoTime();
+        Summary summary = builder.build(pgnFiles, Path.of(args[0]));
+        System.out.printf("Built %s: %d games (%d skipped), %d runs, %d entries, %d ms%n", args[0], summary.games(),
+                summary.skippedGames(), summary.runs(), summary.entries(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replay every game of the PGN files and write the book
+     */
+    public Summary build(List<Path> pgnFiles, Path book) throws IOException {
+        Path runDirectory = Files.createTempDirectory(book.toAbsolutePath().getParent(), "book-runs");
+        try {
+            LongAdder games = new LongAdder();
+            LongAdder skipped = new LongAdder();
+            List<Path> runs = countMoves(chunks(pgnFiles), runDirectory, games, skipped);
+            long entries = merge(runs, book);
+            return new Summary(games.sum(), skipped.sum(), runs.size(), entries);
+        } finally {
+            try (Stream<Path> files = Files.list(runDirectory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(runDirectory);
+        }
+    }
+
+    private List<Chunk> chunks(List<Path> pgnFiles) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Path file : pgnFiles) {
+            long size = Files.size(file);
+            for (long start = 0; start < size; start += chunkBytes) {
+                chunks.add(new Chunk(file, start, Math.min(size, start + chunkBytes)));
+            }
+        }
+        return chunks;
+    }
+
+    // Each thread borrows a map for a chunk and gives it back, so there are never more maps than threads
+    private List<Path> countMoves(List<Chunk> chunks, Path runDirectory, LongAdder games, LongAdder skipped)
+            throws IOException {
+        BlockingQueue<MoveCountMap> maps = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            maps.add(new MoveCountMap(memoryBytes / threads));
+        }
+        AtomicInteger runCount = new AtomicInteger();
+        List<Path> runs = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                tasks.add(() -> {
+                    MoveCountMap map = maps.take();
+                    try (PgnReader reader = new PgnReader(chunk.file(), chunk.start(), chunk.end())) {
+                        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                            if (replay(game, map, runDirectory, runCount, runs)) {
+                                games.increment();
+                            } else {
+                                skipped.increment();
+                            }
+                        }
+                    } finally {
+                        maps.put(map);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Book build interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        for (MoveCountMap map : maps) {
+            if (map.size() > 0) {
+                spill(map, runDirectory, runCount, runs);
+            }
+        }
+        return runs;
+    }
+
+    // Count the first maxPly moves of a game; false if the game is skipped
+    private boolean replay(PgnGame game, MoveCountMap map, Path runDirectory, AtomicInteger runCount, List<Path> runs)
+            throws IOException {
+        int whiteOutcome = switch (game.result()) {
+            case "1-0" -> WIN;
+            case "0-1" -> LOSS;
+            case "1/2-1/2" -> DRAW;
+            default -> -1;
+        };
+        if (whiteOutcome < 0) {
+            return false;
+        }
+        Position position;
+        try {
+            position = Position.fromFen(game.tags().getOrDefault("FEN", START_FEN));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        int plies = Math.min(maxPly, game.moves().size());
+        for (int ply = 0; ply < plies; ply++) {
+            int move = Move.fromSan(position, game.moves().get(ply));
+            if (move == Move.NONE) {
+                return false; // Moves up to here are still counted
+            }
+            int outcome = position.getSideToMove() == Position.WHITE ? whiteOutcome : LOSS - whiteOutcome;
+            map.add(PolyglotKey.polyglotKey(position), OpeningBook.encodeMove(move), outcome);
+            if (map.isFull()) {
+                spill(map, runDirectory, runCount, runs);
+            }
+            position.makeMove(move);
+        }
+        return true;
+    }
+
+    private static void spill(MoveCountMap map, Path runDirectory, AtomicInteger runCount, List<Path> runs)
+            throws IOException {
+        Path run = runDirectory.resolve("run-" + runCount.getAndIncrement());
+        map.writeSortedRun(run);
+        synchronized (runs) {
+            runs.add(run);
+        }
+    }
+
+    // Reads one sorted run entry by entry
+    private static final class RunReader implements AutoCloseable {
+        private final DataInputStream in;
+        long key;
+        int move;
+        final int[] counts = new int[3];
+
+        RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                key = in.readLong();
+                move = in.readInt();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = in.readInt();
+                }
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // K-way merge of the runs, summing the counts of equal entries and writing each position's moves together
+    private long merge(List<Path> runs, Path book) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(
+                (a, b) -> MoveCountMap.compare(a.key, a.move, b.key, b.move));
+        List<RunReader> readers = new ArrayList<>();
+        Path temporary = book.resolveSibling(book.getFileName() + ".tmp");
+        long entries = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            }
+
+            List<long[]> position = new ArrayList<>(); // {move, weight} of the current position's moves
+            long positionKey = 0;
+            long[] counts = new long[3];
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                long key = reader.key;
+                int move = reader.move;
+                counts[0] = counts[1] = counts[2] = 0;
+                // Sum the same entry across all runs
+                do {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += reader.counts[i];
+                    }
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                    reader = queue.peek() != null && queue.peek().key == key && queue.peek().move == move ? queue.poll() : null;
+                } while (reader != null);
+
+                if (key != positionKey) {
+                    entries += writePosition(out, positionKey, position);
+                    positionKey = key;
+                }
+                if (counts[WIN] + counts[DRAW] + counts[LOSS] >= minGames) {
+                    position.add(new long[]{move, 2 * counts[WIN] + counts[DRAW]});
+                }
+            }
+            entries += writePosition(out, positionKey, position);
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        Files.move(temporary, book, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
+    // Heaviest move first; weights are scaled down to 16 bits within the position when needed
+    private static int writePosition(DataOutputStream out, long key, List<long[]> moves) throws IOException {
+        moves.removeIf(entry -> entry[1] == 0);
+        moves.sort((a, b) -> Long.compare(b[1], a[1]));
+        long heaviest = moves.isEmpty() ? 0 : moves.get(0)[1];
+        for (long[] entry : moves) {
+            long weight = heaviest > MAX_WEIGHT ? Math.max(1, entry[1] * MAX_WEIGHT / heaviest) : entry[1];
+            out.writeLong(key);
+            out.writeShort((int) entry[0]);
+            out.writeShort((int) weight);
+            out.writeInt(0);
+        }
+        int written = moves.size();
+        moves.clear();
+        return written;
+    }
+}
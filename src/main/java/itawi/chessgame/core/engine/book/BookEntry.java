@@ -0,0 +1,11 @@
+package itawi.chessgame.core.engine.book;
+
+/**
+ * One 16-byte record of a book file
+ * @param key Position key
+ * @param move Move in Polyglot encoding, see OpeningBook.encodeMove
+ * @param weight Relative frequency, 0 to 65535
+ * @param learn Free for learning data; kept as read
+ */
+public record BookEntry(long key, int move, int weight, int learn) {
+}
@@ -0,0 +1,15 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Move;
+
+/**
+ * A move found in the opening book
+ * @param move Engine move, legal in the probed position
+ * @param weight Relative frequency with which the move should be played
+ */
+public record BookMove(int move, int weight) {
+
+    public String uci() {
+        return Move.toUci(move);
+    }
+}
@@ -0,0 +1,147 @@
+package itawi.chessgame.core.engine.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap open-addressing map from (position key, move) to win, draw and loss counts.
+ * Entries live in one direct buffer of fixed size, so the heap stays small whatever the corpus.
+ * When the map fills up its entries are written to disk as a sorted run and the map starts over.
+ * Not thread-safe: each builder thread uses its own map.
+ */
+class MoveCountMap {
+    // Key, move (0 marks a free slot), then wins, draws and losses of the side that played the move
+    static final int SLOT_BYTES = 24;
+    private static final int MOVE = 8;
+    private static final int COUNTS = 12;
+    private static final double MAX_LOAD = 0.75;
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int limit;
+    private int size;
+
+    MoveCountMap(long bytes) {
+        int capacity = Integer.highestOneBit((int) Math.min(Integer.MAX_VALUE / SLOT_BYTES, Math.max(16, bytes / SLOT_BYTES)));
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        this.mask = capacity - 1;
+        this.limit = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Count one game for a move
+     * @param outcome 0 win, 1 draw or 2 loss for the side that played the move
+     */
+    void add(long key, int move, int outcome) {
+        int slot = (int) mix(key ^ move * 0x9E3779B97F4A7C15L) & mask;
+        while (true) {
+            int base = slot * SLOT_BYTES;
+            int stored = slots.getInt(base + MOVE);
+            if (stored == 0) {
+                slots.putLong(base, key).putInt(base + MOVE, move);
+                size++;
+                stored = move;
+            }
+            if (stored == move && slots.getLong(base) == key) {
+                int counter = base + COUNTS + 4 * outcome;
+                slots.putInt(counter, slots.getInt(counter) + 1);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= limit;
+    }
+
+    /**
+     * Write the entries sorted by key (unsigned) and move, then empty the map
+     */
+    void writeSortedRun(Path file) throws IOException {
+        // Pack the entries to the front, sort them in place, and write them as they are laid out
+        int count = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (slots.getInt(slot * SLOT_BYTES + MOVE) != 0) {
+                if (slot != count) {
+                    slots.put(count * SLOT_BYTES, slots, slot * SLOT_BYTES, SLOT_BYTES);
+                }
+                count++;
+            }
+        }
+        heapSort(count);
+
+        ByteBuffer run = slots.slice(0, count * SLOT_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (run.hasRemaining()) {
+                channel.write(run);
+            }
+        }
+        clear();
+    }
+
+    void clear() {
+        for (int offset = 0; offset < slots.capacity(); offset += 8) {
+            slots.putLong(offset, 0);
+        }
+        size = 0;
+    }
+
+    static int compare(long key, int move, long otherKey, int otherMove) {
+        int byKey = Long.compareUnsigned(key, otherKey);
+        return byKey != 0 ? byKey : Integer.compare(move, otherMove);
+    }
+
+    // In-place heap sort of the first count entries, so sorting needs no memory beyond the map
+    private void heapSort(int count) {
+        byte[] a = new byte[SLOT_BYTES];
+        byte[] b = new byte[SLOT_BYTES];
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(i, count, a, b);
+        }
+        for (int last = count - 1; last > 0; last--) {
+            swap(0, last, a, b);
+            siftDown(0, last, a, b);
+        }
+    }
+
+    private void siftDown(int root, int count, byte[] a, byte[] b) {
+        while (2 * root + 1 < count) {
+            int child = 2 * root + 1;
+            if (child + 1 < count && compareSlots(child + 1, child) > 0) {
+                child++;
+            }
+            if (compareSlots(root, child) >= 0) {
+                return;
+            }
+            swap(root, child, a, b);
+            root = child;
+        }
+    }
+
+    private int compareSlots(int i, int j) {
+        int bi = i * SLOT_BYTES;
+        int bj = j * SLOT_BYTES;
+        return compare(slots.getLong(bi), slots.getInt(bi + MOVE), slots.getLong(bj), slots.getInt(bj + MOVE));
+    }
+
+    private void swap(int i, int j, byte[] a, byte[] b) {
+        slots.get(i * SLOT_BYTES, a).get(j * SLOT_BYTES, b);
+        slots.put(i * SLOT_BYTES, b).put(j * SLOT_BYTES, a);
+    }
+
+    // Finalizer of SplitMix64, so keys that differ in few bits still spread over the table
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
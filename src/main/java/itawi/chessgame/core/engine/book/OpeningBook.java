@@ -0,0 +1,180 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Opening book in the Polyglot binary layout: 16-byte big-endian records (key, move, weight, learn)
+ * sorted by key. The file is memory-mapped and probed by binary search, so nothing is loaded onto the heap.
+ * <p>
+ * Records are keyed by Polyglot's own position keys (see PolyglotKey), so books built by other Polyglot tools
+ * can be read and books written here can be used by other programs.
+ * Immutable once opened, so one instance can be shared by every engine.
+ */
+public class OpeningBook {
+    public static final int ENTRY_BYTES = 16;
+
+    private static final OpeningBook NO_BOOK = new OpeningBook(null, 0);
+
+    // Null for the empty book
+    private final MappedByteBuffer entries;
+    @Getter
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * A book without moves, for engines playing without one
+     */
+    public static OpeningBook empty() {
+        return NO_BOOK;
+    }
+
+    /**
+     * Map a book file
+     * @throws IllegalArgumentException if the file is not a whole number of records
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % ENTRY_BYTES != 0 || bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not a book file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return new OpeningBook(buffer, (int) (bytes / ENTRY_BYTES));
+        }
+    }
+
+    /**
+     * Write a book file, sorting the entries by key and, within a position, by weight
+     */
+    public static void write(Path file, List<BookEntry> bookEntries) throws IOException {
+        List<BookEntry> sorted = new ArrayList<>(bookEntries);
+        sorted.sort((a, b) -> a.key() == b.key() ? Integer.compare(b.weight(), a.weight()) : Long.compareUnsigned(a.key(), b.key()));
+
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.size() * ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (BookEntry entry : sorted) {
+            buffer.putLong(entry.key()).putShort((short) entry.move()).putShort((short) entry.weight()).putInt(entry.learn());
+        }
+        buffer.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Book moves for a position, heaviest first; moves that are not legal in the position are skipped
+     */
+    public List<BookMove> moves(Position position) {
+        List<BookMove> result = new ArrayList<>();
+        if (size == 0) {
+            return result;
+        }
+        long key = PolyglotKey.polyglotKey(position);
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, legalMoves);
+        for (int i = firstEntry(key); i < size && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_BYTES;
+            int encoded = entries.getShort(offset + 8) & 0xFFFF;
+            int weight = entries.getShort(offset + 10) & 0xFFFF;
+            int move = findMove(legalMoves, count, encoded);
+            if (move != Move.NONE && weight > 0) {
+                result.add(new BookMove(move, weight));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pick a book move at random with probability proportional to its weight
+     * @return the move, or Move.NONE when the position is not in the book
+     */
+    public int pickMove(Position position, RandomGenerator random) {
+        List<BookMove> moves = moves(position);
+        int total = moves.stream().mapToInt(BookMove::weight).sum();
+        if (total == 0) {
+            return Move.NONE;
+        }
+        int pick = random.nextInt(total);
+        for (BookMove bookMove : moves) {
+            pick -= bookMove.weight();
+            if (pick < 0) {
+                return bookMove.move();
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Polyglot encoding of a move: to square in bits 0-5, from square in bits 6-11 and the promotion piece
+     * (knight 1 to queen 4) in bits 12-14. Castling is written as the king capturing its own rook.
+     */
+    public static int encodeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.flag(move) == Move.CASTLING) {
+            to = to > from ? from + 3 : from - 4;
+        }
+        int promotion = Move.isPromotion(move) ? Move.promotion(move) - PAWN : 0;
+        return to | from << 6 | promotion << 12;
+    }
+
+    // Lowest index whose key is not below the given one, comparing keys as unsigned like Polyglot
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private static int findMove(int[] legalMoves, int count, int encoded) {
+        for (int i = 0; i < count; i++) {
+            if (encodeMove(legalMoves[i]) == encoded) {
+                return legalMoves[i];
+            }
+        }
+        return Move.NONE;
+    }
+}
@@ -0,0 +1,13 @@
+package itawi.chessgame.core.engine.book;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read from a PGN file
+ * @param tags Tag pairs such as Event, Result or FEN
+ * @param moves Main-line moves in standard algebraic notation, without comments or variations
+ * @param result "1-0", "0-1", "1/2-1/2" or "*"
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+}
@@ -0,0 +1,207 @@
+package itawi.chessgame.core.engine.book;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming PGN reader: games are parsed one at a time, so files of any size can be read in constant memory.
+ * A reader can cover just a byte range of a file, so one file can be split between threads. A range owns
+ * every game whose "[Event" tag starts inside it, which is the first tag of every game in export format.
+ */
+public class PgnReader implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final String GAME_START = "[Event ";
+
+    private final InputStream in;
+    private final long end;
+    // Offset in the file of the next byte to read
+    private long offset;
+    private byte[] line = new byte[256];
+
+    // A line read too far, returned again by the next readLine
+    private String pushedBack;
+    private long pushedBackOffset;
+
+    /**
+     * Read every game of a stream
+     */
+    public PgnReader(InputStream in) {
+        this.in = new BufferedInputStream(in, BUFFER_BYTES);
+        this.end = Long.MAX_VALUE;
+    }
+
+    /**
+     * Read the games starting in the byte range [start, end) of a file
+     */
+    public PgnReader(Path file, long start, long end) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        // Start one byte early, so a game starting exactly at start is kept once the partial line is skipped
+        channel.position(Math.max(0, start - 1));
+        this.in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_BYTES);
+        this.end = end;
+        this.offset = Math.max(0, start - 1);
+        if (start > 0) {
+            readLine();
+            skipToGameStart();
+        }
+    }
+
+    /**
+     * The next game, or null at the end of the stream or range
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        StringBuilder movetext = new StringBuilder();
+        while (true) {
+            long lineStart = pushedBack != null ? pushedBackOffset : offset;
+            String text = readLine();
+            if (text == null) {
+                break;
+            }
+            text = text.strip();
+            if (text.isEmpty() || text.startsWith("%")) {
+                continue; // Blank line or escaped line
+            }
+            if (tags.isEmpty() && movetext.isEmpty() && lineStart >= end) {
+                return null; // The game belongs to the next range
+            }
+            if (text.startsWith("[")) {
+                if (!movetext.isEmpty()) {
+                    pushBack(text, lineStart);
+                    break;
+                }
+                parseTag(text, tags);
+            } else {
+                int comment = text.indexOf(';');
+                movetext.append(comment >= 0 ? text.substring(0, comment) : text).append(' ');
+            }
+        }
+        if (tags.isEmpty() && movetext.isEmpty()) {
+            return null;
+        }
+        return parseMovetext(tags, movetext);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void skipToGameStart() throws IOException {
+        while (true) {
+            long lineStart = offset;
+            String text = readLine();
+            if (text == null || text.startsWith(GAME_START)) {
+                if (text != null) {
+                    pushBack(text, lineStart);
+                }
+                return;
+            }
+        }
+    }
+
+    private static void parseTag(String text, Map<String, String> tags) {
+        int space = text.indexOf(' ');
+        int open = text.indexOf('"');
+        int close = text.lastIndexOf('"');
+        if (space > 1 && open > space && close > open) {
+            tags.put(text.substring(1, space), text.substring(open + 1, close));
+        }
+    }
+
+    // Keep the main line only: drop comments, variations, annotations, move numbers and the result
+    private static PgnGame parseMovetext(Map<String, String> tags, CharSequence movetext) {
+        List<String> moves = new ArrayList<>();
+        String result = tags.getOrDefault("Result", "*");
+        StringBuilder token = new StringBuilder();
+        int variationDepth = 0;
+        boolean inComment = false;
+
+        for (int i = 0; i <= movetext.length(); i++) {
+            char c = i < movetext.length() ? movetext.charAt(i) : ' ';
+            if (inComment) {
+                inComment = c != '}';
+                continue;
+            }
+            if (c == '{' || c == '(' || c == ')' || Character.isWhitespace(c)) {
+                if (!token.isEmpty() && variationDepth == 0) {
+                    String move = moveOf(token.toString());
+                    if (isResult(move)) {
+                        result = move;
+                    } else if (!move.isEmpty()) {
+                        moves.add(move);
+                    }
+                }
+                token.setLength(0);
+                if (c == '{') {
+                    inComment = true;
+                } else if (c == '(') {
+                    variationDepth++;
+                } else if (c == ')') {
+                    variationDepth = Math.max(0, variationDepth - 1);
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        return new PgnGame(tags, moves, result);
+    }
+
+    // Strip a leading move number ("12." or "12...") and skip annotation glyphs ("$1")
+    private static String moveOf(String token) {
+        if (token.startsWith("$")) {
+            return "";
+        }
+        int dot = token.lastIndexOf('.');
+        return dot >= 0 ? token.substring(dot + 1) : token;
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    private void pushBack(String text, long lineStart) {
+        pushedBack = text;
+        pushedBackOffset = lineStart;
+    }
+
+    // PGN is ASCII; ISO-8859-1 keeps one char per byte, so the offset stays exact
+    private String readLine() throws IOException {
+        if (pushedBack != null) {
+            String text = pushedBack;
+            pushedBack = null;
+            return text;
+        }
+        int length = 0;
+        int b;
+        while ((b = in.read()) >= 0) {
+            offset++;
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, 2 * length);
+            }
+            line[length++] = (byte) b;
+        }
+        if (b < 0 && length == 0) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,27 @@
+package itawi.chessgame.core.engine.mate;
+
+import itawi.chessgame.core.engine.Move;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Answer of the mate solver
+ * @param status Whether a forced mate was found, ruled out, or the node budget ran out first
+ * @param mateIn Moves until mate for MATE, otherwise 0
+ * @param moves One mating line, attacker's moves first; may be cut short if the table lost part of the proof
+ * @param nodes Nodes expanded
+ * @param elapsedMillis Time spent solving
+ */
+public record MateResult(Status status, int mateIn, int[] moves, long nodes, long elapsedMillis) {
+
+    public enum Status {
+        MATE,
+        NO_MATE,
+        UNKNOWN
+    }
+
+    public List<String> movesUci() {
+        return Arrays.stream(moves).mapToObj(Move::toUci).toList();
+    }
+}
@@ -0,0 +1,244 @@
+package itawi.chessgame.core.engine.mate;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mate-in-N solver using depth-first proof-number search (df-pn).
+ * Instead of searching every move to full width like alpha-beta, df-pn always expands the most promising node:
+ * the one whose proof or disproof needs the fewest further nodes, so narrow forcing lines are followed deep early.
+ * Each node carries a proof number (phi) and disproof number (delta) from the side to move's point of view and
+ * keeps searching its best child until the thresholds passed down from its parent are exceeded.
+ * <p>
+ * The attacker is the side to move at the root. Mates in 1, 2, ... moves are tried in turn, so the first proof is
+ * the shortest mate. Proof numbers live in a fixed-size table keyed by position and remaining depth, so memory
+ * is bounded by its size; a node budget bounds the time. One instance must not be shared between threads.
+ */
+public class MateSolver {
+    public static final int MAX_MOVES = 16;
+    private static final int MAX_DEPTH = 2 * MAX_MOVES - 1;
+    // Proof numbers saturate here; INFINITY means proven impossible
+    private static final int INFINITY = 100_000_000;
+    // Key, phi and delta
+    private static final int ENTRY_BYTES = 16;
+
+    // Mixed into position keys, so results at different remaining depths don't collide
+    private static final long[] DEPTH_KEYS = new long[MAX_DEPTH + 1];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x3D6E9B2C5A4F7081L);
+        for (int i = 0; i < DEPTH_KEYS.length; i++) {
+            DEPTH_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final long[] keys;
+    private final int[] phis;
+    private final int[] deltas;
+    private final int mask;
+
+    // Per-ply children, generated once per visit
+    private final int[][] moves = new int[MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+    private final long[][] childKeys = new long[MAX_DEPTH + 1][MoveGenerator.MAX_MOVES];
+
+    private Position position;
+    private long nodes;
+    private long maxNodes;
+    private AtomicBoolean stop;
+
+    /**
+     * @param hashMb Size of the proof-number table in megabytes
+     */
+    public MateSolver(int hashMb) {
+        long entries = Math.max(1024, (long) hashMb * 1024 * 1024 / ENTRY_BYTES);
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, entries));
+        this.keys = new long[capacity];
+        this.phis = new int[capacity];
+        this.deltas = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Look for the shortest forced mate for the side to move
+     * @param maxMoves Longest mate to look for, in moves of the attacker
+     * @param maxNodes Node budget; UNKNOWN is returned when it runs out
+     * @throws IllegalArgumentException if maxMoves is not between 1 and MAX_MOVES
+     */
+    public MateResult solve(Position position, int maxMoves, long maxNodes) {
+        return solve(position, maxMoves, maxNodes, new AtomicBoolean());
+    }
+
+    /**
+     * Look for a mate like solve(position, maxMoves, maxNodes), giving up with UNKNOWN once the stop flag is set
+     */
+    public MateResult solve(Position position, int maxMoves, long maxNodes, AtomicBoolean stop) {
+        if (maxMoves < 1 || maxMoves > MAX_MOVES) {
+            throw new IllegalArgumentException("Mate length must be between 1 and " + MAX_MOVES + " moves");
+        }
+        long start = System.nanoTime();
+        this.position = position;
+        this.nodes = 0;
+        this.maxNodes = maxNodes;
+        this.stop = stop;
+        Arrays.fill(keys, 0);
+
+        for (int mateIn = 1; mateIn <= maxMoves; mateIn++) {
+            int depth = 2 * mateIn - 1;
+            search(0, depth, INFINITY, INFINITY);
+            long rootKey = nodeKey(depth);
+            if (outOfBudget()) {
+                break;
+            }
+            if (phi(rootKey) == 0) {
+                return new MateResult(MateResult.Status.MATE, mateIn, mainLine(depth), nodes, elapsedMillis(start));
+            }
+        }
+        MateResult.Status status = outOfBudget() ? MateResult.Status.UNKNOWN : MateResult.Status.NO_MATE;
+        return new MateResult(status, 0, new int[0], nodes, elapsedMillis(start));
+    }
+
+    // Expand the current position until its phi or delta reaches the thresholds, then store them
+    private void search(int ply, int remaining, int thresholdPhi, int thresholdDelta) {
+        nodes++;
+        long key = nodeKey(remaining);
+        boolean attacker = (ply & 1) == 0;
+
+        if (ply > 0 && position.isRepetition()) {
+            // A repetition never helps the attacker
+            store(key, attacker ? INFINITY : 0, attacker ? 0 : INFINITY);
+            return;
+        }
+        int legal = MoveGenerator.generateLegalMoves(position, moves[ply]);
+        if (legal == 0 || remaining == 0) {
+            boolean mated = legal == 0 && position.isInCheck();
+            // The attacker fails without moves; the defender fails only when mated
+            boolean moverWins = !attacker && !mated;
+            store(key, moverWins ? 0 : INFINITY, moverWins ? INFINITY : 0);
+            return;
+        }
+
+        // Child keys are computed once; on the attacker's last move only checks can mate
+        int count = 0;
+        for (int i = 0; i < legal; i++) {
+            int move = moves[ply][i];
+            position.makeMove(move);
+            if (remaining > 1 || position.isInCheck()) {
+                moves[ply][count] = move;
+                childKeys[ply][count++] = nodeKey(remaining - 1);
+            }
+            position.unmakeMove();
+        }
+        if (count == 0) {
+            store(key, INFINITY, 0);
+            return;
+        }
+
+        while (true) {
+            // phi is the best child's delta, delta the sum of the children's phi
+            int phi = INFINITY;
+            int secondPhi = INFINITY;
+            long delta = 0;
+            int best = 0;
+            for (int i = 0; i < count; i++) {
+                long childKey = childKeys[ply][i];
+                int childDelta = delta(childKey);
+                if (childDelta < phi) {
+                    secondPhi = phi;
+                    phi = childDelta;
+                    best = i;
+                } else if (childDelta < secondPhi) {
+                    secondPhi = childDelta;
+                }
+                delta += phi(childKey);
+            }
+            int nodeDelta = (int) Math.min(INFINITY, delta);
+            if (phi >= thresholdPhi || nodeDelta >= thresholdDelta || outOfBudget()) {
+                store(key, phi, nodeDelta);
+                return;
+            }
+
+            long bestKey = childKeys[ply][best];
+            int childThresholdPhi = (int) Math.min(INFINITY, (long) thresholdDelta - nodeDelta + phi(bestKey));
+            int childThresholdDelta = Math.min(thresholdPhi, secondPhi + 1);
+            position.makeMove(moves[ply][best]);
+            search(ply + 1, remaining - 1, childThresholdPhi, childThresholdDelta);
+            position.unmakeMove();
+        }
+    }
+
+    // Follow the proof: a mating move for the attacker, the longest resistance for the defender
+    private int[] mainLine(int depth) {
+        int[] line = new int[depth];
+        int length = 0;
+        for (int remaining = depth; remaining > 0; remaining--) {
+            boolean attacker = (depth - remaining) % 2 == 0;
+            int[] candidates = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegalMoves(position, candidates);
+            int chosen = Move.NONE;
+            int longest = -1;
+            for (int i = 0; i < count && (chosen == Move.NONE || !attacker); i++) {
+                position.makeMove(candidates[i]);
+                if (attacker) {
+                    if (delta(nodeKey(remaining - 1)) == 0) {
+                        chosen = candidates[i];
+                    }
+                } else {
+                    // Shortest depth at which this reply is known to be mated
+                    int provenAt = remaining - 1;
+                    for (int shallower = remaining - 3; shallower >= 0 && phi(nodeKey(shallower)) == 0; shallower -= 2) {
+                        provenAt = shallower;
+                    }
+                    if (phi(nodeKey(remaining - 1)) == 0 && provenAt > longest) {
+                        longest = provenAt;
+                        chosen = candidates[i];
+                    }
+                }
+                position.unmakeMove();
+            }
+            if (chosen == Move.NONE) {
+                break; // Part of the proof was overwritten in the table
+            }
+            line[length++] = chosen;
+            position.makeMove(chosen);
+        }
+        for (int i = 0; i < length; i++) {
+            position.unmakeMove();
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    private boolean outOfBudget() {
+        return nodes >= maxNodes || stop.get();
+    }
+
+    private long nodeKey(int remaining) {
+        return position.getKey() ^ DEPTH_KEYS[remaining];
+    }
+
+    // Unknown positions count as one node to prove and one to disprove
+    private int phi(long key) {
+        int slot = (int) key & mask;
+        return keys[slot] == key ? phis[slot] : 1;
+    }
+
+    private int delta(long key) {
+        int slot = (int) key & mask;
+        return keys[slot] == key ? deltas[slot] : 1;
+    }
+
+    private void store(long key, int phi, int delta) {
+        int slot = (int) key & mask;
+        keys[slot] = key;
+        phis[slot] = phi;
+        deltas[slot] = delta;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,187 @@
+package itawi.chessgame.core.engine.nnue;
+
+import itawi.chessgame.core.engine.Evaluator;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+
+import static itawi.chessgame.core.engine.Position.*;
+import static itawi.chessgame.core.engine.nnue.NnueNetwork.*;
+
+/**
+ * Evaluation by an NNUE network.
+ * Accumulators are cached per ply of the position's move history, so after a move only the features
+ * it changed are added and removed; unmaking a move simply falls back to the parent ply's accumulator.
+ * A side's accumulator is rebuilt from scratch only when its own king moved, since every feature depends on it.
+ */
+public class NnueEvaluator implements Evaluator {
+    // Cached plies; more than any search line, so a search never evicts its own ancestors
+    private static final int STACK_SIZE = 256;
+    private static final int STACK_MASK = STACK_SIZE - 1;
+    // Quantisation: hidden layers are scaled down by 2^6, the output from network units to centipawns by 16
+    private static final int HIDDEN_SHIFT = 6;
+    private static final int OUTPUT_SCALE = 16;
+
+    private final NnueNetwork network;
+    private final NnueKernels kernels;
+
+    // [ply][perspective * ACCUMULATOR_SIZE + i], tagged with the key of the position they were computed for
+    private final short[][] accumulators = new short[STACK_SIZE][2 * ACCUMULATOR_SIZE];
+    private final long[] accumulatorKeys = new long[STACK_SIZE];
+    private final boolean[] accumulatorValid = new boolean[STACK_SIZE];
+
+    // Layer buffers, allocated once
+    private final int[] input = new int[INPUT_SIZE];
+    private final int[] hidden1 = new int[HIDDEN_SIZE];
+    private final int[] hidden2 = new int[HIDDEN_SIZE];
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernels.best());
+    }
+
+    NnueEvaluator(NnueNetwork network, NnueKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+    }
+
+    /**
+     * Whether inference runs on the Vector API rather than scalar loops
+     */
+    public boolean isVectorized() {
+        return !(kernels instanceof ScalarKernels);
+    }
+
+    @Override
+    public int evaluate(Position position) {
+        short[] accumulator = updateAccumulator(position);
+        int side = position.getSideToMove();
+        kernels.clippedRelu(accumulator, side * ACCUMULATOR_SIZE, input, 0);
+        kernels.clippedRelu(accumulator, (side ^ 1) * ACCUMULATOR_SIZE, input, ACCUMULATOR_SIZE);
+
+        for (int i = 0; i < HIDDEN_SIZE; i++) {
+            int sum = network.hidden1Biases[i] + kernels.dot(input, 0, network.hidden1Weights, i * INPUT_SIZE, INPUT_SIZE);
+            hidden1[i] = Math.max(0, Math.min(127, sum >> HIDDEN_SHIFT));
+        }
+        for (int i = 0; i < HIDDEN_SIZE; i++) {
+            int sum = network.hidden2Biases[i] + kernels.dot(hidden1, 0, network.hidden2Weights, i * HIDDEN_SIZE, HIDDEN_SIZE);
+            hidden2[i] = Math.max(0, Math.min(127, sum >> HIDDEN_SHIFT));
+        }
+        int output = (network.outputBias + kernels.dot(hidden2, 0, network.outputWeights, 0, HIDDEN_SIZE)) / OUTPUT_SCALE;
+
+        // Static evaluations must never look like mate scores
+        return Math.max(-Search.MATE_BOUND + 1, Math.min(Search.MATE_BOUND - 1, output));
+    }
+
+    // Bring the accumulator for the current ply up to date from the nearest cached ancestor
+    private short[] updateAccumulator(Position position) {
+        int ply = position.getHistoryPly();
+        int slot = ply & STACK_MASK;
+        short[] target = accumulators[slot];
+        if (isCached(slot, position.getKey())) {
+            return target;
+        }
+
+        int oldest = Math.max(0, ply - STACK_SIZE + 1);
+        int base = ply - 1;
+        while (base >= oldest && !isCached(base & STACK_MASK, position.keyAt(base))) {
+            base--;
+        }
+
+        if (base < oldest) {
+            refresh(position, WHITE, target);
+            refresh(position, BLACK, target);
+        } else {
+            System.arraycopy(accumulators[base & STACK_MASK], 0, target, 0, target.length);
+            for (int perspective = WHITE; perspective <= BLACK; perspective++) {
+                if (kingMoved(position, perspective, base, ply)) {
+                    refresh(position, perspective, target);
+                    continue;
+                }
+                for (int p = base; p < ply; p++) {
+                    applyMove(position, p, perspective, target);
+                }
+            }
+        }
+
+        accumulatorKeys[slot] = position.getKey();
+        accumulatorValid[slot] = true;
+        return target;
+    }
+
+    private boolean isCached(int slot, long key) {
+        return accumulatorValid[slot] && accumulatorKeys[slot] == key;
+    }
+
+    private static boolean kingMoved(Position position, int color, int fromPly, int toPly) {
+        int king = makePiece(KING, color);
+        for (int p = fromPly; p < toPly; p++) {
+            if (position.movedPieceAt(p) == king) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Recompute one side's accumulator from the pieces on the board
+    private void refresh(Position position, int perspective, short[] accumulator) {
+        int offset = perspective * ACCUMULATOR_SIZE;
+        System.arraycopy(network.featureBiases, 0, accumulator, offset, ACCUMULATOR_SIZE);
+        int kingSquare = position.kingSquare(perspective);
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != EMPTY && typeOf(piece) != KING) {
+                kernels.add(accumulator, offset, network.featureWeights, featureOffset(perspective, kingSquare, piece, square));
+            }
+        }
+    }
+
+    // Apply the feature changes of the move played at the given ply; the perspective's king has not moved since
+    private void applyMove(Position position, int ply, int perspective, short[] accumulator) {
+        int move = position.moveAt(ply);
+        if (move == Move.NONE) {
+            return; // A null move changes no features
+        }
+        int piece = position.movedPieceAt(ply);
+        int captured = position.capturedAt(ply);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = colorOf(piece);
+        int kingSquare = position.kingSquare(perspective);
+        int offset = perspective * ACCUMULATOR_SIZE;
+        short[] weights = network.featureWeights;
+
+        // Kings are not features: they only select the weights of their own side
+        if (typeOf(piece) != KING) {
+            int placed = Move.isPromotion(move) ? makePiece(Move.promotion(move), us) : piece;
+            kernels.subtract(accumulator, offset, weights, featureOffset(perspective, kingSquare, piece, from));
+            kernels.add(accumulator, offset, weights, featureOffset(perspective, kingSquare, placed, to));
+        }
+        if (captured != EMPTY) {
+            kernels.subtract(accumulator, offset, weights, featureOffset(perspective, kingSquare, captured, to));
+        }
+
+        switch (Move.flag(move)) {
+            case Move.EN_PASSANT -> {
+                int capturedSquare = to + (us == WHITE ? -8 : 8);
+                kernels.subtract(accumulator, offset, weights,
+                        featureOffset(perspective, kingSquare, makePiece(PAWN, us ^ 1), capturedSquare));
+            }
+            case Move.CASTLING -> {
+                int rook = makePiece(ROOK, us);
+                int rookFrom = to > from ? to + 1 : to - 2;
+                int rookTo = to > from ? to - 1 : to + 1;
+                kernels.subtract(accumulator, offset, weights, featureOffset(perspective, kingSquare, rook, rookFrom));
+                kernels.add(accumulator, offset, weights, featureOffset(perspective, kingSquare, rook, rookTo));
+            }
+            default -> {
+            }
+        }
+    }
+
+    // HalfKP feature index, seen from the perspective side with its pieces first; black's board is flipped
+    static int featureOffset(int perspective, int kingSquare, int piece, int square) {
+        int flip = perspective == WHITE ? 0 : 56;
+        int kind = (typeOf(piece) - 1) * 2 + (colorOf(piece) == perspective ? 0 : 1);
+        return (((kingSquare ^ flip) * 10 + kind) * 64 + (square ^ flip)) * ACCUMULATOR_SIZE;
+    }
+}
@@ -0,0 +1,44 @@
+package itawi.chessgame.core.engine.nnue;
+
+/**
+ * The inner loops of NNUE inference. The scalar implementation always works;
+ * the vector one is used when the JVM was started with the jdk.incubator.vector module.
+ */
+interface NnueKernels {
+
+    /**
+     * Add one feature's weight column to an accumulator
+     */
+    void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset);
+
+    /**
+     * Remove one feature's weight column from an accumulator
+     */
+    void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset);
+
+    /**
+     * Clamp an accumulator into [0, 127] as input for the first hidden layer
+     */
+    void clippedRelu(short[] accumulator, int accumulatorOffset, int[] output, int outputOffset);
+
+    /**
+     * Dot product of two int vectors of the given length
+     */
+    int dot(int[] a, int aOffset, int[] b, int bOffset, int length);
+
+    /**
+     * The fastest kernels this JVM supports
+     */
+    static NnueKernels best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so this class never links against the module when it is absent
+                return (NnueKernels) Class.forName(NnueKernels.class.getPackageName() + ".VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarKernels();
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -0,0 +1,161 @@
+package itawi.chessgame.core.engine.nnue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Quantised weights of a HalfKP network: 40960 sparse inputs per side feed a 256-wide int16 accumulator,
+ * followed by two 32-neuron hidden layers and a single output.
+ * A network is immutable once loaded and is shared by every evaluator that uses it;
+ * the weights are package-private so the evaluator and kernels can read them directly.
+ *
+ * File layout (little endian): magic, version, then each layer's biases followed by its weights,
+ * feature transformer as int16, hidden and output layers as int32 biases with int8 weights.
+ */
+public class NnueNetwork {
+    public static final int MAGIC = 0x4E4E5545; // "NNUE"
+    public static final int VERSION = 1;
+
+    // 64 own-king squares x 10 piece kinds x 64 squares
+    public static final int FEATURES = 64 * 10 * 64;
+    public static final int ACCUMULATOR_SIZE = 256;
+    public static final int HIDDEN_SIZE = 32;
+    // Both perspectives' accumulators, side to move first
+    public static final int INPUT_SIZE = 2 * ACCUMULATOR_SIZE;
+
+    private static final int HEADER_BYTES = 8;
+
+    final short[] featureBiases = new short[ACCUMULATOR_SIZE];
+    final short[] featureWeights = new short[FEATURES * ACCUMULATOR_SIZE];
+    // Hidden and output weights are int8 values, widened to int so the kernels can work on int lanes
+    final int[] hidden1Biases = new int[HIDDEN_SIZE];
+    final int[] hidden1Weights = new int[HIDDEN_SIZE * INPUT_SIZE];
+    final int[] hidden2Biases = new int[HIDDEN_SIZE];
+    final int[] hidden2Weights = new int[HIDDEN_SIZE * HIDDEN_SIZE];
+    final int[] outputWeights = new int[HIDDEN_SIZE];
+    int outputBias;
+
+    private NnueNetwork() {
+    }
+
+    /**
+     * Load a network from a weights file. The file is memory-mapped and read once.
+     * @throws IllegalArgumentException if the file is not a network of this architecture
+     */
+    public static NnueNetwork load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != fileSize()) {
+                throw new IllegalArgumentException("Unexpected NNUE file size: " + channel.size());
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not an NNUE file of version " + VERSION + ": " + file);
+            }
+
+            NnueNetwork network = new NnueNetwork();
+            buffer.asShortBuffer().get(network.featureBiases).get(network.featureWeights);
+            buffer.position(buffer.position() + 2 * (ACCUMULATOR_SIZE + FEATURES * ACCUMULATOR_SIZE));
+            readLayer(buffer, network.hidden1Biases, network.hidden1Weights);
+            readLayer(buffer, network.hidden2Biases, network.hidden2Weights);
+            network.outputBias = buffer.getInt();
+            readBytes(buffer, network.outputWeights);
+            return network;
+        }
+    }
+
+    /**
+     * Write the network in the format read by load
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (short bias : featureBiases) {
+            buffer.putShort(bias);
+        }
+        for (short weight : featureWeights) {
+            buffer.putShort(weight);
+        }
+        writeLayer(buffer, hidden1Biases, hidden1Weights);
+        writeLayer(buffer, hidden2Biases, hidden2Weights);
+        buffer.putInt(outputBias);
+        for (int weight : outputWeights) {
+            buffer.put((byte) weight);
+        }
+
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * A network with random weights in the quantised ranges, for tests and benchmarks.
+     * Its evaluations are meaningless but cost exactly as much as a trained network's.
+     */
+    public static NnueNetwork random(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        NnueNetwork network = new NnueNetwork();
+        for (int i = 0; i < network.featureBiases.length; i++) {
+            network.featureBiases[i] = (short) random.nextInt(-64, 64);
+        }
+        for (int i = 0; i < network.featureWeights.length; i++) {
+            network.featureWeights[i] = (short) random.nextInt(-32, 33);
+        }
+        fillLayer(random, network.hidden1Biases, network.hidden1Weights);
+        fillLayer(random, network.hidden2Biases, network.hidden2Weights);
+        network.outputBias = random.nextInt(-1024, 1024);
+        for (int i = 0; i < network.outputWeights.length; i++) {
+            network.outputWeights[i] = random.nextInt(-128, 128);
+        }
+        return network;
+    }
+
+    public static long fileSize() {
+        return HEADER_BYTES
+                + 2L * (ACCUMULATOR_SIZE + (long) FEATURES * ACCUMULATOR_SIZE)
+                + 4L * HIDDEN_SIZE + HIDDEN_SIZE * INPUT_SIZE
+                + 4L * HIDDEN_SIZE + HIDDEN_SIZE * HIDDEN_SIZE
+                + 4L + HIDDEN_SIZE;
+    }
+
+    private static void readLayer(ByteBuffer buffer, int[] biases, int[] weights) {
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = buffer.getInt();
+        }
+        readBytes(buffer, weights);
+    }
+
+    private static void readBytes(ByteBuffer buffer, int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.get();
+        }
+    }
+
+    private static void writeLayer(ByteBuffer buffer, int[] biases, int[] weights) {
+        for (int bias : biases) {
+            buffer.putInt(bias);
+        }
+        for (int weight : weights) {
+            buffer.put((byte) weight);
+        }
+    }
+
+    private static void fillLayer(SplittableRandom random, int[] biases, int[] weights) {
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = random.nextInt(-2048, 2048);
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextInt(-64, 64);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package itawi.chessgame.core.engine.nnue;
+
+import static itawi.chessgame.core.engine.nnue.NnueNetwork.ACCUMULATOR_SIZE;
+
+/**
+ * Plain loops, which the JIT may still auto-vectorise
+ */
+class ScalarKernels implements NnueKernels {
+
+    @Override
+    public void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset) {
+        for (int i = 0; i < ACCUMULATOR_SIZE; i++) {
+            accumulator[accumulatorOffset + i] += weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset) {
+        for (int i = 0; i < ACCUMULATOR_SIZE; i++) {
+            accumulator[accumulatorOffset + i] -= weights[weightOffset + i];
+        }
+    }
+
+    @Override
+    public void clippedRelu(short[] accumulator, int accumulatorOffset, int[] output, int outputOffset) {
+        for (int i = 0; i < ACCUMULATOR_SIZE; i++) {
+            output[outputOffset + i] = Math.max(0, Math.min(127, accumulator[accumulatorOffset + i]));
+        }
+    }
+
+    @Override
+    public int dot(int[] a, int aOffset, int[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,66 @@
+package itawi.chessgame.core.engine.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static itawi.chessgame.core.engine.nnue.NnueNetwork.ACCUMULATOR_SIZE;
+
+/**
+ * SIMD kernels on the incubating Vector API, at the widest vector size the CPU supports.
+ * Only loaded when the jdk.incubator.vector module is present (see NnueKernels.best).
+ */
+class VectorKernels implements NnueKernels {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset) {
+        // The accumulator size is a multiple of every vector length, so no tail loop is needed
+        for (int i = 0; i < ACCUMULATOR_SIZE; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                    .intoArray(accumulator, accumulatorOffset + i);
+        }
+    }
+
+    @Override
+    public void subtract(short[] accumulator, int accumulatorOffset, short[] weights, int weightOffset) {
+        for (int i = 0; i < ACCUMULATOR_SIZE; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                    .intoArray(accumulator, accumulatorOffset + i);
+        }
+    }
+
+    @Override
+    public void clippedRelu(short[] accumulator, int accumulatorOffset, int[] output, int outputOffset) {
+        for (int i = 0; i < ACCUMULATOR_SIZE; i += SHORTS.length()) {
+            ShortVector clipped = ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                    .max((short) 0)
+                    .min((short) 127);
+            // Widen to ints in as many parts as one short vector spans
+            int parts = SHORTS.length() / INTS.length();
+            for (int part = 0; part < parts; part++) {
+                ((IntVector) clipped.convertShape(VectorOperators.S2I, INTS, part))
+                        .intoArray(output, outputOffset + i + part * INTS.length());
+            }
+        }
+    }
+
+    @Override
+    public int dot(int[] a, int aOffset, int[] b, int bOffset, int length) {
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            sum = sum.add(IntVector.fromArray(INTS, a, aOffset + i)
+                    .mul(IntVector.fromArray(INTS, b, bOffset + i)));
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,298 @@
+package itawi.chessgame.core.engine.tablebase;
+
+import itawi.chessgame.core.engine.Position;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * A set of pieces covered by one tablebase, such as "KQvKR", and the indexing of its positions.
+ * The stronger side is always white; positions with the colors the other way round are mirrored on probing.
+ * The white king is folded into a1-d1-d4 (or files a-d when pawns are on the board, which cannot be flipped
+ * vertically), so each table needs 2 * 10 (or 32) * 64^(pieces - 1) entries.
+ */
+public final class Material {
+    private static final String PIECE_LETTERS = " PNBRQK";
+    // Order of non-king pieces in a name and in the index: strongest first
+    private static final int[] TYPE_ORDER = {QUEEN, ROOK, BISHOP, KNIGHT, PAWN};
+
+    private static final int[] PAWNLESS_KING_SQUARES = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+    private static final int[] PAWN_KING_SQUARES = new int[32];
+    private static final int[] PAWNLESS_KING_INDEX = new int[64];
+    private static final int[] PAWN_KING_INDEX = new int[64];
+
+    static {
+        for (int i = 0; i < 32; i++) {
+            PAWN_KING_SQUARES[i] = (i >> 2) * 8 + (i & 3);
+        }
+        fillIndex(PAWNLESS_KING_INDEX, PAWNLESS_KING_SQUARES);
+        fillIndex(PAWN_KING_INDEX, PAWN_KING_SQUARES);
+    }
+
+    @Getter
+    private final String name;
+    // White king, black king, then white and black pieces in TYPE_ORDER
+    private final int[] pieces;
+    @Getter
+    private final boolean hasPawns;
+    @Getter
+    private final long key;
+    // Key of the same material with the colors swapped
+    @Getter
+    private final long mirroredKey;
+    @Getter
+    private final long size;
+
+    private Material(int[] whiteCounts, int[] blackCounts) {
+        List<Integer> list = new ArrayList<>();
+        list.add(makePiece(KING, WHITE));
+        list.add(makePiece(KING, BLACK));
+        StringBuilder white = new StringBuilder("K");
+        StringBuilder black = new StringBuilder("K");
+        for (int type : TYPE_ORDER) {
+            for (int i = 0; i < whiteCounts[type]; i++) {
+                list.add(makePiece(type, WHITE));
+                white.append(PIECE_LETTERS.charAt(type));
+            }
+        }
+        for (int type : TYPE_ORDER) {
+            for (int i = 0; i < blackCounts[type]; i++) {
+                list.add(makePiece(type, BLACK));
+                black.append(PIECE_LETTERS.charAt(type));
+            }
+        }
+        this.pieces = list.stream().mapToInt(Integer::intValue).toArray();
+        this.name = white + "v" + black;
+        this.hasPawns = whiteCounts[PAWN] + blackCounts[PAWN] > 0;
+        this.key = key(whiteCounts, blackCounts);
+        this.mirroredKey = key(blackCounts, whiteCounts);
+
+        long kingSquares = hasPawns ? PAWN_KING_SQUARES.length : PAWNLESS_KING_SQUARES.length;
+        this.size = 2 * kingSquares << (6 * (pieces.length - 1));
+    }
+
+    /**
+     * Parse a name such as "KRPvKR"; the result is always in canonical form, stronger side first
+     * @throws IllegalArgumentException if the name is malformed
+     */
+    public static Material of(String name) {
+        String[] sides = name.toUpperCase().split("V");
+        if (sides.length != 2 || !sides[0].startsWith("K") || !sides[1].startsWith("K")) {
+            throw new IllegalArgumentException("Invalid material: " + name);
+        }
+        return of(counts(sides[0].substring(1), name), counts(sides[1].substring(1), name));
+    }
+
+    /**
+     * Material from piece counts indexed by piece type, put in canonical form
+     */
+    public static Material of(int[] whiteCounts, int[] blackCounts) {
+        return isStronger(blackCounts, whiteCounts) ? new Material(blackCounts, whiteCounts) : new Material(whiteCounts, blackCounts);
+    }
+
+    /**
+     * Packed piece counts (4 bits per colored piece type), the same for every position with this material
+     */
+    public static long key(int[] whiteCounts, int[] blackCounts) {
+        long key = 0;
+        for (int type = PAWN; type <= QUEEN; type++) {
+            key |= (long) whiteCounts[type] << (4 * (type - 1));
+            key |= (long) blackCounts[type] << (4 * (type + 4));
+        }
+        return key;
+    }
+
+    /**
+     * Every canonical material with two kings and up to the given number of pieces in total
+     */
+    public static List<Material> upTo(int maxPieces) {
+        Set<String> names = new LinkedHashSet<>();
+        for (int extra = 1; extra <= maxPieces - 2; extra++) {
+            for (int whitePieces = extra; whitePieces >= 0; whitePieces--) {
+                for (String white : combinations(whitePieces)) {
+                    for (String black : combinations(extra - whitePieces)) {
+                        names.add(of("K" + white + "vK" + black).getName());
+                    }
+                }
+            }
+        }
+        return names.stream().map(Material::of).toList();
+    }
+
+    public int pieceCount() {
+        return pieces.length;
+    }
+
+    int pieceAt(int slot) {
+        return pieces[slot];
+    }
+
+    /**
+     * Materials reached by one capture or one promotion, which must be solved first; bare kings are left out
+     */
+    public List<Material> successors() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int color = WHITE; color <= BLACK; color++) {
+            for (int type = PAWN; type <= QUEEN; type++) {
+                int[][] counts = counts();
+                if (counts[color][type] == 0) {
+                    continue;
+                }
+                counts[color][type]--;
+                addIfNotBare(names, counts);
+                if (type == PAWN) {
+                    for (int promotion = KNIGHT; promotion <= QUEEN; promotion++) {
+                        counts[color][promotion]++;
+                        addIfNotBare(names, counts);
+                        // A promotion can also capture
+                        for (int captured = KNIGHT; captured <= QUEEN; captured++) {
+                            if (counts[color ^ 1][captured] > 0) {
+                                counts[color ^ 1][captured]--;
+                                addIfNotBare(names, counts);
+                                counts[color ^ 1][captured]++;
+                            }
+                        }
+                        counts[color][promotion]--;
+                    }
+                }
+            }
+        }
+        return names.stream().map(Material::of).toList();
+    }
+
+    /**
+     * Index of a position with this material
+     * @param mirrored Whether the position has the colors the other way round, i.e. its key is the mirrored key
+     */
+    public long index(Position position, boolean mirrored) {
+        int[] squares = new int[pieces.length];
+        Arrays.fill(squares, -1);
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece == EMPTY) {
+                continue;
+            }
+            if (mirrored) {
+                piece ^= 8; // Swap the color
+            }
+            for (int slot = 0; slot < pieces.length; slot++) {
+                if (pieces[slot] == piece && squares[slot] < 0) {
+                    squares[slot] = mirrored ? square ^ 56 : square;
+                    break;
+                }
+            }
+        }
+        int side = mirrored ? position.getSideToMove() ^ 1 : position.getSideToMove();
+        return index(squares, side);
+    }
+
+    /**
+     * Index of the pieces on the given squares (in the order of this material's pieces), folding symmetric positions
+     */
+    long index(int[] squares, int sideToMove) {
+        int king = squares[0];
+        int flip = (king & 7) > 3 ? 7 : 0;
+        if (!hasPawns && (king >> 3) > 3) {
+            flip ^= 56;
+        }
+        king ^= flip;
+        boolean transpose = !hasPawns && (king >> 3) > (king & 7);
+
+        long index = (hasPawns ? PAWN_KING_INDEX : PAWNLESS_KING_INDEX)[transpose ? transpose(king) : king];
+        for (int slot = 1; slot < squares.length; slot++) {
+            int square = squares[slot] ^ flip;
+            index = index << 6 | (transpose ? transpose(square) : square);
+        }
+        return index << 1 | sideToMove;
+    }
+
+    /**
+     * Decode an index into the squares of this material's pieces
+     * @return the side to move
+     */
+    int decode(long index, int[] squares) {
+        int sideToMove = (int) (index & 1);
+        index >>>= 1;
+        for (int slot = squares.length - 1; slot > 0; slot--) {
+            squares[slot] = (int) (index & 63);
+            index >>>= 6;
+        }
+        squares[0] = (hasPawns ? PAWN_KING_SQUARES : PAWNLESS_KING_SQUARES)[(int) index];
+        return sideToMove;
+    }
+
+    private int[][] counts() {
+        int[][] counts = new int[2][7];
+        for (int slot = 2; slot < pieces.length; slot++) {
+            counts[colorOf(pieces[slot])][typeOf(pieces[slot])]++;
+        }
+        return counts;
+    }
+
+    private static void addIfNotBare(Set<String> names, int[][] counts) {
+        Material material = of(counts[WHITE].clone(), counts[BLACK].clone());
+        if (material.pieceCount() > 2) {
+            names.add(material.getName());
+        }
+    }
+
+    private static int[] counts(String letters, String name) {
+        int[] counts = new int[7];
+        for (char c : letters.toCharArray()) {
+            int type = PIECE_LETTERS.indexOf(c);
+            if (type < PAWN || type > QUEEN) {
+                throw new IllegalArgumentException("Invalid material: " + name);
+            }
+            counts[type]++;
+        }
+        return counts;
+    }
+
+    // Compare the pieces strongest first; with equal pieces the sides are interchangeable
+    private static boolean isStronger(int[] counts, int[] otherCounts) {
+        for (int type : TYPE_ORDER) {
+            if (counts[type] != otherCounts[type]) {
+                return counts[type] > otherCounts[type];
+            }
+        }
+        return false;
+    }
+
+    private static List<String> combinations(int count) {
+        List<String> result = new ArrayList<>();
+        combine("", 0, count, result);
+        return result;
+    }
+
+    private static void combine(String prefix, int from, int remaining, List<String> result) {
+        if (remaining == 0) {
+            result.add(prefix);
+            return;
+        }
+        for (int i = from; i < TYPE_ORDER.length; i++) {
+            combine(prefix + PIECE_LETTERS.charAt(TYPE_ORDER[i]), i, remaining - 1, result);
+        }
+    }
+
+    private static int transpose(int square) {
+        return (square & 7) << 3 | square >> 3;
+    }
+
+    private static void fillIndex(int[] index, int[] squares) {
+        Arrays.fill(index, -1);
+        for (int i = 0; i < squares.length; i++) {
+            index[squares[i]] = i;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,187 @@
+package itawi.chessgame.core.engine.tablebase;
+
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Endgame tablebases written by TablebaseGenerator, memory-mapped and probed in constant time.
+ * Each material has a WDL file (2 bits per position) and a DTM file (1 byte per position, moves to mate).
+ * Positions with castling rights or an en passant square are not covered.
+ * Immutable once opened, so one instance can be shared by every search.
+ */
+public class Tablebase {
+    // Results from the point of view of the side to move, as stored in WDL files
+    public static final int DRAW = 0;
+    public static final int WIN = 1;
+    public static final int LOSS = 2;
+    public static final int ILLEGAL = 3;
+    public static final int UNKNOWN = -1;
+    // Returned by score when the position is not covered
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int HEADER_BYTES = 16;
+    static final String WDL_SUFFIX = ".wdl";
+    static final String DTM_SUFFIX = ".dtm";
+
+    private static final Tablebase NO_TABLES = new Tablebase(Map.of());
+
+    private record Table(Material material, boolean mirrored, MappedByteBuffer wdl, MappedByteBuffer dtm) {
+    }
+
+    // By material key; materials with unequal sides are also registered under their mirrored key
+    private final Map<Long, Table> tables;
+    @Getter
+    private final int maxPieces;
+
+    private Tablebase(Map<Long, Table> tables) {
+        this.tables = tables;
+        this.maxPieces = tables.values().stream().mapToInt(table -> table.material().pieceCount()).max().orElse(0);
+    }
+
+    /**
+     * A tablebase without tables, for engines running without one
+     */
+    public static Tablebase empty() {
+        return NO_TABLES;
+    }
+
+    /**
+     * Map every complete table in a directory
+     * @throws IllegalArgumentException if a file is not a table of the expected size
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<Long, Table> tables = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path wdlFile : files.filter(file -> file.getFileName().toString().endsWith(WDL_SUFFIX)).toList()) {
+                String fileName = wdlFile.getFileName().toString();
+                Material material = Material.of(fileName.substring(0, fileName.length() - WDL_SUFFIX.length()));
+                Path dtmFile = directory.resolve(material.getName() + DTM_SUFFIX);
+                if (!Files.exists(dtmFile)) {
+                    continue;
+                }
+                MappedByteBuffer wdl = map(wdlFile, (material.getSize() + 3) / 4);
+                MappedByteBuffer dtm = map(dtmFile, material.getSize());
+                tables.put(material.getKey(), new Table(material, false, wdl, dtm));
+                if (material.getMirroredKey() != material.getKey()) {
+                    tables.put(material.getMirroredKey(), new Table(material, true, wdl, dtm));
+                }
+            }
+        }
+        return new Tablebase(tables);
+    }
+
+    public boolean isEmpty() {
+        return tables.isEmpty();
+    }
+
+    public boolean contains(Material material) {
+        return tables.containsKey(material.getKey());
+    }
+
+    /**
+     * Win, draw or loss for the side to move with best play, or UNKNOWN if the position is not covered
+     */
+    public int probeWdl(Position position) {
+        Table table = tableFor(position);
+        return table == null ? UNKNOWN : wdl(table, table.material().index(position, table.mirrored()));
+    }
+
+    /**
+     * Plies to mate with best play, or -1 for draws and positions not covered
+     */
+    public int probeDtm(Position position) {
+        Table table = tableFor(position);
+        if (table == null) {
+            return -1;
+        }
+        long index = table.material().index(position, table.mirrored());
+        return dtmPlies(wdl(table, index), dtm(table, index));
+    }
+
+    /**
+     * Search score of a covered position at the given distance from the root, or NO_SCORE.
+     * Wins and losses are mate scores, so the search plays the shortest mate.
+     */
+    public int score(Position position, int ply) {
+        Table table = tableFor(position);
+        if (table == null) {
+            return NO_SCORE;
+        }
+        long index = table.material().index(position, table.mirrored());
+        int wdl = wdl(table, index);
+        if (wdl == DRAW) {
+            return 0;
+        }
+        if (wdl != WIN && wdl != LOSS) {
+            return NO_SCORE;
+        }
+        // Mates too long to be told apart from the search's own mate scores are reported just below them
+        int distance = Math.min(ply + dtmPlies(wdl, dtm(table, index)), Search.MATE_SCORE - Search.MATE_BOUND);
+        return wdl == WIN ? Search.MATE_SCORE - distance : -Search.MATE_SCORE + distance;
+    }
+
+    private Table tableFor(Position position) {
+        if (tables.isEmpty() || position.getCastlingRights() != 0 || position.getEnPassantSquare() >= 0) {
+            return null;
+        }
+        long key = 0;
+        int pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            int piece = position.pieceAt(square);
+            if (piece != EMPTY && typeOf(piece) != KING) {
+                key += 1L << (4 * (typeOf(piece) - 1 + 5 * colorOf(piece)));
+                if (++pieces + 2 > maxPieces) {
+                    return null;
+                }
+            }
+        }
+        return tables.get(key);
+    }
+
+    private static int wdl(Table table, long index) {
+        int packed = table.wdl().get(HEADER_BYTES + (int) (index >>> 2));
+        return packed >>> (2 * (int) (index & 3)) & 3;
+    }
+
+    private static int dtm(Table table, long index) {
+        return table.dtm().get(HEADER_BYTES + (int) index) & 0xFF;
+    }
+
+    // Wins are mates delivered on an odd ply, losses are mates received on an even ply
+    static int dtmPlies(int wdl, int moves) {
+        return switch (wdl) {
+            case WIN -> 2 * moves - 1;
+            case LOSS -> 2 * moves;
+            default -> -1;
+        };
+    }
+
+    private static MappedByteBuffer map(Path file, long dataBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + dataBytes) {
+                throw new IllegalArgumentException("Unexpected tablebase file size: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getLong(8) != dataBytes) {
+                throw new IllegalArgumentException("Not a tablebase file: " + file);
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package itawi.chessgame.core.engine.tablebase;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static itawi.chessgame.core.engine.Position.*;
+
+/**
+ * Offline retrograde solver for endgame tablebases.
+ * Every position of a material is solved by repeated passes: pass n marks the positions mated in n plies,
+ * i.e. wins with a move into a loss of n - 1 plies, or losses where every move reaches a win of at most n - 1 plies.
+ * Positions still unsolved when the passes stop changing are draws. Captures and promotions leave the material,
+ * so the smaller tables they reach are solved first and probed from disk.
+ * <p>
+ * Passes are split across a fork-join pool. A finished table is written to a temporary file and moved into place,
+ * so an interrupted run resumes with the first table that is not complete.
+ * <p>
+ * Usage: {@code TablebaseGenerator <directory> <maxPieces | material...> [--threads=N]},
+ * e.g. {@code TablebaseGenerator tb 4} or {@code TablebaseGenerator tb KRPvKR}
+ */
+public class TablebaseGenerator {
+    // Positions per parallel task
+    private static final int CHUNK = 1 << 14;
+    private static final int VERSION = 1;
+
+    // Solving state per position: unsolved, illegal, draw, or plies to mate + 1
+    private static final short UNSOLVED = 0;
+    private static final short ILLEGAL = -1;
+    private static final short DRAWN = -2;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private Tablebase solved;
+
+    public TablebaseGenerator(Path directory, int threads) throws IOException {
+        this.directory = directory;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        Files.createDirectories(directory);
+        this.solved = Tablebase.open(directory);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: TablebaseGenerator <directory> <maxPieces | material...> [--threads=N]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            }
+        }
+
+        TablebaseGenerator generator = new TablebaseGenerator(Path.of(args[0]), threads);
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                continue;
+            }
+            if (args[i].chars().allMatch(Character::isDigit)) {
+                for (Material material : Material.upTo(Integer.parseInt(args[i]))) {
+                    generator.generate(material);
+                }
+            } else {
+                generator.generate(Material.of(args[i]));
+            }
+        }
+    }
+
+    /**
+     * Solve a material and everything it depends on, skipping tables that are already complete
+     * @return the tablebase with every table in the directory
+     */
+    public Tablebase generate(Material material) throws IOException {
+        if (solved.contains(material)) {
+            return solved;
+        }
+        for (Material successor : material.successors()) {
+            generate(successor);
+        }
+
+        long start = System.nanoTime();
+        short[] states = solve(material);
+        write(material, states);
+        solved = Tablebase.open(directory);
+
+        int longest = 0;
+        for (short state : states) {
+            longest = Math.max(longest, state);
+        }
+        System.out.printf("Solved %s: %d positions, longest mate %d plies, %d ms%n",
+                material.getName(), states.length, Math.max(0, longest - 1), (System.nanoTime() - start) / 1_000_000);
+        return solved;
+    }
+
+    private short[] solve(Material material) {
+        if (material.getSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Material too large to solve: " + material.getName());
+        }
+        short[] states = new short[(int) material.getSize()];
+        AtomicBoolean changed = new AtomicBoolean(true);
+        // Set while a capture or promotion leads to a mate longer than the current pass, which a later pass may use
+        AtomicBoolean pending = new AtomicBoolean(true);
+        runPass(material, states, 0, changed, pending);
+
+        for (int pass = 1; changed.get() || pending.get(); pass++) {
+            if (pass > Short.MAX_VALUE - 2) {
+                throw new IllegalStateException("Mate too long for " + material.getName());
+            }
+            changed.set(false);
+            pending.set(false);
+            runPass(material, states, pass, changed, pending);
+        }
+
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == UNSOLVED) {
+                states[i] = DRAWN;
+            }
+        }
+        return states;
+    }
+
+    // Pass 0 classifies positions; later passes solve mates of exactly that many plies
+    private void runPass(Material material, short[] states, int pass, AtomicBoolean changed, AtomicBoolean pending) {
+        long chunks = (states.length + CHUNK - 1) / CHUNK;
+        pool.submit(() -> LongStream.range(0, chunks).parallel().forEach(chunk -> {
+            Worker worker = new Worker(material, states, pass);
+            int end = (int) Math.min(states.length, (chunk + 1) * CHUNK);
+            for (int index = (int) chunk * CHUNK; index < end; index++) {
+                if (pass == 0) {
+                    worker.classify(index);
+                } else if (states[index] == UNSOLVED) {
+                    worker.solve(index, changed, pending);
+                }
+            }
+        })).join();
+    }
+
+    // Scratch state for one task; positions and move buffers are reused across a chunk
+    private class Worker {
+        private final Material material;
+        private final short[] states;
+        private final int pass;
+        private final Position position = Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        private final int[] pieces;
+        private final int[] squares;
+        private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        Worker(Material material, short[] states, int pass) {
+            this.material = material;
+            this.states = states;
+            this.pass = pass;
+            this.pieces = new int[material.pieceCount()];
+            this.squares = new int[material.pieceCount()];
+            for (int slot = 0; slot < pieces.length; slot++) {
+                pieces[slot] = material.pieceAt(slot);
+            }
+        }
+
+        void classify(int index) {
+            if (!setUp(index)) {
+                states[index] = ILLEGAL;
+                return;
+            }
+            int count = MoveGenerator.generateLegalMoves(position, moves);
+            if (count == 0) {
+                states[index] = position.isInCheck() ? 1 : DRAWN; // Mated now, or stalemate
+            }
+        }
+
+        void solve(int index, AtomicBoolean changed, AtomicBoolean pending) {
+            setUp(index);
+            boolean winningPass = (pass & 1) == 1;
+            boolean allLose = true;
+            int count = MoveGenerator.generateLegalMoves(position, moves);
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                boolean leavesMaterial = position.pieceAt(Move.to(move)) != EMPTY
+                        || Move.isPromotion(move) || Move.flag(move) == Move.EN_PASSANT;
+                position.makeMove(move);
+                int child = childPlies(leavesMaterial, pending);
+                position.unmakeMove();
+
+                if (winningPass && child == pass - 1) {
+                    // A move into a loss of pass - 1 plies: won in pass plies
+                    states[index] = (short) (pass + 1);
+                    changed.set(true);
+                    return;
+                }
+                // Children solved during this pass have exactly pass plies, so they never count yet
+                if (child < 0 || (child & 1) == 0 || child > pass - 1) {
+                    allLose = false;
+                    if (winningPass) {
+                        continue;
+                    }
+                    break;
+                }
+            }
+            if (!winningPass && allLose) {
+                states[index] = (short) (pass + 1);
+                changed.set(true);
+            }
+        }
+
+        // Plies to mate after a move, for the side now to move; -1 if drawn or not solved yet
+        private int childPlies(boolean leavesMaterial, AtomicBoolean pending) {
+            if (!leavesMaterial) {
+                short state = states[(int) material.index(position, false)];
+                return state > 0 ? state - 1 : -1;
+            }
+            if (isBareKings()) {
+                return -1;
+            }
+            int plies = solved.probeDtm(position);
+            if (plies < 0 && solved.probeWdl(position) == Tablebase.UNKNOWN) {
+                throw new IllegalStateException("Missing tablebase for a successor of " + material.getName());
+            }
+            if (plies >= pass) {
+                pending.set(true);
+            }
+            return plies;
+        }
+
+        private boolean isBareKings() {
+            for (int square = 0; square < 64; square++) {
+                int piece = position.pieceAt(square);
+                if (piece != EMPTY && typeOf(piece) != KING) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Place the pieces of an index; false if the squares cannot form a legal position
+        private boolean setUp(int index) {
+            int side = material.decode(index, squares);
+            long occupied = 0;
+            for (int slot = 0; slot < squares.length; slot++) {
+                long bit = 1L << squares[slot];
+                int rank = squares[slot] >> 3;
+                if ((occupied & bit) != 0 || (typeOf(pieces[slot]) == PAWN && (rank == 0 || rank == 7))) {
+                    return false;
+                }
+                occupied |= bit;
+            }
+            position.setUp(pieces, squares, side);
+            // The side that just moved cannot have left its king in check
+            return !position.isSquareAttacked(position.kingSquare(side ^ 1), side);
+        }
+    }
+
+    // WDL codes packed four to a byte, and moves to mate in one byte, each after a small header
+    private void write(Material material, short[] states) throws IOException {
+        int size = states.length;
+        ByteBuffer wdl = ByteBuffer.allocate((size + 3) / 4);
+        ByteBuffer dtm = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            int result = resultOf(states[i]);
+            int plies = states[i] > 0 ? states[i] - 1 : 0;
+            int moves = (plies + 1) / 2;
+            if (moves > 255) {
+                throw new IllegalStateException("Mate too long to store for " + material.getName());
+            }
+            wdl.put(i >> 2, (byte) (wdl.get(i >> 2) | result << (2 * (i & 3))));
+            dtm.put(i, (byte) moves);
+        }
+        writeAtomically(directory.resolve(material.getName() + Tablebase.WDL_SUFFIX), wdl);
+        writeAtomically(directory.resolve(material.getName() + Tablebase.DTM_SUFFIX), dtm);
+    }
+
+    private static int resultOf(short state) {
+        if (state == ILLEGAL) {
+            return Tablebase.ILLEGAL;
+        }
+        if (state <= 0) {
+            return Tablebase.DRAW;
+        }
+        return ((state - 1) & 1) == 1 ? Tablebase.WIN : Tablebase.LOSS;
+    }
+
+    private static void writeAtomically(Path file, ByteBuffer data) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Tablebase.MAGIC).putInt(VERSION).putLong(data.capacity()).flip();
+        data.rewind();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
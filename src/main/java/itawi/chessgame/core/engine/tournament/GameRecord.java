@@ -0,0 +1,27 @@
+package itawi.chessgame.core.engine.tournament;
+
+/**
+ * Outcome of one tournament game
+ * @param round Index of the game in the tournament
+ * @param opening Index of the opening it started from
+ * @param firstPlaysWhite Whether the first engine had the white pieces
+ * @param result "1-0", "0-1" or "1/2-1/2"
+ * @param reason How the game ended, e.g. "checkmate" or "time forfeit"
+ * @param plies Half-moves played, including the opening
+ * @param nodes Nodes searched by both engines
+ * @param thinkMillis Time both engines spent thinking
+ */
+public record GameRecord(int round, int opening, boolean firstPlaysWhite, String result, String reason,
+                         int plies, long nodes, long thinkMillis) {
+
+    /**
+     * Points scored by the first engine: 1 for a win, 0.5 for a draw
+     */
+    public double firstScore() {
+        return switch (result) {
+            case "1-0" -> firstPlaysWhite ? 1 : 0;
+            case "0-1" -> firstPlaysWhite ? 0 : 1;
+            default -> 0.5;
+        };
+    }
+}
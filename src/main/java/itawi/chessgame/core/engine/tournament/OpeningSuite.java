@@ -0,0 +1,106 @@
+package itawi.chessgame.core.engine.tournament;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Openings that tournament games start from, so self-play games don't all repeat the same line.
+ * Each opening is a short sequence of moves in standard algebraic notation, checked for legality when loaded.
+ */
+public class OpeningSuite {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final List<String> DEFAULT_OPENINGS = List.of(
+            "1. e4 e5 2. Nf3 Nc6 3. Bb5 a6",       // Ruy Lopez
+            "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5",      // Italian
+            "1. e4 e5 2. Nf3 Nf6",                 // Petrov
+            "1. e4 c5 2. Nf3 d6 3. d4 cxd4",       // Sicilian
+            "1. e4 c5 2. Nc3 Nc6",                 // Closed Sicilian
+            "1. e4 e6 2. d4 d5",                   // French
+            "1. e4 c6 2. d4 d5",                   // Caro-Kann
+            "1. e4 d5 2. exd5 Qxd5",               // Scandinavian
+            "1. e4 d6 2. d4 Nf6 3. Nc3 g6",        // Pirc
+            "1. d4 d5 2. c4 e6",                   // Queen's Gambit Declined
+            "1. d4 d5 2. c4 dxc4",                 // Queen's Gambit Accepted
+            "1. d4 d5 2. c4 c6",                   // Slav
+            "1. d4 Nf6 2. c4 g6 3. Nc3 Bg7",       // King's Indian
+            "1. d4 Nf6 2. c4 e6 3. Nc3 Bb4",       // Nimzo-Indian
+            "1. d4 f5",                            // Dutch
+            "1. c4 e5",                            // English
+            "1. Nf3 d5 2. g3",                     // Reti
+            "1. e4 e5 2. f4"                       // King's Gambit
+    );
+
+    private final List<List<String>> openings;
+
+    private OpeningSuite(List<List<String>> openings) {
+        this.openings = openings;
+    }
+
+    /**
+     * A small suite of common openings
+     */
+    public static OpeningSuite standard() {
+        return of(DEFAULT_OPENINGS);
+    }
+
+    /**
+     * Read openings from a file, one per line; blank lines and lines starting with # are skipped
+     */
+    public static OpeningSuite load(Path file) throws IOException {
+        return of(Files.readAllLines(file).stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList());
+    }
+
+    /**
+     * Parse openings such as "1. e4 e5 2. Nf3"
+     * @throws IllegalArgumentException if an opening is empty or contains a move that is not legal
+     */
+    public static OpeningSuite of(List<String> lines) {
+        List<List<String>> openings = new ArrayList<>();
+        for (String line : lines) {
+            List<String> moves = Arrays.stream(line.split("\\s+"))
+                    .map(token -> token.substring(token.lastIndexOf('.') + 1))
+                    .filter(token -> !token.isEmpty())
+                    .toList();
+            Position position = Position.fromFen(START_FEN);
+            List<String> uciMoves = new ArrayList<>();
+            for (String san : moves) {
+                int move = Move.fromSan(position, san);
+                if (move == Move.NONE) {
+                    throw new IllegalArgumentException("Illegal move " + san + " in opening: " + line);
+                }
+                uciMoves.add(Move.toUci(move));
+                position.makeMove(move);
+            }
+            if (uciMoves.isEmpty()) {
+                throw new IllegalArgumentException("Empty opening");
+            }
+            openings.add(List.copyOf(uciMoves));
+        }
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("An opening suite needs at least one opening");
+        }
+        return new OpeningSuite(List.copyOf(openings));
+    }
+
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * Moves of an opening in coordinate notation (e.g. "e2e4"); indexes wrap around the suite
+     */
+    public List<String> get(int index) {
+        return openings.get(Math.floorMod(index, openings.size()));
+    }
+}
@@ -0,0 +1,209 @@
+package itawi.chessgame.core.engine.tournament;
+
+import itawi.chessgame.core.board.Board;
+import itawi.chessgame.core.engine.Engine;
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.SearchResult;
+import itawi.chessgame.core.engine.nnue.NnueEvaluator;
+import itawi.chessgame.core.engine.nnue.NnueNetwork;
+import itawi.chessgame.core.game.Game;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays many engine-vs-engine games at once, each on its own Game with a running clock.
+ * Every opening of the suite is played twice with colors reversed, so neither engine profits from a lucky opening.
+ * Each worker thread owns one engine per side and plays games one after another, so the number of workers
+ * sets both the parallelism and the memory used by transposition tables.
+ * <p>
+ * Because moves go through the same Game as web play, a tournament also soak-tests the rule handling:
+ * an engine move rejected by the game is recorded as a rule mismatch.
+ * <p>
+ * Usage: {@code Tournament <games> [--workers=N] [--time-ms=N] [--max-plies=N] [--openings=file] [--nnue=file]},
+ * where the NNUE network, if given, is used by the first engine only
+ */
+public class Tournament {
+    private final EvaluatorFactory first;
+    private final EvaluatorFactory second;
+    @Setter
+    private int workers = Runtime.getRuntime().availableProcessors();
+    // Time on each clock at the start of a game
+    @Setter
+    private long timeMillis = 10_000;
+    // Games still running after this many half-moves are adjudicated as draws
+    @Setter
+    private int maxPlies = 300;
+
+    public Tournament(EvaluatorFactory first, EvaluatorFactory second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: Tournament <games> [--workers=N] [--time-ms=N] [--max-plies=N] [--openings=file] [--nnue=file]");
+            return;
+        }
+        EvaluatorFactory first = EvaluatorFactory.CLASSICAL;
+        OpeningSuite openings = OpeningSuite.standard();
+        List<String> options = List.of(args).subList(1, args.length);
+        for (String option : options) {
+            if (option.startsWith("--nnue=")) {
+                NnueNetwork network = NnueNetwork.load(Path.of(option.substring("--nnue=".length())));
+                first = () -> new NnueEvaluator(network);
+            } else if (option.startsWith("--openings=")) {
+                openings = OpeningSuite.load(Path.of(option.substring("--openings=".length())));
+            }
+        }
+
+        Tournament tournament = new Tournament(first, EvaluatorFactory.CLASSICAL);
+        for (String option : options) {
+            if (option.startsWith("--workers=")) {
+                tournament.setWorkers(Integer.parseInt(option.substring("--workers=".length())));
+            } else if (option.startsWith("--time-ms=")) {
+                tournament.setTimeMillis(Long.parseLong(option.substring("--time-ms=".length())));
+            } else if (option.startsWith("--max-plies=")) {
+                tournament.setMaxPlies(Integer.parseInt(option.substring("--max-plies=".length())));
+            }
+        }
+
+        TournamentResult result = tournament.run(openings, Integer.parseInt(args[0]));
+        System.out.printf("Games: %d  +%d =%d -%d  score %.1f%%  Elo %+.0f%n", result.games().size(), result.firstWins(),
+                result.draws(), result.secondWins(), 100 * result.firstScore(), result.eloDifference());
+        System.out.printf("Time forfeits: %d  rule mismatches: %d  %d nodes/s  %d ms%n", result.timeForfeits(),
+                result.ruleMismatches(), result.nodesPerSecond(), result.elapsedMillis());
+    }
+
+    /**
+     * Play the given number of games, spread over the workers
+     */
+    public TournamentResult run(OpeningSuite openings, int games) {
+        if (games < 1) {
+            throw new IllegalArgumentException("A tournament needs at least one game");
+        }
+        long start = System.currentTimeMillis();
+        AtomicInteger nextRound = new AtomicInteger();
+        List<GameRecord> records = new ArrayList<>();
+
+        int threads = Math.max(1, Math.min(workers, games));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<GameRecord>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    Engine firstEngine = new Engine(first);
+                    Engine secondEngine = new Engine(second);
+                    List<GameRecord> played = new ArrayList<>();
+                    for (int round = nextRound.getAndIncrement(); round < games; round = nextRound.getAndIncrement()) {
+                        played.add(play(round, openings, firstEngine, secondEngine));
+                    }
+                    return played;
+                }));
+            }
+            for (Future<List<GameRecord>> future : futures) {
+                records.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        records.sort(Comparator.comparingInt(GameRecord::round));
+        return new TournamentResult(List.copyOf(records), System.currentTimeMillis() - start);
+    }
+
+    // Rounds 2k and 2k + 1 play opening k with the colors reversed
+    private GameRecord play(int round, OpeningSuite openings, Engine firstEngine, Engine secondEngine) {
+        int opening = round / 2;
+        boolean firstPlaysWhite = round % 2 == 0;
+        Engine white = firstPlaysWhite ? firstEngine : secondEngine;
+        Engine black = firstPlaysWhite ? secondEngine : firstEngine;
+        white.newGame();
+        black.newGame();
+
+        Game game = new Game(1);
+        game.getTimer().setWhiteTimeMillis(timeMillis);
+        game.getTimer().setBlackTimeMillis(timeMillis);
+
+        int plies = 0;
+        for (String uci : openings.get(opening)) {
+            if (!playMove(game, Move.fromUci(Position.fromGame(game), uci))) {
+                return record(round, opening, firstPlaysWhite, game, "rule mismatch", plies, 0, 0);
+            }
+            plies++;
+        }
+
+        long nodes = 0;
+        long thinkNanos = 0;
+        while (!game.isGameOver()) {
+            if (plies >= maxPlies || game.hasInsufficientMaterial()) {
+                return record(round, opening, firstPlaysWhite, game, "adjudicated draw", plies, nodes, thinkNanos);
+            }
+            Engine engine = game.getCurrentTurn().equals("white") ? white : black;
+            long thinkStart = System.nanoTime();
+            SearchResult result = engine.think(game);
+            thinkNanos += System.nanoTime() - thinkStart;
+            nodes += result.nodes();
+
+            if (result.bestMove() == Move.NONE || !playMove(game, result.bestMove())) {
+                if (game.getTimeoutPlayer() != null) {
+                    break; // The flag fell while the engine was thinking
+                }
+                return record(round, opening, firstPlaysWhite, game, "rule mismatch", plies, nodes, thinkNanos);
+            }
+            plies++;
+        }
+        return record(round, opening, firstPlaysWhite, game, null, plies, nodes, thinkNanos);
+    }
+
+    private static boolean playMove(Game game, int move) {
+        String to = Position.squareName(Move.to(move));
+        if (move == Move.NONE || !game.makeMove(Position.squareName(Move.from(move)), to)) {
+            return false;
+        }
+        if (Move.isPromotion(move)) {
+            game.promotePawn(to, Move.promotionName(move));
+        }
+        return true;
+    }
+
+    // Work out the result from how the game ended; a given reason means the game was stopped without a winner
+    private static GameRecord record(int round, int opening, boolean firstPlaysWhite, Game game, String stopReason,
+                                     int plies, long nodes, long thinkNanos) {
+        String result = "1/2-1/2";
+        String reason = stopReason;
+        if (reason == null) {
+            Board board = game.getBoard();
+            String loser = game.getCurrentTurn();
+            if (game.getTimeoutPlayer() != null) {
+                loser = game.getTimeoutPlayer();
+                reason = "time forfeit";
+            } else if (board.isKingInCheck(loser, board.getBoardState())) {
+                reason = "checkmate";
+            } else {
+                loser = null;
+                reason = "draw";
+            }
+            if (loser != null) {
+                result = loser.equals("white") ? "0-1" : "1-0";
+            }
+        }
+        return new GameRecord(round, opening, firstPlaysWhite, result, reason, plies, nodes, thinkNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,61 @@
+package itawi.chessgame.core.engine.tournament;
+
+import java.util.List;
+
+/**
+ * Results of a tournament between two engines
+ * @param games Every game, in round order
+ * @param elapsedMillis Wall-clock time of the whole tournament
+ */
+public record TournamentResult(List<GameRecord> games, long elapsedMillis) {
+
+    public long firstWins() {
+        return games.stream().filter(game -> game.firstScore() == 1).count();
+    }
+
+    public long secondWins() {
+        return games.stream().filter(game -> game.firstScore() == 0).count();
+    }
+
+    public long draws() {
+        return games.size() - firstWins() - secondWins();
+    }
+
+    public long timeForfeits() {
+        return count("time forfeit");
+    }
+
+    /**
+     * Games where the engine chose a move the game rules rejected; should always be zero
+     */
+    public long ruleMismatches() {
+        return count("rule mismatch");
+    }
+
+    /**
+     * Search speed over all games, in nodes per second of thinking time
+     */
+    public long nodesPerSecond() {
+        long nodes = games.stream().mapToLong(GameRecord::nodes).sum();
+        long millis = games.stream().mapToLong(GameRecord::thinkMillis).sum();
+        return millis == 0 ? 0 : nodes * 1000 / millis;
+    }
+
+    /**
+     * Share of the points scored by the first engine
+     */
+    public double firstScore() {
+        return games.isEmpty() ? 0.5 : games.stream().mapToDouble(GameRecord::firstScore).sum() / games.size();
+    }
+
+    /**
+     * Elo difference of the first engine over the second implied by its score, infinite after a clean sweep
+     */
+    public double eloDifference() {
+        return -400 * Math.log10(1 / firstScore() - 1);
+    }
+
+    private long count(String reason) {
+        return games.stream().filter(game -> game.reason().equals(reason)).count();
+    }
+}
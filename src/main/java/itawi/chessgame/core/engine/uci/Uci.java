@@ -0,0 +1,404 @@
+package itawi.chessgame.core.engine.uci;
+
+import itawi.chessgame.core.engine.CachedEvaluator;
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import itawi.chessgame.core.engine.SearchFeatures;
+import itawi.chessgame.core.engine.SearchLimits;
+import itawi.chessgame.core.engine.SearchResult;
+import itawi.chessgame.core.engine.TimeManager;
+import itawi.chessgame.core.engine.TranspositionTable;
+import itawi.chessgame.core.engine.nnue.NnueEvaluator;
+import itawi.chessgame.core.engine.nnue.NnueNetwork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Universal Chess Interface adapter, so the engine can be driven by chess GUIs and match tools without the web app.
+ * Commands are read from standard input; searches run on their own thread so "stop", "ponderhit" and "isready"
+ * are answered while the engine thinks.
+ * <p>
+ * Usage: {@code java -cp target/classes itawi.chessgame.core.engine.uci.Uci}, or {@code ... Uci bench [depth]}
+ * to print the bench signature and exit.
+ */
+public class Uci {
+    public static final String NAME = "ChessGame";
+    public static final int BENCH_DEPTH = 6;
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int MAX_HASH_MB = 4096;
+
+    // Openings, middlegames and endgames; the total node count to a fixed depth is the bench signature
+    public static final List<String> BENCH_FENS = List.of(
+            START_FEN,
+            "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "2r3k1/pp3ppp/2n1p3/3p4/3P4/2P1PN2/P4PPP/2R3K1 w - - 0 20",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/8/4k3/8/2p5/8/B2K4/8 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"
+    );
+
+    private final PrintStream out;
+    private final TimeManager timeManager = new TimeManager();
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService ponderTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private EvaluatorFactory evaluatorFactory;
+    private int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+    private SearchFeatures features = SearchFeatures.ALL;
+    private Search search;
+    private Position position = Position.fromFen(START_FEN);
+
+    // State of the running search
+    private Future<?> searchTask;
+    private AtomicBoolean stopSignal = new AtomicBoolean();
+    // While pondering or analysing infinitely, the best move is held back until "stop" or "ponderhit"
+    private final Object holdLock = new Object();
+    private boolean holdBestMove;
+    // Limits that apply once a ponder search becomes a normal one
+    private SearchLimits ponderHitLimits;
+
+    public Uci(PrintStream out, EvaluatorFactory evaluatorFactory) {
+        this.out = out;
+        this.evaluatorFactory = evaluatorFactory;
+        this.search = newSearch();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Uci uci = new Uci(System.out, EvaluatorFactory.CLASSICAL);
+        if (args.length > 0) {
+            uci.handle(String.join(" ", args));
+            uci.handle("quit");
+            return;
+        }
+        uci.run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    /**
+     * Process commands until "quit" or the end of input
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) {
+                return;
+            }
+        }
+        handle("quit");
+    }
+
+    /**
+     * Process one command
+     * @return false once the engine should exit
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.strip().split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                out.println("id name " + NAME);
+                out.println("id author ITAXBOX");
+                out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + MAX_HASH_MB);
+                out.println("option name Threads type spin default 1 min 1 max 1");
+                out.println("option name Ponder type check default false");
+                out.println("option name EvalFile type string default <empty>");
+                for (String feature : SearchFeatures.NAMES) {
+                    out.println("option name " + feature + " type check default true");
+                }
+                out.println("uciok");
+            }
+            case "isready" -> out.println("readyok");
+            case "ucinewgame" -> {
+                awaitSearch();
+                search.clear();
+            }
+            case "setoption" -> setOption(line);
+            case "position" -> setPosition(tokens);
+            case "go" -> go(tokens);
+            case "stop" -> release(true);
+            case "ponderhit" -> ponderHit();
+            case "bench" -> bench(tokens);
+            case "quit" -> {
+                release(true);
+                awaitSearch();
+                searchThread.shutdownNow();
+                ponderTimer.shutdownNow();
+                return false;
+            }
+            default -> {
+                if (!tokens[0].isEmpty()) {
+                    out.println("info string Unknown command: " + line.strip());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until the running search has printed its best move
+     */
+    void awaitSearch() {
+        Future<?> task = searchTask;
+        if (task == null) {
+            return;
+        }
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            out.println("info string Search failed: " + e.getCause());
+        }
+    }
+
+    private Search newSearch() {
+        Search next = new Search(evaluatorFactory.create(), new TranspositionTable(hashMb));
+        next.setFeatures(features);
+        return next;
+    }
+
+    // "setoption name <id> [value <x>]"; option names may contain spaces
+    private void setOption(String line) {
+        int nameStart = line.indexOf("name ");
+        if (nameStart < 0) {
+            return;
+        }
+        int valueStart = line.indexOf(" value ");
+        String name = (valueStart < 0 ? line.substring(nameStart + 5) : line.substring(nameStart + 5, valueStart)).strip();
+        String value = valueStart < 0 ? "" : line.substring(valueStart + 7).strip();
+        awaitSearch();
+
+        switch (name.toLowerCase()) {
+            case "hash" -> {
+                try {
+                    hashMb = Math.max(1, Math.min(MAX_HASH_MB, Integer.parseInt(value)));
+                    search = newSearch();
+                } catch (NumberFormatException e) {
+                    out.println("info string Invalid value for Hash: " + value);
+                }
+            }
+            case "threads" -> {
+                try {
+                    if (Integer.parseInt(value) > 1) {
+                        out.println("info string The search is single-threaded; using 1 thread");
+                    }
+                } catch (NumberFormatException e) {
+                    out.println("info string Invalid value for Threads: " + value);
+                }
+            }
+            case "ponder" -> {
+                // The GUI decides when to ponder; nothing to configure
+            }
+            case "evalfile" -> {
+                try {
+                    if (value.isEmpty() || value.equals("<empty>")) {
+                        evaluatorFactory = EvaluatorFactory.CLASSICAL;
+                    } else {
+                        NnueNetwork network = NnueNetwork.load(Path.of(value));
+                        evaluatorFactory = () -> new CachedEvaluator(new NnueEvaluator(network));
+                    }
+                    search = newSearch();
+                } catch (IOException | IllegalArgumentException e) {
+                    out.println("info string Cannot load " + value + ": " + e.getMessage());
+                }
+            }
+            default -> {
+                if (SearchFeatures.NAMES.stream().anyMatch(name::equalsIgnoreCase)) {
+                    features = features.with(name, Boolean.parseBoolean(value));
+                    search.setFeatures(features);
+                } else {
+                    out.println("info string Unknown option: " + name);
+                }
+            }
+        }
+    }
+
+    // "position startpos|fen <fen> [moves <move>...]"
+    private void setPosition(String[] tokens) {
+        int movesIndex = Arrays.asList(tokens).indexOf("moves");
+        int fenEnd = movesIndex < 0 ? tokens.length : movesIndex;
+        try {
+            Position next = tokens.length > 1 && tokens[1].equals("fen")
+                    ? Position.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, fenEnd)))
+                    : Position.fromFen(START_FEN);
+            for (int i = movesIndex + 1; movesIndex >= 0 && i < tokens.length; i++) {
+                int move = Move.fromUci(next, tokens[i]);
+                if (move == Move.NONE) {
+                    out.println("info string Illegal move: " + tokens[i]);
+                    return;
+                }
+                next.makeMove(move);
+            }
+            position = next; // The running search keeps its own position object
+        } catch (IllegalArgumentException e) {
+            out.println("info string Invalid position: " + e.getMessage());
+        }
+    }
+
+    private void go(String[] tokens) {
+        awaitSearch();
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        long moveTime = -1;
+        int depth = Search.MAX_PLY;
+        boolean infinite = false;
+        boolean ponder = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "wtime" -> whiteTime = Long.parseLong(valueAfter(tokens, i++));
+                    case "btime" -> blackTime = Long.parseLong(valueAfter(tokens, i++));
+                    case "winc" -> whiteIncrement = Long.parseLong(valueAfter(tokens, i++));
+                    case "binc" -> blackIncrement = Long.parseLong(valueAfter(tokens, i++));
+                    case "movetime" -> moveTime = Long.parseLong(valueAfter(tokens, i++));
+                    case "depth" -> depth = Integer.parseInt(valueAfter(tokens, i++));
+                    case "infinite" -> infinite = true;
+                    case "ponder" -> ponder = true;
+                    default -> {
+                        // movestogo, nodes and searchmoves are not supported and are ignored
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string Invalid go command: " + e.getMessage());
+            return;
+        }
+
+        boolean white = position.getSideToMove() == Position.WHITE;
+        long remaining = white ? whiteTime : blackTime;
+        SearchLimits limits;
+        if (moveTime >= 0) {
+            limits = new SearchLimits(depth, moveTime, moveTime);
+        } else if (remaining >= 0) {
+            SearchLimits clock = timeManager.limitsFor(remaining, white ? whiteIncrement : blackIncrement, position);
+            limits = new SearchLimits(depth, clock.softTimeMillis(), clock.hardTimeMillis());
+        } else {
+            limits = SearchLimits.depth(depth);
+        }
+
+        Position root = position;
+        AtomicBoolean stop = new AtomicBoolean();
+        stopSignal = stop;
+        synchronized (holdLock) {
+            holdBestMove = infinite || ponder;
+            ponderHitLimits = ponder ? limits : null;
+        }
+        // A ponder search has no limits until the opponent plays the expected move
+        SearchLimits searchLimits = ponder ? SearchLimits.depth(Search.MAX_PLY) : limits;
+        searchTask = searchThread.submit(() -> {
+            SearchResult result = search.search(root, searchLimits, stop, this::printInfo);
+            waitForRelease(stop);
+            printBestMove(result);
+        });
+    }
+
+    // The opponent played the predicted move: keep searching, now against our own clock
+    private void ponderHit() {
+        SearchLimits limits;
+        synchronized (holdLock) {
+            limits = ponderHitLimits;
+            ponderHitLimits = null;
+        }
+        AtomicBoolean stop = stopSignal;
+        if (limits != null && limits.isTimed()) {
+            ponderTimer.schedule(() -> stop.set(true), limits.softTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        release(false);
+    }
+
+    private void release(boolean stopSearch) {
+        if (stopSearch) {
+            stopSignal.set(true);
+        }
+        synchronized (holdLock) {
+            holdBestMove = false;
+            holdLock.notifyAll();
+        }
+    }
+
+    private void waitForRelease(AtomicBoolean stop) {
+        synchronized (holdLock) {
+            while (holdBestMove && !stop.get()) {
+                try {
+                    holdLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void printInfo(SearchResult result) {
+        long nps = result.elapsedMillis() > 0 ? result.nodes() * 1000 / result.elapsedMillis() : result.nodes();
+        String score = result.isMate() ? "mate " + result.mateIn() : "cp " + result.score();
+        out.println("info depth " + result.depth() + " score " + score + " nodes " + result.nodes() + " nps " + nps
+                + " time " + result.elapsedMillis() + " pv " + Arrays.stream(result.principalVariation())
+                .mapToObj(Move::toUci).collect(Collectors.joining(" ")));
+    }
+
+    private void printBestMove(SearchResult result) {
+        int[] pv = result.principalVariation();
+        String ponder = pv.length >= 2 ? " ponder " + Move.toUci(pv[1]) : "";
+        out.println("bestmove " + Move.toUci(result.bestMove()) + ponder);
+    }
+
+    // The token after a parameter name, which must be there
+    private static String valueAfter(String[] tokens, int i) {
+        if (i + 1 >= tokens.length) {
+            throw new NumberFormatException("Missing value for " + tokens[i]);
+        }
+        return tokens[i + 1];
+    }
+
+    // Fixed-depth searches of the bench positions from empty tables of the default size,
+    // so the node total only changes when the search or evaluation does
+    private void bench(String[] tokens) {
+        int depth;
+        try {
+            depth = tokens.length > 1 ? Integer.parseInt(tokens[1]) : BENCH_DEPTH;
+        } catch (NumberFormatException e) {
+            out.println("info string Invalid bench depth: " + tokens[1]);
+            return;
+        }
+        awaitSearch();
+        Search benchSearch = new Search(evaluatorFactory.create(), new TranspositionTable());
+        benchSearch.setFeatures(features);
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (String fen : BENCH_FENS) {
+            benchSearch.clear();
+            nodes += benchSearch.search(Position.fromFen(fen), depth).nodes();
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        out.println("Total time (ms) : " + millis);
+        out.println("Nodes searched  : " + nodes);
+        out.println("Nodes/second    : " + nodes * 1000 / millis);
+    }
+}
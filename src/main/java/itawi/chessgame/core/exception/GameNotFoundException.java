@@ -0,0 +1,10 @@
+package itawi.chessgame.core.exception;
+
+/**
+ * Thrown when a request names a game that does not exist, or was removed after sitting idle
+ */
+public class GameNotFoundException extends RuntimeException {
+    public GameNotFoundException(String gameId) {
+        super("Game not found: " + gameId);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 @Getter
 public class Game {
@@ -23,6 +25,12 @@ public class Game {
 
     private final ChessTimer timer; // Chess timer for the game
     private String timeoutPlayer; // Player who ran out of time, if any
+    @Setter
+    private BiConsumer<String, String> moveListener; // Notified with (from, to) after every successful move
+    @Setter
+    private Predicate<Game> drawAdjudicator; // Tells whether a position is a known draw, e.g. from endgame tablebases
+    private boolean adjudicatedDraw;
+    private int ply; // Moves played so far, by both sides
 
     /**
      * Default constructor creates a game without a timer
@@ -51,6 +59,19 @@ public class Game {
         this.timeoutPlayer = null;
     }
 
+    /**
+     * Creates a game played on the given clock, e.g. one with an increment or a delay
+     */
+    public Game(ChessTimer timer) {
+        this.board = new Board();
+        this.currentTurn = "white"; // White starts first
+        this.isGameOver = false;
+        boardStateHistory = new ArrayList<>();
+        this.halfMoveCounter = 0; // Initialize the counter
+        this.timer = timer;
+        this.timeoutPlayer = null;
+    }
+
     // Constructor for testing purposes
     public Game(String currentTurn) {
         this.board = new Board();
@@ -63,6 +84,17 @@ public class Game {
     }
 
     public boolean makeMove(String fromPosition, String toPosition) {
+        boolean moved = applyMove(fromPosition, toPosition);
+        if (moved) {
+            ply++;
+        }
+        if (moved && moveListener != null) {
+            moveListener.accept(fromPosition, toPosition);
+        }
+        return moved;
+    }
+
+    private boolean applyMove(String fromPosition, String toPosition) {
         if (isGameOver) {
             return false; // Game is already over
         }
@@ -211,6 +243,10 @@ public class Game {
         } else if (isStalemate()) {
             System.out.println("Stalemate! The game is a draw.");
             isGameOver = true;
+        } else if (drawAdjudicator != null && drawAdjudicator.test(this)) {
+            System.out.println("Tablebase draw! Neither side can force a win.");
+            adjudicatedDraw = true;
+            isGameOver = true;
         }
 
         // Update the timer after a successful move
@@ -221,6 +257,18 @@ public class Game {
         return true;
     }
 
+    /**
+     * End the game if the side to move has run out of time, without waiting for it to try a move
+     * @return whether the game ended on time
+     */
+    public boolean checkFlagFall() {
+        if (isGameOver) {
+            return false;
+        }
+        checkForTimeout();
+        return isGameOver;
+    }
+
     private void checkForTimeout() {
         if (timer != null && timer.isTimeout()) {
             isGameOver = true;
@@ -102,8 +102,9 @@ public class King extends Piece {
             }
         }
 
-        // Check if the king is not in check and the squares are not under attack
-        return !isInCheck(board) && !isSquareUnderAttack(board, squaresToCheck);
+        // Check if the king is not in check and the squares it crosses are not under attack; b1 or b8 may be
+        String[] kingPath = getColor().equals("white") ? new String[]{"c1", "d1"} : new String[]{"c8", "d8"};
+        return !isInCheck(board) && !isSquareUnderAttack(board, kingPath);
     }
 
     // Check if the king is in check
@@ -169,8 +170,8 @@ public class King extends Piece {
                 continue;
             }
 
-            // Get the possible moves of the opponent's piece
-            List<String> possibleMoves = piece.getPossibleMoves(board);
+            // Get the possible moves of the opponent's piece; a pawn attacks diagonally whether or not it can move there
+            List<String> possibleMoves = piece instanceof Pawn pawn ? pawn.getAttackedSquares() : piece.getPossibleMoves(board);
 
             // Check if any of the squares are in the opponent's possible moves
             for (String square : squares) {
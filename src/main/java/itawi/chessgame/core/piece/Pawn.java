@@ -66,6 +66,21 @@ public class Pawn extends Piece {
         return possibleMoves;
     }
 
+    /**
+     * The squares this pawn attacks, diagonally forward, whether or not anything stands on them
+     */
+    public List<String> getAttackedSquares() {
+        int[] currentCoords = Utils.getCoordinates(this.getPosition());
+        List<String> attacked = new ArrayList<>();
+        for (int dx : new int[]{-1, 1}) {
+            String square = Utils.getPosition(currentCoords[0] + dx, currentCoords[1] + DIRECTION);
+            if (Utils.isValidPosition(square)) {
+                attacked.add(square);
+            }
+        }
+        return attacked;
+    }
+
     @Override
     public List<String> getPossibleMoves(Board boardObj) {
         // Get the basic moves
@@ -1,92 +1,141 @@
 package itawi.chessgame.core.timer;
 
-import lombok.Getter;
-import lombok.Setter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Handles chess game timing functionality
+ * Handles chess game timing functionality.
+ * The whole clock is one immutable State swapped atomically, so any thread may read it at any time: reads never
+ * block and never see one side's time from before a move and the other's from after it. Time is measured with
+ * System.nanoTime, which does not jump when the system clock is adjusted.
+ * Supports a Fischer increment, added to a player's time after each move, and a Bronstein delay, which gives back
+ * the time spent on a move up to the delay.
  */
-@Getter
-@Setter
 public class ChessTimer {
-    private long whiteTimeMillis; // Remaining time for white player in milliseconds
-    private long blackTimeMillis; // Remaining time for black player in milliseconds
-    private long whiteLastMoveTimestamp; // When white last moved
-    private long blackLastMoveTimestamp; // When black last moved
-    private boolean timerRunning;
-    private String activeTimer; // "white" or "black"
+
+    /**
+     * The clock at one instant
+     *
+     * @param whiteMillis         White's time left at the start of the current turn, or when the clock was stopped
+     * @param blackMillis         Black's time left at the start of the current turn, or when the clock was stopped
+     * @param activeTimer         "white" or "black"
+     * @param turnStartNanos      System.nanoTime when the active player's time started running
+     * @param whiteLastMoveMillis Wall-clock time white's turn last started, or 0; for display only
+     * @param blackLastMoveMillis Wall-clock time black's turn last started, or 0; for display only
+     */
+    public record State(long whiteMillis, long blackMillis, String activeTimer, boolean running, long turnStartNanos,
+                        long incrementMillis, long delayMillis, long whiteLastMoveMillis, long blackLastMoveMillis) {
+
+        /**
+         * Time left for a player, counting the active player's current turn
+         * @param nowNanos System.nanoTime of the moment to read the clock at
+         */
+        public long remainingMillis(String color, long nowNanos) {
+            long millis = color.equals("white") ? whiteMillis : blackMillis;
+            if (running && color.equals(activeTimer)) {
+                millis -= elapsedMillis(nowNanos);
+            }
+            return Math.max(0, millis);
+        }
+
+        public long remainingMillis(String color) {
+            return remainingMillis(color, System.nanoTime());
+        }
+
+        private long elapsedMillis(long nowNanos) {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nowNanos - turnStartNanos));
+        }
+
+        private State withTime(String color, long millis) {
+            return color.equals("white")
+                    ? new State(millis, blackMillis, activeTimer, running, turnStartNanos, incrementMillis, delayMillis, whiteLastMoveMillis, blackLastMoveMillis)
+                    : new State(whiteMillis, millis, activeTimer, running, turnStartNanos, incrementMillis, delayMillis, whiteLastMoveMillis, blackLastMoveMillis);
+        }
+
+        // Start a turn for a player, keeping the banked times
+        private State withTurn(String color, boolean running, long nowNanos, long nowMillis) {
+            long whiteStamp = running && color.equals("white") ? nowMillis : whiteLastMoveMillis;
+            long blackStamp = running && color.equals("black") ? nowMillis : blackLastMoveMillis;
+            return new State(whiteMillis, blackMillis, color, running, nowNanos, incrementMillis, delayMillis, whiteStamp, blackStamp);
+        }
+    }
+
+    // Writers swap in a new State, retrying if another writer got there first; readers just read the reference
+    private final AtomicReference<State> state;
 
     /**
      * Create a new chess timer with the specified time for each player
      * @param initialTimeMinutes Time in minutes for each player
      */
     public ChessTimer(int initialTimeMinutes) {
-        this.whiteTimeMillis = initialTimeMinutes * 60 * 1000L;
-        this.blackTimeMillis = initialTimeMinutes * 60 * 1000L;
-        this.timerRunning = false;
-        this.activeTimer = "white"; // White starts first
+        this(initialTimeMinutes * 60 * 1000L, 0, 0);
+    }
+
+    /**
+     * @param initialTimeMillis Time for each player
+     * @param incrementMillis   Fischer increment, added to a player's time after each of their moves
+     * @param delayMillis       Bronstein delay, the most of the time spent on a move that is given back after it
+     */
+    public ChessTimer(long initialTimeMillis, long incrementMillis, long delayMillis) {
+        if (initialTimeMillis < 0 || incrementMillis < 0 || delayMillis < 0) {
+            throw new IllegalArgumentException("Clock times must not be negative");
+        }
+        // White starts first
+        this.state = new AtomicReference<>(new State(initialTimeMillis, initialTimeMillis, "white", false,
+                System.nanoTime(), incrementMillis, delayMillis, 0, 0));
+    }
+
+    /**
+     * The whole clock as it is now, read without waiting
+     */
+    public State getState() {
+        return state.get();
     }
 
     /**
      * Start the timer
      */
     public void startTimer() {
-        if (!timerRunning) {
-            timerRunning = true;
-            if (activeTimer.equals("white")) {
-                whiteLastMoveTimestamp = System.currentTimeMillis();
-            } else {
-                blackLastMoveTimestamp = System.currentTimeMillis();
-            }
-        }
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        state.updateAndGet(current -> current.running() ? current : current.withTurn(current.activeTimer(), true, nowNanos, nowMillis));
     }
 
     /**
-     * Stop the timer
+     * Stop the timer, keeping the time the active player has used so far
      */
     public void stopTimer() {
-        timerRunning = false;
+        long nowNanos = System.nanoTime();
+        state.updateAndGet(current -> {
+            if (!current.running()) {
+                return current;
+            }
+            String color = current.activeTimer();
+            return current.withTime(color, current.remainingMillis(color, nowNanos))
+                    .withTurn(color, false, nowNanos, 0);
+        });
     }
 
     /**
      * Switch the active timer from one player to the other
-     * Also calculates and updates the time used by the current player
+     * Also charges the player who moved for the time used, less any delay, and adds the increment
      */
     public void switchTurn() {
-        long currentTime = System.currentTimeMillis();
-
-        if (timerRunning) {
-            if (activeTimer.equals("white")) {
-                // Calculate how much time white used
-                long timeElapsed = currentTime - whiteLastMoveTimestamp;
-                whiteTimeMillis -= timeElapsed;
-
-                // Ensure time doesn't go negative
-                if (whiteTimeMillis < 0) {
-                    whiteTimeMillis = 0;
-                }
-
-                // Switch to black's timer
-                blackLastMoveTimestamp = currentTime;
-                activeTimer = "black";
-            } else {
-                // Calculate how much time black used
-                long timeElapsed = currentTime - blackLastMoveTimestamp;
-                blackTimeMillis -= timeElapsed;
-
-                // Ensure time doesn't go negative
-                if (blackTimeMillis < 0) {
-                    blackTimeMillis = 0;
-                }
-
-                // Switch to white's timer
-                whiteLastMoveTimestamp = currentTime;
-                activeTimer = "white";
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+        state.updateAndGet(current -> {
+            String mover = current.activeTimer();
+            String next = mover.equals("white") ? "black" : "white";
+            if (!current.running()) {
+                // If timer wasn't running, just switch the active timer
+                return current.withTurn(next, false, nowNanos, nowMillis);
             }
-        } else {
-            // If timer wasn't running, just switch the active timer
-            activeTimer = activeTimer.equals("white") ? "black" : "white";
-        }
+            long left = current.remainingMillis(mover, nowNanos);
+            if (left > 0) {
+                left += Math.min(current.elapsedMillis(nowNanos), current.delayMillis()) + current.incrementMillis();
+            }
+            return current.withTime(mover, left).withTurn(next, true, nowNanos, nowMillis);
+        });
     }
 
     /**
@@ -94,44 +143,17 @@ public class ChessTimer {
      * @return true if the active player has run out of time
      */
     public boolean isTimeout() {
-        updateCurrentPlayerTime();
-
-        if (activeTimer.equals("white") && whiteTimeMillis <= 0) {
-            return true;
-        } else return activeTimer.equals("black") && blackTimeMillis <= 0;
+        State current = state.get();
+        return current.remainingMillis(current.activeTimer()) <= 0;
     }
 
     /**
-     * Update the time for the current active player
+     * Get the remaining time for the specified player, including the time spent on the current turn
+     * @param color The player's color ("white" or "black")
+     * @return Remaining time in milliseconds
      */
-    private void updateCurrentPlayerTime() {
-        if (!timerRunning) {
-            return;
-        }
-
-        long currentTime = System.currentTimeMillis();
-
-        if (activeTimer.equals("white")) {
-            // Calculate how much time has passed
-            long timeElapsed = currentTime - whiteLastMoveTimestamp;
-            long updatedTime = whiteTimeMillis - timeElapsed;
-
-            // Only update if time has actually passed (prevent time jumping forward due to async calls)
-            if (timeElapsed > 0) {
-                whiteTimeMillis = Math.max(0, updatedTime);
-                whiteLastMoveTimestamp = currentTime;
-            }
-        } else {
-            // Calculate how much time has passed
-            long timeElapsed = currentTime - blackLastMoveTimestamp;
-            long updatedTime = blackTimeMillis - timeElapsed;
-
-            // Only update if time has actually passed
-            if (timeElapsed > 0) {
-                blackTimeMillis = Math.max(0, updatedTime);
-                blackLastMoveTimestamp = currentTime;
-            }
-        }
+    public long getRemainingTimeMillis(String color) {
+        return state.get().remainingMillis(color);
     }
 
     /**
@@ -140,10 +162,13 @@ public class ChessTimer {
      * @return Formatted time string
      */
     public String getFormattedTime(String color) {
-        updateCurrentPlayerTime();
-
-        long timeMillis = color.equals("white") ? whiteTimeMillis : blackTimeMillis;
+        return formatTime(getRemainingTimeMillis(color));
+    }
 
+    /**
+     * Format a time as MM:SS
+     */
+    public static String formatTime(long timeMillis) {
         // Calculate minutes and seconds
         long minutes = timeMillis / (60 * 1000);
         long seconds = (timeMillis % (60 * 1000)) / 1000;
@@ -151,4 +176,64 @@ public class ChessTimer {
         // Format as MM:SS
         return String.format("%02d:%02d", minutes, seconds);
     }
+
+    public long getWhiteTimeMillis() {
+        return getRemainingTimeMillis("white");
+    }
+
+    public long getBlackTimeMillis() {
+        return getRemainingTimeMillis("black");
+    }
+
+    /**
+     * Set white's time left; if white's time is running, it runs on from this value
+     */
+    public void setWhiteTimeMillis(long millis) {
+        setTimeMillis("white", millis);
+    }
+
+    /**
+     * Set black's time left; if black's time is running, it runs on from this value
+     */
+    public void setBlackTimeMillis(long millis) {
+        setTimeMillis("black", millis);
+    }
+
+    public long getWhiteLastMoveTimestamp() {
+        return state.get().whiteLastMoveMillis();
+    }
+
+    public long getBlackLastMoveTimestamp() {
+        return state.get().blackLastMoveMillis();
+    }
+
+    public boolean isTimerRunning() {
+        return state.get().running();
+    }
+
+    public String getActiveTimer() {
+        return state.get().activeTimer();
+    }
+
+    public long getIncrementMillis() {
+        return state.get().incrementMillis();
+    }
+
+    public long getDelayMillis() {
+        return state.get().delayMillis();
+    }
+
+    private void setTimeMillis(String color, long millis) {
+        long nowNanos = System.nanoTime();
+        state.updateAndGet(current -> {
+            State updated = current.withTime(color, millis);
+            if (current.running() && color.equals(current.activeTimer())) {
+                // Restart the turn from now, keeping its wall-clock start
+                return new State(updated.whiteMillis(), updated.blackMillis(), color, true, nowNanos,
+                        current.incrementMillis(), current.delayMillis(),
+                        current.whiteLastMoveMillis(), current.blackLastMoveMillis());
+            }
+            return updated;
+        });
+    }
 }
@@ -0,0 +1,204 @@
+package itawi.chessgame.core.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs tasks after a delay, for very many pending tasks on a single thread.
+ * Time is cut into ticks and the wheel has one bucket per tick, like the hands of a clock. A task goes into the
+ * bucket of the tick it is due in, with the number of full turns of the wheel still to wait. Each tick the thread
+ * visits only its own bucket, so scheduling, cancelling and expiring cost O(1) per task whatever the number pending.
+ * Tasks run at most one tick late, never early, on the wheel's thread, so they should be short.
+ */
+public class HashedWheelTimer implements AutoCloseable {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * A scheduled task
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Turns of the wheel left, and the neighbours in the bucket; only touched by the wheel's thread
+        private long remainingRounds;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Stop the task from running
+         * @return false if it already ran or was cancelled
+         */
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    // A doubly linked list, so cancelled tasks are unlinked in O(1) when their bucket comes round
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.previous == null) {
+                head = next;
+            } else {
+                timeout.previous.next = next;
+            }
+            if (next == null) {
+                tail = timeout.previous;
+            } else {
+                next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            return next;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    // New tasks wait here until the wheel's thread puts them into their bucket
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private long tick;
+    private volatile boolean closed;
+
+    /**
+     * @param tickMillis Length of a tick, i.e. how late a task may run
+     * @param buckets Number of buckets, rounded up to a power of two; a turn of the wheel is buckets * tickMillis
+     * @param name Name of the wheel's thread
+     */
+    public HashedWheelTimer(long tickMillis, int buckets, String name) {
+        if (tickMillis < 1 || buckets < 1) {
+            throw new IllegalArgumentException("Tick length and bucket count must be positive");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new Bucket[Integer.highestOneBit(buckets * 2 - 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.worker = Thread.ofPlatform().name(name).daemon().start(this::run);
+    }
+
+    /**
+     * Run a task once the delay has passed
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (closed) {
+            throw new IllegalStateException("Timer is closed");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Tasks scheduled that have neither run nor been dropped after cancelling
+     */
+    public long getPending() {
+        return pending.get();
+    }
+
+    public int getBuckets() {
+        return wheel.length;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            long tickEnd = (tick + 1) * tickNanos;
+            long sleepNanos = tickEnd - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferAdded();
+            expire(wheel[(int) (tick & mask)], tickEnd);
+            tick++;
+        }
+    }
+
+    // Put new tasks into the bucket of the tick they are due in; tasks already due go into the current bucket
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long dueTick = Math.max(tick, (timeout.deadlineNanos + tickNanos - 1) / tickNanos - 1);
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket, long tickEnd) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.isCancelled()) {
+                pending.decrementAndGet();
+                timeout = bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= tickEnd) {
+                Timeout next = bucket.remove(timeout);
+                pending.decrementAndGet();
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable e) {
+                        // Keep the wheel turning for every other task
+                        System.out.println("Timer task failed: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                }
+                timeout = next;
+            } else {
+                timeout.remainingRounds--;
+                timeout = timeout.next;
+            }
+        }
+    }
+}
@@ -1,163 +1,412 @@
 package itawi.chessgame.service;
 
-import itawi.chessgame.core.board.Board;
+import itawi.chessgame.core.engine.Engine;
+import itawi.chessgame.core.engine.EngineMetrics;
+import itawi.chessgame.core.engine.EngineScheduler;
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.SearchFeatures;
+import itawi.chessgame.core.engine.SearchLimits;
+import itawi.chessgame.core.engine.SearchResult;
+import itawi.chessgame.core.engine.book.BookMove;
+import itawi.chessgame.core.engine.book.OpeningBook;
+import itawi.chessgame.core.engine.tablebase.Tablebase;
 import itawi.chessgame.core.game.Game;
 import itawi.chessgame.core.piece.Pawn;
 import itawi.chessgame.core.piece.Piece;
 import itawi.chessgame.core.util.Utils;
 import itawi.chessgame.dto.PieceDTO;
-import lombok.Getter;
-import org.springframework.context.annotation.Scope;
-import org.springframework.context.annotation.ScopedProxyMode;
+import jakarta.annotation.PreDestroy;
+import itawi.chessgame.core.timer.ChessTimer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Games hosted by this server, addressed by game ID, and the engine that plays in them.
+ * One instance serves every game: game state lives in the GameRegistry, moves run one at a time through
+ * each game's mailbox, and board and status reads are answered from the game's latest snapshot.
+ * Engines belong to the engine threads rather than to games, so their memory stays at
+ * engine threads * hash size however many games are hosted.
+ */
 @Service
-@Getter
-@Scope(value = WebApplicationContext.SCOPE_SESSION, proxyMode = ScopedProxyMode.TARGET_CLASS)
 public class ChessGameService {
-    private Game currentGame;
+    public static final long MAX_ANALYSIS_MILLIS = 60_000;
+    // Extra time before the event stream times out, so the final event can still be sent
+    private static final long ANALYSIS_STREAM_GRACE_MILLIS = 5_000;
+    // Time an engine move may wait for a free engine thread on top of its own search budget
+    private static final long ENGINE_MOVE_GRACE_MILLIS = 1_000;
+
+    private final GameRegistry registry;
+    private final EvaluatorFactory evaluatorFactory;
+    private final Tablebase tablebase;
+    private final OpeningBook book;
+    private final EngineScheduler scheduler;
+    private final EngineMetrics metrics;
+    private final SearchFeatures features;
+    // One engine per engine thread, created on the thread's first job
+    private final ThreadLocal<Engine> engines = ThreadLocal.withInitial(this::createEngine);
+    private final List<Engine> allEngines = new CopyOnWriteArrayList<>();
+
+    @Value("${chess.engine.ponder:true}")
+    private boolean ponderEnabled;
+
+    // The engine's search of a game, with the position it searched so the move is only played if nothing changed
+    private record EngineSearch(Engine engine, long positionKey, SearchResult result) {
+    }
+
+    public ChessGameService(GameRegistry registry, EvaluatorFactory evaluatorFactory, Tablebase tablebase,
+                            OpeningBook book, EngineScheduler scheduler, EngineMetrics metrics, SearchFeatures features) {
+        this.registry = registry;
+        this.evaluatorFactory = evaluatorFactory;
+        this.tablebase = tablebase;
+        this.book = book;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.features = features;
+        // A removed game must not keep an engine pondering on it
+        registry.addRemovalListener(entry -> {
+            Engine ponderEngine = entry.getPonderEngine();
+            if (ponderEngine != null) {
+                ponderEngine.cancelPondering(entry.getGame());
+            }
+        });
+    }
+
+    private Engine createEngine() {
+        Engine engine = new Engine(evaluatorFactory, tablebase);
+        engine.setBook(book);
+        engine.setMetrics(metrics);
+        engine.setFeatures(features);
+        allEngines.add(engine);
+        return engine;
+    }
 
-    public void newGame() {
-        this.currentGame = new Game();
+    /**
+     * Start a game without a clock
+     * @return the new game's ID
+     */
+    public String newGame() {
+        return startGame(new Game());
     }
 
     /**
      * Create a new game with specified time for each player
      *
      * @param timeMinutes Time in minutes for each player
+     * @return the new game's ID
+     */
+    public String newGame(int timeMinutes) {
+        return startGame(new Game(timeMinutes));
+    }
+
+    /**
+     * Create a new game with an increment or a delay on each move
+     *
+     * @param timeMinutes      Time in minutes for each player
+     * @param incrementSeconds Fischer increment added after each move
+     * @param delaySeconds     Bronstein delay: time spent on a move given back after it, up to this many seconds
+     * @return the new game's ID
      */
-    public void newGame(int timeMinutes) {
-        this.currentGame = new Game(timeMinutes);
+    public String newGame(int timeMinutes, int incrementSeconds, int delaySeconds) {
+        return startGame(new Game(new ChessTimer(TimeUnit.MINUTES.toMillis(timeMinutes),
+                TimeUnit.SECONDS.toMillis(incrementSeconds), TimeUnit.SECONDS.toMillis(delaySeconds))));
     }
 
-    public Map<String, Piece> getBoardState() {
-        return this.currentGame.getBoard().getBoardState();
+    private String startGame(Game game) {
+        if (!tablebase.isEmpty()) {
+            game.setDrawAdjudicator(g -> tablebase.probeWdl(Position.fromGame(g)) == Tablebase.DRAW);
+        }
+        String gameId = registry.register(game);
+        GameRegistry.Entry entry = registry.get(gameId);
+        // Records the move for the game's snapshots, and lets a wrong ponder guess be cancelled as soon as it is known
+        game.setMoveListener((from, to) -> {
+            entry.setLastMove(from + to);
+            Engine ponderEngine = entry.getPonderEngine();
+            if (ponderEngine != null && ponderEngine.isPonderingOn(game)) {
+                ponderEngine.onMovePlayed(from, to);
+            }
+        });
+        return gameId;
     }
 
-    public String getCurrentTurn() {
-        return this.currentGame.getCurrentTurn();
+    /**
+     * Stop hosting a game
+     * @throws itawi.chessgame.core.exception.GameNotFoundException if no game has this ID
+     */
+    public void deleteGame(String gameId) {
+        registry.get(gameId);
+        registry.remove(gameId);
     }
 
-    public boolean isGameOver() {
-        return this.currentGame.isGameOver();
+    // Don't leave ponder searches running once the server stops
+    @PreDestroy
+    public void shutdown() {
+        allEngines.forEach(Engine::stopPondering);
     }
 
-    public List<String> getValidMovesForPiece(String position) {
-        Piece piece = currentGame.getBoard().getPieceAt(position);
-        if (piece == null || !piece.getColor().equals(getCurrentTurn())) {
-            return List.of(); // No valid moves for empty square or opponent's piece
-        }
+    // Reads come from the game's latest snapshot and never wait for a move in progress
 
-        // Pass the actual Board instance instead of just the board state map
-        return piece.getPossibleMoves(currentGame.getBoard()).stream()
-                .filter(move -> isLegalMove(position, move))
-                .toList();
+    public List<PieceDTO> getBoardAsPieceDTOs(String gameId) {
+        return registry.snapshot(gameId).board();
     }
 
-    private boolean isLegalMove(String from, String to) {
-        // Create simulated board
-        Map<String, Piece> boardState = currentGame.getBoard().getBoardState();
-        Piece piece = boardState.get(from);
+    /**
+     * The game's latest snapshot, for reads that need several views of one moment, such as a body and its ETag
+     */
+    public GameSnapshot getSnapshot(String gameId) {
+        return registry.snapshot(gameId);
+    }
 
-        if (piece == null) {
-            return false;
-        }
+    public Map<String, Object> getGameStatus(String gameId) {
+        return registry.snapshot(gameId).currentStatus();
+    }
+
+    // Selecting a square does not change the game, so only a move attempt publishes a snapshot
+    public Map<String, Object> handleSquareClick(String gameId, String position, String selectedPosition) {
+        return registry.inspect(gameId, entry -> handleSquareClick(entry, position, selectedPosition));
+    }
 
-        // Simulate the move
-        Map<String, Piece> simulatedBoard = new HashMap<>(Map.copyOf(boardState));
-        simulatedBoard.remove(from);
-        simulatedBoard.put(to, piece);
+    /**
+     * Promote the pawn on a square
+     * @return the changed square and game status after the promotion; the delta has the same ply as the move
+     */
+    public Map<String, Object> promotePawn(String gameId, String position, String pieceType) {
+        return registry.withGame(gameId, entry -> {
+            Game game = entry.getGame();
+            GameSnapshot before = entry.getSnapshot();
+            game.promotePawn(position, pieceType);
+            GameSnapshot snapshot = entry.publish();
+            return Map.of(
+                    "delta", snapshot.deltaFrom(before),
+                    "gameStatus", snapshot.currentStatus()
+            );
+        });
+    }
 
-        // Check if the king is in check after the move
-        return !currentGame.getBoard().isKingInCheck(piece.getColor(), simulatedBoard);
+    public Map<String, Object> pauseTimer(String gameId) {
+        return registry.withGame(gameId, entry -> {
+            ChessTimer timer = entry.getGame().getTimer();
+            // Only pause if the game has started
+            if (timer.isTimerRunning()) {
+                timer.stopTimer();
+            }
+            return timerResponse(entry);
+        });
     }
 
-    public boolean makeMove(String fromPosition, String toPosition) {
-        return currentGame.makeMove(fromPosition, toPosition);
+    public Map<String, Object> resumeTimer(String gameId) {
+        return registry.withGame(gameId, entry -> {
+            // Only resume if the game is not over
+            if (!entry.getGame().isGameOver()) {
+                entry.getGame().getTimer().startTimer();
+            }
+            return timerResponse(entry);
+        });
     }
 
-    public void promotePawn(String position, String pieceType) {
-        currentGame.promotePawn(position, pieceType);
+    private Map<String, Object> timerResponse(GameRegistry.Entry entry) {
+        return Map.of(
+                "timerRunning", entry.getGame().getTimer().isTimerRunning(),
+                "gameStatus", entry.publish().currentStatus()
+        );
     }
 
-    public List<PieceDTO> getBoardAsPieceDTOs() {
-        Map<String, Piece> boardState = getBoardState();
-        return boardState.entrySet().stream()
-                .map(entry -> {
-                    Piece piece = entry.getValue();
-                    String position = entry.getKey();
-                    return new PieceDTO(
-                            position, // Use position as ID
-                            piece.getType().toString(),
-                            piece.getColor(),
-                            position
-                    );
-                })
+    /**
+     * Let the engine pick and play a move for the side to move, thinking within the time left on its clock.
+     * The search runs as a live-game job on the engine scheduler on a copy of the position, so the game stays
+     * available to other requests meanwhile; the move is only played if the game has not moved on since.
+     * Cancelling the result drops or stops the job without playing a move.
+     *
+     * @return The same response as a move made by clicking, plus the engine's move and evaluation
+     * @throws itawi.chessgame.core.engine.EngineBusyException if the engine has no room for the job
+     * @throws itawi.chessgame.core.exception.GameNotFoundException if no game has this ID
+     */
+    public CompletableFuture<Map<String, Object>> makeEngineMove(String gameId) {
+        long budget = registry.inspect(gameId, entry -> {
+            Game game = entry.getGame();
+            return game.isGameOver() ? -1 : Engine.limitsFor(game, Position.fromGame(game)).hardTimeMillis();
+        });
+        if (budget < 0) {
+            return CompletableFuture.completedFuture(noEngineMove(registry.snapshot(gameId)));
+        }
+
+        CompletableFuture<EngineSearch> search = scheduler.submit(EngineScheduler.Priority.LIVE_GAME,
+                budget + ENGINE_MOVE_GRACE_MILLIS, stop -> {
+                    Engine engine = engines.get();
+                    Position position = registry.inspect(gameId, entry -> {
+                        // Another engine thread may still be pondering on this game
+                        Engine ponderEngine = entry.getPonderEngine();
+                        if (ponderEngine != null && ponderEngine != engine) {
+                            ponderEngine.cancelPondering(entry.getGame());
+                        }
+                        return Position.fromGame(entry.getGame());
+                    });
+                    long key = position.getKey();
+                    SearchLimits limits = registry.inspect(gameId, entry -> Engine.limitsFor(entry.getGame(), position));
+                    return new EngineSearch(engine, key, engine.think(position, limits, stop));
+                });
+        return cancelling(search, search.thenApply(result -> registry.inspect(gameId, entry ->
+                Position.fromGame(entry.getGame()).getKey() == result.positionKey()
+                        ? playEngineMove(entry, result.engine(), result.result())
+                        : noEngineMove(entry.getSnapshot()))));
+    }
+
+    private static Map<String, Object> noEngineMove(GameSnapshot snapshot) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("moveSuccess", false);
+        response.put("gameStatus", snapshot.currentStatus());
+        return response;
+    }
+
+    private Map<String, Object> playEngineMove(GameRegistry.Entry entry, Engine engine, SearchResult result) {
+        Game game = entry.getGame();
+        if (result.bestMove() == Move.NONE) {
+            return noEngineMove(entry.getSnapshot());
+        }
+
+        int move = result.bestMove();
+        String from = Position.squareName(Move.from(move));
+        String to = Position.squareName(Move.to(move));
+
+        GameSnapshot before = entry.getSnapshot();
+        Map<String, Object> response = handleSquareClick(entry, to, from);
+        if (Boolean.TRUE.equals(response.get("moveSuccess")) && Move.isPromotion(move)) {
+            // The engine chooses its promotion piece itself instead of waiting for /promote
+            game.promotePawn(to, Move.promotionName(move));
+            response.remove("pawnPromotion");
+            response.remove("promotionPosition");
+            GameSnapshot snapshot = entry.publish();
+            response.put("delta", snapshot.deltaFrom(before));
+            response.put("gameStatus", snapshot.currentStatus());
+        }
+
+        response.put("engineMove", result.bestMoveUci());
+        response.put("score", result.score());
+        response.put("depth", result.depth());
+
+        // Think on the opponent's time about the reply the engine expects
+        if (ponderEnabled && Boolean.TRUE.equals(response.get("moveSuccess"))) {
+            engine.startPondering(game, result);
+            entry.setPonderEngine(engine);
+        }
+        return response;
+    }
+
+    /**
+     * Opening book moves for the game's position, heaviest first, with the share of games each is played in
+     */
+    public List<Map<String, Object>> getBookMoves(String gameId) {
+        List<BookMove> moves = book.moves(registry.inspect(gameId, entry -> Position.fromGame(entry.getGame())));
+        double total = moves.stream().mapToInt(BookMove::weight).sum();
+        return moves.stream()
+                .map(bookMove -> Map.<String, Object>of(
+                        "move", bookMove.uci(),
+                        "from", Position.squareName(Move.from(bookMove.move())),
+                        "to", Position.squareName(Move.to(bookMove.move())),
+                        "weight", bookMove.weight(),
+                        "probability", bookMove.weight() / total))
                 .toList();
     }
 
-    public Map<String, Object> getGameStatus() {
-        Map<String, Object> status = new HashMap<>();
-        status.put("currentTurn", getCurrentTurn());
-        status.put("isGameOver", isGameOver());
-
-        // Check for check, checkmate, stalemate
-        Board board = currentGame.getBoard();
-        String currentPlayer = getCurrentTurn();
-        boolean inCheck = board.isKingInCheck(currentPlayer, board.getBoardState());
-
-        status.put("inCheck", inCheck);
-
-        String timeoutPlayer = currentGame.getTimeoutPlayer();
-        // Add timer information
-        if (currentGame.getTimer() == null) {
-            status.put("timerRunning", false);
-            status.put("whiteTime", "00:00");
-            status.put("blackTime", "00:00");
-            status.put("result", "Game has not started yet");
-        } else {
-            String whiteTime = currentGame.getTimer().getFormattedTime("white");
-            String blackTime = currentGame.getTimer().getFormattedTime("black");
-            status.put("whiteTime", whiteTime);
-            status.put("blackTime", blackTime);
-            status.put("timerRunning", currentGame.getTimer().isTimerRunning());
+    /**
+     * Analyse the game's position and stream the results as server-sent events:
+     * an "analysis" event with the best lines after every completed depth, then a "done" event with the final lines.
+     * The search runs as an analysis job on the engine scheduler, behind live games, and stops as soon as
+     * the client closes the stream.
+     *
+     * @param lines      Number of principal variations
+     * @param timeMillis How long to analyse
+     */
+    public SseEmitter analyze(String gameId, int lines, long timeMillis) {
+        if (timeMillis < 1 || timeMillis > MAX_ANALYSIS_MILLIS) {
+            throw new IllegalArgumentException("Analysis time must be between 1 and " + MAX_ANALYSIS_MILLIS + " ms");
         }
+        Engine.checkAnalysisLines(lines);
+        Position position = registry.inspect(gameId, entry -> Position.fromGame(entry.getGame()));
+        SseEmitter emitter = new SseEmitter(timeMillis + ANALYSIS_STREAM_GRACE_MILLIS);
+
+        CompletableFuture<List<SearchResult>> analysis = scheduler.submit(EngineScheduler.Priority.ANALYSIS,
+                timeMillis + ANALYSIS_STREAM_GRACE_MILLIS, stop -> engines.get().analyzeNow(position, lines,
+                        SearchLimits.moveTime(timeMillis), stop,
+                        results -> sendAnalysisEvent(emitter, "analysis", results, stop)));
+        emitter.onCompletion(() -> analysis.cancel(true));
+        emitter.onTimeout(() -> analysis.cancel(true));
+        emitter.onError(error -> analysis.cancel(true));
+
+        analysis.whenComplete((results, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            sendAnalysisEvent(emitter, "done", results, new AtomicBoolean());
+            emitter.complete();
+        });
+        return emitter;
+    }
 
-        if (isGameOver()) {
-            if (timeoutPlayer != null) {
-                status.put("result", timeoutPlayer + " lost on time");
-            } else if (inCheck) {
-                status.put("result", (currentPlayer.equals("white") ? "Black" : "White") + " wins by checkmate");
-            } else if (currentGame.isPerpetualDraw()) {
-                status.put("result", "Perpetual draw! The game is a draw due to threefold repetition");
-            } else if (currentGame.getHalfMoveCounter() >= 100) {
-                status.put("result", "Fifty-move rule! The game is a draw");
-            } else if (currentGame.hasInsufficientMaterial()) {
-                status.put("result", "Draw due to insufficient material");
-            } else {
-                status.put("result", "Draw by stalemate");
+    // Cancelling the dependent result must also cancel the job it waits for
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<?> job, CompletableFuture<T> result) {
+        result.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                job.cancel(true);
             }
+        });
+        return result;
+    }
+
+    private static void sendAnalysisEvent(SseEmitter emitter, String name, List<SearchResult> results, AtomicBoolean stop) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(analysisEvent(results)));
+        } catch (IOException | IllegalStateException e) {
+            stop.set(true); // The client went away
         }
+    }
 
-        return status;
+    private static Map<String, Object> analysisEvent(List<SearchResult> results) {
+        Map<String, Object> event = new HashMap<>();
+        SearchResult best = results.isEmpty() ? null : results.get(0);
+        event.put("depth", best == null ? 0 : best.depth());
+        event.put("nodes", results.isEmpty() ? 0 : results.get(results.size() - 1).nodes());
+        event.put("elapsedMillis", results.isEmpty() ? 0 : results.get(results.size() - 1).elapsedMillis());
+
+        List<Map<String, Object>> lines = results.stream().map(result -> {
+            Map<String, Object> line = new HashMap<>();
+            line.put("move", result.bestMoveUci());
+            line.put("score", result.score());
+            line.put("mateIn", result.mateIn());
+            line.put("pv", Arrays.stream(result.principalVariation()).mapToObj(Move::toUci).toList());
+            return line;
+        }).toList();
+        event.put("lines", lines);
+        return event;
     }
 
-    public Map<String, Object> handleSquareClick(String position, String selectedPosition) {
+    private static Map<String, Object> handleSquareClick(GameRegistry.Entry entry, String position, String selectedPosition) {
+        Game game = entry.getGame();
         Map<String, Object> response = new HashMap<>();
 
         // If no square is selected or clicking the same square, select/deselect this square
         if (selectedPosition == null || selectedPosition.equals(position)) {
-            Piece piece = currentGame.getBoard().getPieceAt(position);
+            Piece piece = game.getBoard().getPieceAt(position);
 
             // Only allow selecting your own pieces
-            if (piece != null && piece.getColor().equals(getCurrentTurn())) {
+            if (piece != null && piece.getColor().equals(game.getCurrentTurn())) {
                 response.put("selectedPosition", position);
-                response.put("validMoves", getValidMovesForPiece(position));
+                // Legal moves are worked out once per published position
+                response.put("validMoves", entry.getSnapshot().legalMovesFrom(position));
             } else {
                 response.put("selectedPosition", null);
                 response.put("validMoves", List.of());
@@ -166,24 +415,27 @@ public class ChessGameService {
         // If a square is already selected, attempt to move there
         else {
             // Store the board state before the move to detect captured pieces
-            Map<String, Piece> boardStateBefore = new HashMap<>(currentGame.getBoard().getBoardState());
+            Map<String, Piece> boardStateBefore = new HashMap<>(game.getBoard().getBoardState());
 
             // Check if this might be an en passant move
             boolean isPotentialEnPassant = false;
-            Piece movingPiece = currentGame.getBoard().getPieceAt(selectedPosition);
-            String enPassantTarget = currentGame.getBoard().getEnPassantTarget();
+            Piece movingPiece = game.getBoard().getPieceAt(selectedPosition);
+            String enPassantTarget = game.getBoard().getEnPassantTarget();
 
             if (movingPiece instanceof Pawn && position.equals(enPassantTarget)) {
                 isPotentialEnPassant = true;
             }
 
-            boolean moveSuccess = makeMove(selectedPosition, position);
+            GameSnapshot before = entry.getSnapshot();
+            boolean moveSuccess = game.makeMove(selectedPosition, position);
             response.put("moveSuccess", moveSuccess);
             response.put("selectedPosition", null); // Clear selection after move attempt
+            GameSnapshot snapshot = entry.publish();
 
             if (moveSuccess) {
-                response.put("newBoardState", getBoardAsPieceDTOs());
-                response.put("gameStatus", getGameStatus());
+                // Only the squares the move changed; clients that missed a ply fetch the whole board
+                response.put("delta", snapshot.deltaFrom(before));
+                response.put("gameStatus", snapshot.currentStatus());
 
                 // Check for captured pieces by comparing board states
                 if (isPotentialEnPassant) {
@@ -211,7 +463,7 @@ public class ChessGameService {
                 }
 
                 // Check for pawn promotion
-                Piece movedPiece = currentGame.getBoard().getPieceAt(position);
+                Piece movedPiece = game.getBoard().getPieceAt(position);
                 if (movedPiece != null && movedPiece.getType().toString().equals("PAWN")) {
                     int rank = position.charAt(1) - '0';
                     if ((movedPiece.getColor().equals("white") && rank == 8) ||
@@ -0,0 +1,94 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.exception.GameNotFoundException;
+import itawi.chessgame.core.timer.ChessTimer;
+import itawi.chessgame.core.timer.HashedWheelTimer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ends games on time as soon as a flag falls, instead of when a player next tries to move or polls the status.
+ * Every game whose clock is running has its flag-fall deadline on a hashed-wheel timer; each published snapshot
+ * moves the deadline, and a game that is paused, over or removed drops it. A single thread watches every clock.
+ * When a deadline passes, the game is checked on its mailbox and, if the flag fell, published as lost on time,
+ * so connected clients hear about it at once.
+ */
+@Component
+public class FlagFallMonitor {
+
+    private final GameRegistry registry;
+    private final HashedWheelTimer timer;
+    // Games whose flag fell are checked off the timer's thread, which only watches the clocks
+    private final ExecutorService checks = Executors.newVirtualThreadPerTaskExecutor();
+    // The pending deadline of each game whose clock is running
+    private final Map<String, HashedWheelTimer.Timeout> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * @param tickMillis How late a flag fall may be noticed
+     * @param wheelSize  Ticks in one turn of the wheel; deadlines further away wait for extra turns
+     */
+    public FlagFallMonitor(GameRegistry registry,
+                           @Value("${chess.games.flag-fall.tick-millis:10}") long tickMillis,
+                           @Value("${chess.games.flag-fall.wheel-size:1024}") int wheelSize) {
+        this.registry = registry;
+        this.timer = new HashedWheelTimer(tickMillis, wheelSize, "flag-fall");
+        registry.addPublishListener((entry, snapshot) -> watch(entry.getId(), snapshot));
+        registry.addRemovalListener(entry -> unwatch(entry.getId()));
+    }
+
+    /**
+     * Number of games whose clock is being watched
+     */
+    public int getWatched() {
+        return deadlines.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.close();
+        checks.shutdownNow();
+    }
+
+    // Runs on the game's mailbox, so the deadline always follows the latest snapshot
+    private void watch(String gameId, GameSnapshot snapshot) {
+        ChessTimer.State clock = snapshot.clock();
+        if (clock == null || !clock.running() || Boolean.TRUE.equals(snapshot.status().get("isGameOver"))) {
+            unwatch(gameId);
+            return;
+        }
+        long remaining = clock.remainingMillis(clock.activeTimer());
+        HashedWheelTimer.Timeout deadline = timer.schedule(() -> checks.execute(() -> check(gameId)), remaining);
+        HashedWheelTimer.Timeout previous = deadlines.put(gameId, deadline);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void unwatch(String gameId) {
+        HashedWheelTimer.Timeout previous = deadlines.remove(gameId);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void check(String gameId) {
+        try {
+            registry.inspect(gameId, entry -> {
+                if (entry.getGame().checkFlagFall()) {
+                    entry.publish(); // Game over, which also drops the deadline
+                } else {
+                    watch(gameId, entry.getSnapshot()); // Woken a little early by the system clock
+                }
+                return null;
+            });
+        } catch (GameNotFoundException e) {
+            unwatch(gameId); // Removed meanwhile
+        }
+    }
+}
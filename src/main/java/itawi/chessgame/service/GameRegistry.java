@@ -0,0 +1,253 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.engine.Engine;
+import itawi.chessgame.core.exception.GameNotFoundException;
+import itawi.chessgame.core.game.Game;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Every game hosted by this server, keyed by game ID.
+ * Each game has a single writer: commands on a game are queued in its lock-free mailbox and run one at a time,
+ * in arrival order, by whichever caller finds the mailbox idle; the other callers wait only for their own result.
+ * Games never share a lock, so throughput grows with the number of games. After each command the game's board
+ * and status are published as an immutable GameSnapshot, which reads use without entering the mailbox.
+ * Games nobody has touched for the idle timeout are removed by a background sweep.
+ */
+@Component
+public class GameRegistry {
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * A hosted game and the state kept beside it
+     */
+    @Getter
+    public static final class Entry {
+        private final String id;
+        private final Game game;
+        private volatile long lastAccessMillis;
+        // Engine that pondered after its last move in this game, if any
+        @Setter
+        private volatile Engine ponderEngine;
+        private volatile GameSnapshot snapshot;
+        // Squares of the last move played, recorded by the game's move listener for the next snapshot
+        @Setter
+        private volatile String lastMove;
+
+        @Getter(AccessLevel.NONE)
+        private final GameRegistry registry;
+        @Getter(AccessLevel.NONE)
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        @Getter(AccessLevel.NONE)
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // The thread running the game's commands, so a command can issue another one without queueing behind itself
+        @Getter(AccessLevel.NONE)
+        private volatile Thread drainer;
+        @Getter(AccessLevel.NONE)
+        private boolean publishedByCommand;
+
+        private Entry(GameRegistry registry, String id, Game game) {
+            this.registry = registry;
+            this.id = id;
+            this.game = game;
+            this.lastAccessMillis = System.currentTimeMillis();
+            this.snapshot = GameSnapshot.of(game, 0, null);
+        }
+
+        /**
+         * Publish the game as it is now, for a command that wants the new snapshot in its response.
+         * Only call this from a command; commands that do not call it are published when they finish.
+         */
+        public GameSnapshot publish() {
+            publishedByCommand = true;
+            GameSnapshot published = GameSnapshot.of(game, snapshot.version() + 1, lastMove);
+            snapshot = published;
+            registry.publishListeners.forEach(listener -> listener.accept(this, published));
+            return published;
+        }
+
+        private <T> T execute(Function<Entry, T> command, boolean changesGame) {
+            if (drainer == Thread.currentThread()) {
+                return command.apply(this);
+            }
+            CompletableFuture<T> result = new CompletableFuture<>();
+            mailbox.add(() -> {
+                publishedByCommand = false;
+                try {
+                    result.complete(command.apply(this));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+                if (changesGame && !publishedByCommand) {
+                    publish();
+                }
+            });
+            drain();
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        // Run queued commands until the mailbox is empty; checking again after letting go means none is left behind
+        private void drain() {
+            while (!mailbox.isEmpty() && draining.compareAndSet(false, true)) {
+                drainer = Thread.currentThread();
+                try {
+                    Runnable command;
+                    while ((command = mailbox.poll()) != null) {
+                        command.run();
+                    }
+                } finally {
+                    drainer = null;
+                    draining.set(false);
+                }
+            }
+        }
+    }
+
+    private final Map<String, Entry> games = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final ScheduledExecutorService sweeper;
+    // Called with every entry removed, e.g. to stop a ponder search on it
+    private final List<Consumer<Entry>> removalListeners = new CopyOnWriteArrayList<>();
+    // Called on the game's mailbox with every snapshot published, in order, e.g. to push it to clients
+    private final List<BiConsumer<Entry, GameSnapshot>> publishListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param idleTimeoutMinutes Minutes after which an untouched game is removed; 0 keeps games until deleted
+     */
+    public GameRegistry(@Value("${chess.games.idle-timeout-minutes:60}") long idleTimeoutMinutes) {
+        if (idleTimeoutMinutes < 0) {
+            throw new IllegalArgumentException("The idle timeout must not be negative");
+        }
+        this.idleTimeoutMillis = TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+        if (idleTimeoutMillis > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("game-sweeper").factory());
+            long interval = Math.min(SWEEP_INTERVAL_MILLIS, idleTimeoutMillis);
+            sweeper.scheduleWithFixedDelay(() -> removeIdle(idleTimeoutMillis), interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    public void addRemovalListener(Consumer<Entry> listener) {
+        removalListeners.add(listener);
+    }
+
+    public void addPublishListener(BiConsumer<Entry, GameSnapshot> listener) {
+        publishListeners.add(listener);
+    }
+
+    /**
+     * Host a game under a new random ID
+     * @return the game's ID
+     */
+    public String register(Game game) {
+        String id = UUID.randomUUID().toString();
+        games.put(id, new Entry(this, id, game));
+        return id;
+    }
+
+    /**
+     * @throws GameNotFoundException if no game has this ID
+     */
+    public Entry get(String id) {
+        Entry entry = id == null ? null : games.get(id);
+        if (entry == null) {
+            throw new GameNotFoundException(id);
+        }
+        entry.lastAccessMillis = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * Run a command on a game through its mailbox, so no other command runs on the game meanwhile,
+     * then publish the game's new snapshot
+     * @throws GameNotFoundException if no game has this ID
+     */
+    public <T> T withGame(String id, Function<Entry, T> command) {
+        return get(id).execute(command, true);
+    }
+
+    /**
+     * Read a game through its mailbox without publishing a snapshot, for reads that need the live game
+     * rather than its snapshot, such as copying its position for the engine
+     * @throws GameNotFoundException if no game has this ID
+     */
+    public <T> T inspect(String id, Function<Entry, T> read) {
+        return get(id).execute(read, false);
+    }
+
+    /**
+     * The game's latest published snapshot, without waiting for commands in progress
+     * @throws GameNotFoundException if no game has this ID
+     */
+    public GameSnapshot snapshot(String id) {
+        return get(id).getSnapshot();
+    }
+
+    /**
+     * Stop hosting a game
+     * @return whether the game existed
+     */
+    public boolean remove(String id) {
+        Entry entry = id == null ? null : games.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        removalListeners.forEach(listener -> listener.accept(entry));
+        return true;
+    }
+
+    /**
+     * Remove every game not accessed for the given time
+     * @return the number of games removed
+     */
+    public int removeIdle(long idleMillis) {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int removed = 0;
+        for (Entry entry : games.values()) {
+            if (entry.lastAccessMillis < cutoff && remove(entry.id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
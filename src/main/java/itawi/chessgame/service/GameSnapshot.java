@@ -0,0 +1,263 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.board.Board;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.game.Game;
+import itawi.chessgame.core.piece.Piece;
+import itawi.chessgame.core.timer.ChessTimer;
+import itawi.chessgame.dto.PieceDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of a game's board and status, published after every command on the game.
+ * Reads are served from the latest snapshot, so they never wait for a command and never see a half-made move.
+ * Clocks keep running between commands, so the times are worked out when the status is read.
+ *
+ * @param version   Number of snapshots published for the game before this one
+ * @param lastMove  Squares of the last move played, such as "e2e4", or null before the first move
+ * @param clock     State of the game's clock, or null for games without one
+ * @param boardHash Hash of the pieces on the board, which with the ply identifies the board for ETags
+ */
+public record GameSnapshot(long version, String lastMove, List<PieceDTO> board, Map<String, Object> status,
+                           ChessTimer.State clock, long boardHash) {
+
+    // Piece types in the order of their codes in the packed board, from 1
+    private static final List<String> PACKED_TYPES = List.of("PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING");
+
+    static GameSnapshot of(Game game, long version, String lastMove) {
+        ChessTimer.State clock = game.getTimer() == null ? null : game.getTimer().getState();
+        List<PieceDTO> board = boardOf(game);
+        // FNV-1a over the packed board
+        long hash = 0xcbf29ce484222325L;
+        for (byte squares : pack(board)) {
+            hash = (hash ^ (squares & 0xff)) * 0x100000001b3L;
+        }
+        return new GameSnapshot(version, lastMove, board, Map.copyOf(statusOf(game)), clock, hash);
+    }
+
+    /**
+     * Strong ETag of the board, the same for as long as the pieces stand where they are
+     * @param format Distinguishes the encodings of the board, such as "json" or "fen"
+     */
+    public String boardTag(String format) {
+        return "\"" + status.get("ply") + "-" + Long.toHexString(boardHash) + "-" + format + "\"";
+    }
+
+    /**
+     * Strong ETag of the status: it changes with every snapshot, and every second while a clock runs
+     * @param nowNanos System.nanoTime the status is read at, the same as given to currentStatus
+     */
+    public String statusTag(long nowNanos) {
+        String tag = String.valueOf(version);
+        if (clock != null && clock.running()) {
+            tag += "-" + clock.remainingMillis(clock.activeTimer(), nowNanos) / 1000;
+        }
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * The board as the piece placement field of a FEN, e.g. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR"
+     */
+    public String placement() {
+        char[] squares = new char[64];
+        for (PieceDTO piece : board) {
+            char letter = piece.getType().equals("KNIGHT") ? 'n' : Character.toLowerCase(piece.getType().charAt(0));
+            int file = piece.getPosition().charAt(0) - 'a';
+            int rank = piece.getPosition().charAt(1) - '1';
+            squares[rank * 8 + file] = piece.getColor().equals("white") ? Character.toUpperCase(letter) : letter;
+        }
+        StringBuilder placement = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                char square = squares[rank * 8 + file];
+                if (square == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    placement.append(empty);
+                    empty = 0;
+                }
+                placement.append(square);
+            }
+            if (empty > 0) {
+                placement.append(empty);
+            }
+            if (rank > 0) {
+                placement.append('/');
+            }
+        }
+        return placement.toString();
+    }
+
+    /**
+     * The board packed into 32 bytes, two squares per byte, for clients that want the smallest payload.
+     * Squares go a1, b1 .. h1, a2 .. h8, the even square of each pair in the low four bits. Each square holds 0 if
+     * empty, else a piece code of 1 to 6 for pawn, knight, bishop, rook, queen and king, plus 8 for black.
+     */
+    public byte[] packed() {
+        return pack(board);
+    }
+
+    private static byte[] pack(List<PieceDTO> board) {
+        byte[] packed = new byte[32];
+        for (PieceDTO piece : board) {
+            int square = (piece.getPosition().charAt(1) - '1') * 8 + piece.getPosition().charAt(0) - 'a';
+            int code = PACKED_TYPES.indexOf(piece.getType()) + 1 + (piece.getColor().equals("black") ? 8 : 0);
+            packed[square / 2] |= (byte) (square % 2 == 0 ? code : code << 4);
+        }
+        return packed;
+    }
+
+    /**
+     * The squares whose piece changed since an earlier snapshot, for responses that do not resend the whole board.
+     * A move changes two to four squares: its from and to squares, a pawn taken en passant, a castling rook.
+     *
+     * @return "ply", the number of moves played in this snapshot, and "changes", each changed square in a1..h8
+     * order with the type and color of the piece now on it, or with the square alone if it was emptied
+     */
+    public Map<String, Object> deltaFrom(GameSnapshot previous) {
+        Map<String, PieceDTO> before = bySquare(previous.board);
+        Map<String, PieceDTO> after = bySquare(board);
+        List<Map<String, String>> changes = new ArrayList<>();
+        for (int rank = 1; rank <= 8; rank++) {
+            for (char file = 'a'; file <= 'h'; file++) {
+                String square = "" + file + rank;
+                PieceDTO old = before.get(square);
+                PieceDTO now = after.get(square);
+                if (now == null && old != null) {
+                    changes.add(Map.of("square", square));
+                } else if (now != null && (old == null || !old.getType().equals(now.getType())
+                        || !old.getColor().equals(now.getColor()))) {
+                    changes.add(Map.of("square", square, "type", now.getType(), "color", now.getColor()));
+                }
+            }
+        }
+        return Map.of("ply", status.get("ply"), "changes", changes);
+    }
+
+    private static Map<String, PieceDTO> bySquare(List<PieceDTO> pieces) {
+        Map<String, PieceDTO> squares = new HashMap<>();
+        pieces.forEach(piece -> squares.put(piece.getPosition(), piece));
+        return squares;
+    }
+
+    /**
+     * Destinations of the legal moves from a square, for the side to move
+     */
+    public List<String> legalMovesFrom(String square) {
+        String destinations = ((Map<?, ?>) status.get("legalMoves")).get(square) instanceof String found ? found : "";
+        List<String> squares = new ArrayList<>();
+        for (int i = 0; i + 1 < destinations.length(); i += 2) {
+            squares.add(destinations.substring(i, i + 2));
+        }
+        return squares;
+    }
+
+    /**
+     * The game status with the clocks as they are now
+     */
+    public Map<String, Object> currentStatus() {
+        return currentStatus(System.nanoTime());
+    }
+
+    /**
+     * The game status with the clocks as they were at the given System.nanoTime
+     */
+    public Map<String, Object> currentStatus(long now) {
+        if (clock == null) {
+            return status;
+        }
+        Map<String, Object> current = new HashMap<>(status);
+        current.put("whiteTime", ChessTimer.formatTime(clock.remainingMillis("white", now)));
+        current.put("blackTime", ChessTimer.formatTime(clock.remainingMillis("black", now)));
+        return current;
+    }
+
+    static List<PieceDTO> boardOf(Game game) {
+        Map<String, Piece> boardState = game.getBoard().getBoardState();
+        return boardState.entrySet().stream()
+                .map(entry -> {
+                    Piece piece = entry.getValue();
+                    String position = entry.getKey();
+                    return new PieceDTO(
+                            position, // Use position as ID
+                            piece.getType().toString(),
+                            piece.getColor(),
+                            position
+                    );
+                })
+                .toList();
+    }
+
+    static Map<String, Object> statusOf(Game game) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("currentTurn", game.getCurrentTurn());
+        status.put("isGameOver", game.isGameOver());
+        status.put("ply", game.getPly());
+        status.put("legalMoves", game.isGameOver() ? Map.of() : legalMovesOf(game));
+
+        // Check for check, checkmate, stalemate
+        Board board = game.getBoard();
+        String currentPlayer = game.getCurrentTurn();
+        boolean inCheck = board.isKingInCheck(currentPlayer, board.getBoardState());
+
+        status.put("inCheck", inCheck);
+
+        String timeoutPlayer = game.getTimeoutPlayer();
+        // Add timer information
+        if (game.getTimer() == null) {
+            status.put("timerRunning", false);
+            status.put("whiteTime", "00:00");
+            status.put("blackTime", "00:00");
+            status.put("result", "Game has not started yet");
+        } else {
+            String whiteTime = game.getTimer().getFormattedTime("white");
+            String blackTime = game.getTimer().getFormattedTime("black");
+            status.put("whiteTime", whiteTime);
+            status.put("blackTime", blackTime);
+            status.put("timerRunning", game.getTimer().isTimerRunning());
+        }
+
+        if (game.isGameOver()) {
+            if (timeoutPlayer != null) {
+                status.put("result", timeoutPlayer + " lost on time");
+            } else if (game.isAdjudicatedDraw()) {
+                status.put("result", "Draw by tablebase adjudication");
+            } else if (inCheck) {
+                status.put("result", (currentPlayer.equals("white") ? "Black" : "White") + " wins by checkmate");
+            } else if (game.isPerpetualDraw()) {
+                status.put("result", "Perpetual draw! The game is a draw due to threefold repetition");
+            } else if (game.getHalfMoveCounter() >= 100) {
+                status.put("result", "Fifty-move rule! The game is a draw");
+            } else if (game.hasInsufficientMaterial()) {
+                status.put("result", "Draw due to insufficient material");
+            } else {
+                status.put("result", "Draw by stalemate");
+            }
+        }
+
+        return status;
+    }
+
+    // Every legal move of the side to move from one pass of the engine's move generator, as each from square with
+    // its destinations run together, e.g. "g1" -> "f3h3"; the four promotions of a pawn share one destination
+    static Map<String, String> legalMovesOf(Game game) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(Position.fromGame(game), moves);
+        Map<String, String> legalMoves = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String to = Position.squareName(Move.to(moves[i]));
+            legalMoves.merge(Position.squareName(Move.from(moves[i])), to,
+                    (destinations, added) -> destinations.contains(added) ? destinations : destinations + added);
+        }
+        return Map.copyOf(legalMoves);
+    }
+}
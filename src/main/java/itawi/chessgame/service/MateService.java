@@ -0,0 +1,59 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.engine.EngineScheduler;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.mate.MateResult;
+import itawi.chessgame.core.engine.mate.MateSolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mate-in-N queries on arbitrary positions, independent of any game.
+ * Solving runs as analysis jobs on the engine scheduler. Each engine thread keeps its own solver,
+ * so memory stays at engine threads * hash size however many requests arrive.
+ */
+@Service
+public class MateService {
+    private final EngineScheduler scheduler;
+    private final ThreadLocal<MateSolver> solvers;
+    private final long maxNodes;
+    private final long deadlineMillis;
+
+    public MateService(EngineScheduler scheduler,
+                       @Value("${chess.engine.mate.hash-mb:16}") int hashMb,
+                       @Value("${chess.engine.mate.max-nodes:2000000}") long maxNodes,
+                       @Value("${chess.engine.mate.deadline-millis:10000}") long deadlineMillis) {
+        this.scheduler = scheduler;
+        this.solvers = ThreadLocal.withInitial(() -> new MateSolver(hashMb));
+        this.maxNodes = maxNodes;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Look for a forced mate for the side to move. A search cut short by the deadline reports UNKNOWN.
+     * @param fen Position to solve
+     * @param maxMoves Longest mate to look for
+     * @throws IllegalArgumentException if the FEN or the mate length is invalid
+     * @throws itawi.chessgame.core.engine.EngineBusyException if the engine has no room for the job
+     */
+    public CompletableFuture<Map<String, Object>> findMate(String fen, int maxMoves) {
+        Position position = Position.fromFen(fen);
+        if (maxMoves < 1 || maxMoves > MateSolver.MAX_MOVES) {
+            throw new IllegalArgumentException("Mate length must be between 1 and " + MateSolver.MAX_MOVES + " moves");
+        }
+        return scheduler.submit(EngineScheduler.Priority.ANALYSIS, deadlineMillis, stop -> {
+            MateResult result = solvers.get().solve(position, maxMoves, maxNodes, stop);
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", result.status().name());
+            response.put("mateIn", result.mateIn());
+            response.put("moves", result.movesUci());
+            response.put("nodes", result.nodes());
+            response.put("elapsedMillis", result.elapsedMillis());
+            return response;
+        });
+    }
+}
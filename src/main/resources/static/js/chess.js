@@ -5,6 +5,11 @@ document.addEventListener("DOMContentLoaded", () => {
     let currentTurn = "white"
     let gameOver = false
     let promotionPosition = null
+    // The board as last drawn and the ply it shows, so move responses only need the squares that changed
+    let boardPieces = []
+    let boardPly = 0
+    // Legal moves of the side to move, each from square with its destinations run together, e.g. {g1: "f3h3"}
+    let legalMoves = null
 
     // Function to add a move to the history
     function addMoveToHistory(notation) {
@@ -182,6 +187,7 @@ document.addEventListener("DOMContentLoaded", () => {
             console.error("Expected pieces to be an array")
             return
         }
+        boardPieces = pieces
 
         // Clear pieces
         document.querySelectorAll(".piece").forEach((piece) => {
@@ -256,6 +262,12 @@ document.addEventListener("DOMContentLoaded", () => {
 
         currentTurn = status.currentTurn || "white"
         gameOver = Boolean(status.isGameOver)
+        if (typeof status.ply === "number") {
+            boardPly = status.ply
+        }
+        if (status.legalMoves) {
+            legalMoves = status.legalMoves
+        }
 
         // Update turn display
         statusDisplay.textContent = `Current Turn: ${currentTurn.charAt(0).toUpperCase() + currentTurn.slice(1)}`
@@ -280,15 +292,135 @@ document.addEventListener("DOMContentLoaded", () => {
         }
     }
 
+    // Pieces as sent by the board endpoint, from the piece placement field of a FEN
+    function piecesFromPlacement(placement) {
+        const types = {p: "PAWN", n: "KNIGHT", b: "BISHOP", r: "ROOK", q: "QUEEN", k: "KING"}
+        const pieces = []
+        placement.split("/").forEach((row, index) => {
+            const rank = 8 - index
+            let file = 0
+            for (const letter of row) {
+                if (letter >= "1" && letter <= "8") {
+                    file += Number(letter)
+                    continue
+                }
+                const position = String.fromCharCode(97 + file) + rank
+                const color = letter === letter.toUpperCase() ? "white" : "black"
+                pieces.push({id: position, type: types[letter.toLowerCase()], color, position})
+                file++
+            }
+        })
+        return pieces
+    }
+
+    // Apply the squares a move or promotion changed; a delta for a later ply than expected means one was missed,
+    // so the whole board is fetched again, and one for an earlier ply was already drawn from the game socket
+    async function applyDelta(delta, expectedPly) {
+        if (!delta || delta.ply < expectedPly) return
+        if (delta.ply > expectedPly || boardPieces.length === 0) {
+            await resyncBoard()
+            return
+        }
+        const pieces = new Map(boardPieces.map((piece) => [piece.position, piece]))
+        delta.changes.forEach((change) => {
+            if (change.type) {
+                pieces.set(change.square, { id: change.square, position: change.square, type: change.type, color: change.color })
+            } else {
+                pieces.delete(change.square)
+            }
+        })
+        updateBoard([...pieces.values()])
+    }
+
+    async function resyncBoard() {
+        const [boardResponse, statusResponse] = await Promise.all([
+            fetch(`/api/v1/chess/games/${window.chessGameId}/board`, {
+                headers: { Accept: "application/octet-stream" },
+            }),
+            fetch(`/api/v1/chess/games/${window.chessGameId}/status`),
+        ])
+        if (!boardResponse.ok || !statusResponse.ok) {
+            throw new Error(`HTTP error! status: ${boardResponse.ok ? statusResponse.status : boardResponse.status}`)
+        }
+        updateBoard(piecesFromPacked(await boardResponse.arrayBuffer()))
+        updateGameStatus(await statusResponse.json())
+    }
+
+    // Receive moves, status and clocks as they happen instead of polling for them
+    let gameSocket = null
+    function connectGameSocket(gameId) {
+        if (gameSocket) {
+            gameSocket.close()
+        }
+        // A new game: wait for its sync frame or a full fetch before applying deltas
+        boardPieces = []
+        boardPly = 0
+        legalMoves = null
+        window.chessSocketOpen = false
+        const protocol = window.location.protocol === "https:" ? "wss:" : "ws:"
+        const socket = new WebSocket(`${protocol}//${window.location.host}/api/v1/chess/games/${gameId}/ws`)
+        gameSocket = socket
+
+        socket.onopen = () => {
+            window.chessSocketOpen = true
+        }
+        socket.onclose = () => {
+            if (gameSocket === socket) {
+                window.chessSocketOpen = false
+            }
+        }
+        socket.onmessage = (event) => {
+            if (gameSocket !== socket || gameId !== window.chessGameId) return
+            const frame = JSON.parse(event.data)
+            if (frame.type === "clock") {
+                if (typeof updateTimers === "function") {
+                    updateTimers(frame)
+                }
+                return
+            }
+            updateBoard(piecesFromPlacement(frame.board))
+            updateGameStatus(frame.status)
+            if (typeof updateTimers === "function") {
+                updateTimers(frame.status)
+            }
+        }
+    }
+    window.connectGameSocket = connectGameSocket
+
+    // Pieces from the 32-byte board: a 4-bit code per square from a1 to h8, the even square in the low bits,
+    // 0 for empty, 1 to 6 for pawn, knight, bishop, rook, queen and king, plus 8 for black
+    function piecesFromPacked(buffer) {
+        const types = [null, "PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"]
+        const bytes = new Uint8Array(buffer)
+        const pieces = []
+        for (let square = 0; square < 64; square++) {
+            const code = (bytes[square >> 1] >> ((square & 1) * 4)) & 0xf
+            if (code === 0) continue
+            const position = String.fromCharCode(97 + (square % 8)) + (Math.floor(square / 8) + 1)
+            pieces.push({id: position, type: types[code & 7], color: code & 8 ? "black" : "white", position})
+        }
+        return pieces
+    }
+    window.piecesFromPacked = piecesFromPacked
+
     // Handle square click
     async function handleSquareClick(position) {
         if (gameOver || !position) return;
 
+        // Select pieces from the legal-move map without asking the server; only moves are sent
+        if (legalMoves && !(selectedSquare && validMoves.includes(position))) {
+            const destinations = legalMoves[position] || "";
+            selectedSquare = destinations ? position : null;
+            validMoves = destinations.match(/../g) || [];
+            highlightSquares(validMoves);
+            return;
+        }
+
         try {
             // Store the source square before making the move
             const sourceSquare = selectedSquare;
 
-            const response = await fetch("/api/v1/chess/square-click", {
+            const response = await fetch(`/api/v1/chess/games/${window.chessGameId}/square-click`, {
                 method: "POST",
                 headers: {
                     "Content-Type": "application/json",
@@ -316,12 +448,13 @@ document.addEventListener("DOMContentLoaded", () => {
             if (data.moveSuccess) {
                 let toPiece = null;
 
-                if (data.newBoardState) {
+                if (data.delta) {
                     // Find the piece that moved to the destination
-                    toPiece = data.newBoardState.find((piece) => piece.position === position);
+                    const change = data.delta.changes.find((square) => square.square === position);
+                    toPiece = change && change.type ? { type: change.type, color: change.color } : null;
 
-                    // Update the board with the new state
-                    updateBoard(data.newBoardState || []);
+                    // Update the squares the move changed
+                    await applyDelta(data.delta, boardPly + 1);
                     updateGameStatus(data.gameStatus || {});
 
                     // Create notation for the move history with colored piece symbols
@@ -394,7 +527,7 @@ document.addEventListener("DOMContentLoaded", () => {
         if (!promotionPosition || !pieceType || !promotionModal) return
 
         try {
-            const response = await fetch("/api/v1/chess/promote", {
+            const response = await fetch(`/api/v1/chess/games/${window.chessGameId}/promote`, {
                 method: "POST",
                 headers: {
                     "Content-Type": "application/json",
@@ -411,8 +544,8 @@ document.addEventListener("DOMContentLoaded", () => {
 
             const data = await response.json()
 
-            // Update board after promotion
-            updateBoard(data.board || [])
+            // Update the promoted square; a promotion belongs to the ply of its move
+            await applyDelta(data.delta, boardPly)
             updateGameStatus(data.gameStatus || {})
 
             // Close promotion modal
@@ -433,7 +566,7 @@ document.addEventListener("DOMContentLoaded", () => {
     async function startNewGame() {
         try {
             console.log("Starting new game...")
-            const newGameResponse = await fetch("/api/v1/chess/new-game", {
+            const newGameResponse = await fetch("/api/v1/chess/games", {
                 method: "POST",
             })
 
@@ -441,19 +574,24 @@ document.addEventListener("DOMContentLoaded", () => {
                 console.error(`Failed to start new game: ${newGameResponse.status} ${newGameResponse.statusText}`)
                 throw new Error(`HTTP error! status: ${newGameResponse.status}`)
             }
-            console.log("New game created successfully")
+            // Every other request addresses the game by its ID
+            window.chessGameId = (await newGameResponse.json()).gameId
+            console.log("New game created successfully:", window.chessGameId)
+            connectGameSocket(window.chessGameId)
 
             console.log("Fetching board data...")
-            const boardResponse = await fetch("/api/v1/chess/board")
+            const boardResponse = await fetch(`/api/v1/chess/games/${window.chessGameId}/board`, {
+                headers: { Accept: "application/octet-stream" },
+            })
             if (!boardResponse.ok) {
                 console.error(`Failed to get board: ${boardResponse.status} ${boardResponse.statusText}`)
                 throw new Error(`HTTP error! status: ${boardResponse.status}`)
             }
-            const boardData = await boardResponse.json()
+            const boardData = piecesFromPacked(await boardResponse.arrayBuffer())
             console.log("Board data received:", boardData)
 
             console.log("Fetching game status...")
-            const statusResponse = await fetch("/api/v1/chess/status")
+            const statusResponse = await fetch(`/api/v1/chess/games/${window.chessGameId}/status`)
             if (!statusResponse.ok) {
                 console.error(`Failed to get status: ${statusResponse.status} ${statusResponse.statusText}`)
                 throw new Error(`HTTP error! status: ${statusResponse.status}`)
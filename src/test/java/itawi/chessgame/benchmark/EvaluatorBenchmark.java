@@ -0,0 +1,66 @@
+package itawi.chessgame.benchmark;
+
+import itawi.chessgame.core.engine.ClassicalEvaluator;
+import itawi.chessgame.core.engine.Evaluator;
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.nnue.NnueEvaluator;
+import itawi.chessgame.core.engine.nnue.NnueNetwork;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the classical and NNUE evaluators, the way the search calls them:
+ * one move is made, the position evaluated and the move taken back.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=itawi.chessgame.benchmark.EvaluatorBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EvaluatorBenchmark {
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private Position position;
+    private Evaluator classical;
+    private Evaluator nnue;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private int count;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        position = Position.fromFen(MIDDLEGAME);
+        classical = new ClassicalEvaluator();
+        nnue = new NnueEvaluator(NnueNetwork.random(1));
+        count = MoveGenerator.generateLegalMoves(position, moves);
+    }
+
+    @Benchmark
+    public int classicalAfterMove() {
+        return evaluateAfterMove(classical);
+    }
+
+    @Benchmark
+    public int nnueAfterMove() {
+        return evaluateAfterMove(nnue);
+    }
+
+    private int evaluateAfterMove(Evaluator evaluator) {
+        int move = moves[next++ % count];
+        position.makeMove(move);
+        int score = evaluator.evaluate(position);
+        position.unmakeMove();
+        return score;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EvaluatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
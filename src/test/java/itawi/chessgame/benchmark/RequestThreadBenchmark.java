@@ -0,0 +1,153 @@
+package itawi.chessgame.benchmark;
+
+import itawi.chessgame.ChessGameApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request latency with Tomcat on platform threads and on virtual threads (spring.threads.virtual.enabled).
+ * Each simulated player starts a game, plays an opening line by square clicks, polls the status after every move
+ * and deletes the game; the number of players grows level by level. For each level the latency percentiles are
+ * printed, and for each mode the most concurrent games served without errors and within the p99 target.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=itawi.chessgame.benchmark.RequestThreadBenchmark [-Dexec.args="players... --p99=200"]
+ */
+public class RequestThreadBenchmark {
+
+    private static final String[] OPENING = {"e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "c4", "g8", "f6"};
+    private static final Pattern GAME_ID = Pattern.compile("\"gameId\"\\s*:\\s*\"([^\"]+)\"");
+
+    // Latencies and errors of one level
+    record Level(int players, long[] nanos, long errors, long wallNanos) {
+
+        double percentileMillis(double percentile) {
+            if (nanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * nanos.length) - 1;
+            return nanos[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).mapToInt(Integer::parseInt).toArray();
+        if (levels.length == 0) {
+            levels = new int[]{50, 200, 800, 2000, 5000};
+        }
+        double targetMillis = Arrays.stream(args).filter(arg -> arg.startsWith("--p99="))
+                .mapToDouble(arg -> Double.parseDouble(arg.substring("--p99=".length()))).findFirst().orElse(200);
+
+        for (boolean virtual : new boolean[]{false, true}) {
+            run(virtual, levels, targetMillis);
+        }
+    }
+
+    private static void run(boolean virtual, int[] levels, double targetMillis) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChessGameApplication.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "chess.engine.ponder=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port + "/api/v1/chess/games";
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(10)).build();
+            // Warm up the JIT and the connection pool before measuring
+            runLevel(http, clients, base, Math.min(50, levels[0]));
+
+            System.out.println((virtual ? "Virtual" : "Platform") + " threads:");
+            System.out.printf("%9s %10s %8s %9s %9s %9s %9s %11s%n",
+                    "Players", "Requests", "Errors", "p50 (ms)", "p90 (ms)", "p99 (ms)", "max (ms)", "Requests/s");
+            int maxGames = 0;
+            for (int players : levels) {
+                Level level = runLevel(http, clients, base, players);
+                System.out.printf("%9d %10d %8d %9.1f %9.1f %9.1f %9.1f %11.0f%n", players, level.nanos().length,
+                        level.errors(), level.percentileMillis(50), level.percentileMillis(90),
+                        level.percentileMillis(99), level.percentileMillis(100),
+                        level.nanos().length / (level.wallNanos() / 1e9));
+                if (level.errors() == 0 && level.percentileMillis(99) <= targetMillis) {
+                    maxGames = Math.max(maxGames, players);
+                }
+            }
+            System.out.printf("Most concurrent games with no errors and p99 <= %.0f ms: %d%n%n", targetMillis, maxGames);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Level runLevel(HttpClient http, ExecutorService clients, String base, int players)
+            throws InterruptedException {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(players);
+        for (int i = 0; i < players; i++) {
+            clients.submit(() -> {
+                try {
+                    start.await();
+                    play(http, base, latencies);
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long wall = System.nanoTime() - begin;
+
+        long[] nanos = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Level(players, nanos, errors.get(), wall);
+    }
+
+    // One player's game: every request must succeed, or the whole game counts as an error
+    private static void play(HttpClient http, String base, ConcurrentLinkedQueue<Long> latencies) throws Exception {
+        String created = send(http, HttpRequest.newBuilder(URI.create(base))
+                .POST(HttpRequest.BodyPublishers.noBody()), latencies);
+        Matcher matcher = GAME_ID.matcher(created);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No game ID in " + created);
+        }
+        String game = base + "/" + matcher.group(1);
+
+        for (int i = 0; i < OPENING.length; i += 2) {
+            String click = "{\"position\":\"" + OPENING[i + 1] + "\",\"selectedPosition\":\"" + OPENING[i] + "\"}";
+            send(http, HttpRequest.newBuilder(URI.create(game + "/square-click"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(click)), latencies);
+            send(http, HttpRequest.newBuilder(URI.create(game + "/status")).GET(), latencies);
+        }
+        send(http, HttpRequest.newBuilder(URI.create(game)).DELETE(), latencies);
+    }
+
+    private static String send(HttpClient http, HttpRequest.Builder request, ConcurrentLinkedQueue<Long> latencies)
+            throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        latencies.add(System.nanoTime() - start);
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,84 @@
+package itawi.chessgame.benchmark;
+
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import itawi.chessgame.core.engine.SearchFeatures;
+import itawi.chessgame.core.engine.SearchLimits;
+import itawi.chessgame.core.engine.TranspositionTable;
+import itawi.chessgame.core.engine.uci.Uci;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * What each selective search feature contributes on the bench positions: every feature is switched off in turn,
+ * and the node count and time to reach each depth are compared with all features on.
+ * A feature pays for itself when switching it off costs more nodes and time than it saves.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=itawi.chessgame.benchmark.SearchFeatureBenchmark [-Dexec.args=depth]
+ */
+public class SearchFeatureBenchmark {
+
+    // Totals over the suite for one set of features, indexed by depth
+    record Run(long[] nodes, long[] nanos) {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : Uci.BENCH_DEPTH;
+
+        Map<String, SearchFeatures> variants = new LinkedHashMap<>();
+        variants.put("all", SearchFeatures.ALL);
+        for (String feature : SearchFeatures.NAMES) {
+            variants.put("no " + feature, SearchFeatures.ALL.with(feature, false));
+        }
+        variants.put("none", SearchFeatures.NONE);
+
+        // Warm up the JIT on every code path before measuring
+        variants.values().forEach(features -> run(features, depth));
+        Map<String, Run> runs = new LinkedHashMap<>();
+        variants.forEach((name, features) -> runs.put(name, run(features, depth)));
+
+        Run baseline = runs.get("all");
+        System.out.printf("%-14s %14s %9s %11s %9s%n", "Features", "Nodes", "Nodes", "Time (ms)", "Time");
+        runs.forEach((name, run) -> System.out.printf("%-14s %14d %+8.1f%% %11.1f %+8.1f%%%n", name,
+                run.nodes()[depth], change(run.nodes()[depth], baseline.nodes()[depth]),
+                run.nanos()[depth] / 1e6, change(run.nanos()[depth], baseline.nanos()[depth])));
+
+        System.out.println();
+        System.out.println("Time to depth (ms):");
+        System.out.printf("%-14s", "Features");
+        for (int d = 1; d <= depth; d++) {
+            System.out.printf(" %9s", "d" + d);
+        }
+        System.out.println();
+        runs.forEach((name, run) -> {
+            System.out.printf("%-14s", name);
+            for (int d = 1; d <= depth; d++) {
+                System.out.printf(" %9.1f", run.nanos()[d] / 1e6);
+            }
+            System.out.println();
+        });
+    }
+
+    // Search every bench position from empty tables, recording the nodes and time at each completed depth
+    static Run run(SearchFeatures features, int depth) {
+        long[] nodes = new long[depth + 1];
+        long[] nanos = new long[depth + 1];
+        Search search = new Search(EvaluatorFactory.CLASSICAL.create(), new TranspositionTable());
+        search.setFeatures(features);
+        for (String fen : Uci.BENCH_FENS) {
+            search.clear();
+            long start = System.nanoTime();
+            search.search(Position.fromFen(fen), SearchLimits.depth(depth), new AtomicBoolean(), result -> {
+                nodes[result.depth()] += result.nodes();
+                nanos[result.depth()] += System.nanoTime() - start;
+            });
+        }
+        return new Run(nodes, nanos);
+    }
+
+    private static double change(long value, long baseline) {
+        return baseline == 0 ? 0.0 : 100.0 * (value - baseline) / baseline;
+    }
+}
@@ -0,0 +1,33 @@
+package itawi.chessgame.config;
+
+import itawi.chessgame.core.engine.EngineMetrics;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsConfigTest {
+
+    @Test
+    void testMetersReadEngineCounters() {
+        MetricsConfig config = new MetricsConfig();
+        EngineMetrics metrics = config.engineMetrics();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        config.engineMeters(metrics).bindTo(registry);
+
+        Search search = new Search();
+        search.setMetrics(metrics);
+        long nodes = search.search(Position.fromFen(Position.START_FEN), 4).nodes();
+
+        assertEquals(nodes, registry.get("chess.engine.nodes").functionCounter().count());
+        assertEquals(1, registry.get("chess.engine.search.time").functionTimer().count());
+        assertEquals(1, registry.get("chess.engine.time.to.depth").tag("depth", "4").functionTimer().count());
+        assertTrue(registry.get("chess.engine.time.to.depth").tag("depth", "4").functionTimer().totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(registry.get("chess.engine.nps").tag("scope", "last").gauge().value() > 0);
+        assertTrue(registry.get("chess.engine.tt.hit.rate").tag("scope", "all").gauge().value() >= 0);
+    }
+}
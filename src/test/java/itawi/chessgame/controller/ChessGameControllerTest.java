@@ -0,0 +1,105 @@
+package itawi.chessgame.controller;
+
+import itawi.chessgame.service.ChessGameService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChessGameControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ChessGameService chessGameService;
+
+    @Test
+    void testBoardIsJsonByDefault() throws Exception {
+        String gameId = chessGameService.newGame();
+
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(32));
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId).accept(MediaType.ALL))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void testBoardAsFenPlacement() throws Exception {
+        String gameId = chessGameService.newGame();
+        chessGameService.handleSquareClick(gameId, "e4", "e2");
+
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId).accept(MediaType.TEXT_PLAIN))
+                .andExpect(status().isOk())
+                .andExpect(content().string("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR"));
+    }
+
+    @Test
+    void testBoardPackedInto32Bytes() throws Exception {
+        String gameId = chessGameService.newGame();
+
+        byte[] packed = mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(32, packed.length);
+        // a1 white rook (4) and b1 white knight (2); e1 white king (6) and f1 white bishop (3)
+        assertEquals(0x24, packed[0]);
+        assertEquals(0x36, packed[2]);
+        // Ranks 3 to 6 are empty; a8 black rook (12) and b8 black knight (10)
+        assertEquals(0, packed[8] | packed[23]);
+        assertEquals((byte) 0xAC, packed[28]);
+    }
+
+    @Test
+    void testUnchangedBoardAndStatusAreNotModified() throws Exception {
+        String gameId = chessGameService.newGame();
+        String boardTag = mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String statusTag = mockMvc.perform(get("/api/v1/chess/games/{gameId}/status", gameId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(boardTag);
+        assertNotNull(statusTag);
+
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId).header("If-None-Match", boardTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/status", gameId).header("If-None-Match", statusTag))
+                .andExpect(status().isNotModified());
+        // Each encoding of the board has its own tag
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId).accept(MediaType.TEXT_PLAIN)
+                        .header("If-None-Match", boardTag))
+                .andExpect(status().isOk());
+
+        chessGameService.handleSquareClick(gameId, "e4", "e2");
+
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/board", gameId).header("If-None-Match", boardTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(boardTag)));
+        mockMvc.perform(get("/api/v1/chess/games/{gameId}/status", gameId).header("If-None-Match", statusTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currentTurn").value("black"));
+    }
+
+    @Test
+    void testMateRejectsImpossiblePositions() throws Exception {
+        for (String fen : new String[]{"P3k3/8/8/8/8/8/8/4K3 w - - 0 1", "4k3/8/8/8/8/8/8/p3K3 b - - 0 1",
+                "7k/8/8/8/8/8/8/4K2R w - - 0 1"}) {
+            mockMvc.perform(get("/api/v1/chess/mate").param("fen", fen))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+}
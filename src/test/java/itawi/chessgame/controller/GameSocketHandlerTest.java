@@ -0,0 +1,89 @@
+package itawi.chessgame.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import itawi.chessgame.service.ChessGameService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameSocketHandlerTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ChessGameService chessGameService;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+
+    private WebSocketSession connect(String gameId) throws Exception {
+        return new StandardWebSocketClient().execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                frames.add(message.getPayload());
+            }
+        }, "ws://localhost:" + port + "/api/v1/chess/games/" + gameId + "/ws").get(5, TimeUnit.SECONDS);
+    }
+
+    private JsonNode nextFrame() throws Exception {
+        String frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame, "No frame pushed");
+        return mapper.readTree(frame);
+    }
+
+    @Test
+    void testClientsGetTheGameThenEveryMove() throws Exception {
+        String gameId = chessGameService.newGame();
+        WebSocketSession session = connect(gameId);
+
+        JsonNode sync = nextFrame();
+        assertEquals("sync", sync.get("type").asText());
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", sync.get("board").asText());
+
+        chessGameService.handleSquareClick(gameId, "e4", "e2");
+
+        JsonNode move = nextFrame();
+        assertEquals("move", move.get("type").asText());
+        assertEquals("e2e4", move.get("move").asText());
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR", move.get("board").asText());
+        assertEquals("black", move.get("status").get("currentTurn").asText());
+        session.close();
+    }
+
+    @Test
+    void testChangesAfterConnectingLateAreNotMoves() throws Exception {
+        String gameId = chessGameService.newGame(5);
+        chessGameService.handleSquareClick(gameId, "e4", "e2");
+        WebSocketSession session = connect(gameId);
+        assertEquals("sync", nextFrame().get("type").asText());
+
+        chessGameService.pauseTimer(gameId);
+
+        JsonNode frame = nextFrame();
+        while (frame.get("type").asText().equals("clock")) {
+            frame = nextFrame();
+        }
+        assertEquals("status", frame.get("type").asText());
+        assertFalse(frame.has("move"));
+        session.close();
+    }
+
+    @Test
+    void testUnknownGamesAreRefused() {
+        assertThrows(ExecutionException.class, () -> connect("missing"));
+    }
+}
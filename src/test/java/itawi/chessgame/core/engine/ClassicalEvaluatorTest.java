@@ -0,0 +1,57 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassicalEvaluatorTest {
+
+    private final ClassicalEvaluator evaluator = new ClassicalEvaluator();
+
+    @Test
+    void testStartPositionIsBalanced() {
+        assertEquals(0, evaluator.evaluate(Position.fromFen(Position.START_FEN)));
+    }
+
+    @Test
+    void testEvaluationIsSymmetricUnderColorFlip() {
+        int white = evaluator.evaluate(Position.fromFen("4k3/pp6/8/3P4/8/1P6/1P4P1/4K3 w - - 0 1"));
+        int black = evaluator.evaluate(Position.fromFen("4k3/1p4p1/1p6/8/3p4/8/PP6/4K3 b - - 0 1"));
+        assertEquals(white, black);
+    }
+
+    @Test
+    void testPassedPawn() {
+        // d5 has no black pawn ahead on the c, d or e files; black's a7 pawn is passed but still at home
+        Position position = Position.fromFen("4k3/p7/8/3P4/8/8/8/4K3 w - - 0 1");
+        int expected = ClassicalEvaluator.PASSED_PAWN_BONUS[4] - ClassicalEvaluator.ISOLATED_PAWN_PENALTY
+                - (ClassicalEvaluator.PASSED_PAWN_BONUS[1] - ClassicalEvaluator.ISOLATED_PAWN_PENALTY);
+        assertEquals(expected, evaluator.pawnStructure(position));
+    }
+
+    @Test
+    void testDoubledAndIsolatedPawns() {
+        // White's b-pawns are doubled and isolated; they and black's c7 pawn stop each other from being passed
+        Position position = Position.fromFen("4k3/2p5/8/8/8/1P6/1P6/4K3 w - - 0 1");
+        int white = -ClassicalEvaluator.DOUBLED_PAWN_PENALTY - 2 * ClassicalEvaluator.ISOLATED_PAWN_PENALTY;
+        int black = -ClassicalEvaluator.ISOLATED_PAWN_PENALTY;
+        assertEquals(white - black, evaluator.pawnStructure(position));
+    }
+
+    @Test
+    void testPawnHashHitsWhenOnlyPiecesMove() {
+        Position position = Position.fromFen(Position.START_FEN);
+        evaluator.evaluate(position);
+        long hits = evaluator.getPawnHash().getHits();
+
+        for (String uci : new String[]{"g1f3", "g8f6", "f3g1", "f6g8"}) {
+            position.makeMove(Move.fromUci(position, uci));
+            evaluator.evaluate(position);
+        }
+        assertEquals(hits + 4, evaluator.getPawnHash().getHits());
+
+        position.makeMove(Move.fromUci(position, "e2e4"));
+        evaluator.evaluate(position);
+        assertEquals(hits + 4, evaluator.getPawnHash().getHits());
+    }
+}
@@ -0,0 +1,76 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineMetricsTest {
+
+    @Test
+    void testSearchReportsItsCounters() {
+        EngineMetrics metrics = new EngineMetrics();
+        Search search = new Search();
+        search.setMetrics(metrics);
+
+        SearchResult result = search.search(Position.fromFen(Position.START_FEN), 5);
+        SearchStats stats = search.getStats();
+
+        assertEquals(1, metrics.getSearches());
+        assertEquals(result.nodes(), metrics.getNodes());
+        assertEquals(stats.getQuiescenceNodes(), metrics.getQuiescenceNodes());
+        assertTrue(metrics.getQuiescenceNodes() < metrics.getNodes());
+        assertTrue(metrics.getTranspositionProbes() > 0);
+        assertTrue(metrics.getTranspositionHits() <= metrics.getTranspositionProbes());
+        assertEquals(stats.getFirstMoveCutoffRate(), metrics.getFirstMoveCutoffRate(), 1e-9);
+        assertTrue(metrics.getNodesPerSecond() > 0);
+
+        // One iteration per depth, each completing later than the one before
+        for (int depth = 1; depth <= 5; depth++) {
+            assertEquals(1, metrics.getDepthCount(depth));
+        }
+        assertTrue(metrics.getDepthNanos(5) >= metrics.getDepthNanos(4));
+        assertEquals(0, metrics.getDepthCount(6));
+
+        assertTrue(stats.getEffectiveBranchingFactor() > 1.0);
+        assertEquals(stats.getEffectiveBranchingFactor(), metrics.getLastSearch().effectiveBranchingFactor(), 1e-9);
+        assertEquals(result.nodes(), metrics.getLastSearch().nodes());
+    }
+
+    @Test
+    void testSearchesOnManyThreadsAddUp() throws Exception {
+        EngineMetrics metrics = new EngineMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> nodes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            nodes.add(executor.submit(() -> {
+                Search search = new Search();
+                search.setMetrics(metrics);
+                return search.search(Position.fromFen(Position.START_FEN), 4).nodes();
+            }));
+        }
+        long total = 0;
+        for (Future<Long> future : nodes) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8, metrics.getSearches());
+        assertEquals(total, metrics.getNodes());
+        assertEquals(8, metrics.getDepthCount(4));
+    }
+
+    @Test
+    void testNoneIgnoresSearches() {
+        Search search = new Search();
+        search.search(Position.fromFen(Position.START_FEN), 3);
+
+        assertEquals(0, EngineMetrics.none().getSearches());
+        assertEquals(0, EngineMetrics.none().getNodes());
+    }
+}
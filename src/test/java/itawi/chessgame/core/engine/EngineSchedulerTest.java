@@ -0,0 +1,135 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineSchedulerTest {
+
+    private EngineScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    // Keeps the only worker busy until released
+    private CountDownLatch occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(EngineScheduler.Priority.ANALYSIS, 10_000, stop -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    void testLiveGamesRunBeforeAnalysis() throws Exception {
+        scheduler = new EngineScheduler(1, 8);
+        CountDownLatch release = occupyWorker();
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<?> first = scheduler.submit(EngineScheduler.Priority.ANALYSIS, 10_000, stop -> order.add("analysis 1"));
+        CompletableFuture<?> second = scheduler.submit(EngineScheduler.Priority.ANALYSIS, 10_000, stop -> order.add("analysis 2"));
+        CompletableFuture<?> live = scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 10_000, stop -> order.add("live"));
+        release.countDown();
+        CompletableFuture.allOf(first, second, live).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("live", "analysis 1", "analysis 2"), order);
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        scheduler = new EngineScheduler(1, 1);
+        CountDownLatch release = occupyWorker();
+
+        CompletableFuture<Integer> queued = scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 10_000, stop -> 1);
+        assertThrows(EngineBusyException.class,
+                () -> scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 10_000, stop -> 2));
+        assertEquals(1, scheduler.getRejectedJobs());
+
+        release.countDown();
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testDeadlineStopsRunningJob() throws Exception {
+        scheduler = new EngineScheduler(1, 1);
+        CompletableFuture<String> job = scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 50, stop -> {
+            while (!stop.get()) {
+                Thread.onSpinWait();
+            }
+            return "stopped";
+        });
+        assertEquals("stopped", job.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testDeadlineDropsWaitingJob() throws Exception {
+        scheduler = new EngineScheduler(1, 1);
+        CountDownLatch release = occupyWorker();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Boolean> job = scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 50, stop -> ran.getAndSet(true));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> job.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(EngineBusyException.class, error.getCause());
+        assertEquals(0, scheduler.getQueuedJobs());
+
+        release.countDown();
+        // The worker is free again, so another job runs, while the expired one never does
+        assertEquals(7, scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 10_000, stop -> 7).get(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void testCancelStopsRunningJob() throws Exception {
+        scheduler = new EngineScheduler(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        CompletableFuture<Void> job = scheduler.submit(EngineScheduler.Priority.ANALYSIS, 10_000, stop -> {
+            started.countDown();
+            while (!stop.get()) {
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        job.cancel(true);
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStoppedSearchReturnsBestMoveSoFar() throws Exception {
+        scheduler = new EngineScheduler(1, 1);
+        Position position = Position.fromFen(Position.START_FEN);
+        Search search = new Search(new ClassicalEvaluator(), new TranspositionTable());
+
+        SearchResult result = scheduler.submit(EngineScheduler.Priority.LIVE_GAME, 100,
+                stop -> search.search(position, SearchLimits.depth(Search.MAX_PLY), stop)).get(5, TimeUnit.SECONDS);
+        assertNotEquals(Move.NONE, result.bestMove());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
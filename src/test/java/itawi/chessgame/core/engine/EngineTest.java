@@ -0,0 +1,101 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.game.Game;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineTest {
+
+    @Test
+    void testThinkOnTimedGameStaysWithinBudget() {
+        Game game = new Game(1); // One minute each
+        Engine engine = new Engine();
+        Position position = Position.fromGame(game);
+        SearchLimits limits = engine.limitsFor(game, position);
+
+        long start = System.currentTimeMillis();
+        SearchResult result = engine.think(game);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed <= limits.hardTimeMillis() + 100, "engine used " + elapsed + " ms");
+        String from = Position.squareName(Move.from(result.bestMove()));
+        String to = Position.squareName(Move.to(result.bestMove()));
+        assertTrue(game.makeMove(from, to)); // The engine's move is legal for the game rules too
+    }
+
+    @Test
+    void testUntimedGameUsesDefaultMoveTime() {
+        Game game = new Game();
+        SearchLimits limits = new Engine().limitsFor(game, Position.fromGame(game));
+
+        assertEquals(Engine.DEFAULT_MOVE_TIME_MILLIS, limits.hardTimeMillis());
+    }
+
+    private static String[] squares(int move) {
+        return new String[]{Position.squareName(Move.from(move)), Position.squareName(Move.to(move))};
+    }
+
+    private static void waitUntilPonderingStops(Engine engine) throws InterruptedException {
+        for (int i = 0; i < 200 && engine.isPondering(); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testPonderHitReusesSearch() throws InterruptedException {
+        Game game = new Game(1);
+        Engine engine = new Engine();
+        game.setMoveListener(engine::onMovePlayed);
+
+        SearchResult first = engine.think(game);
+        String[] engineMove = squares(first.bestMove());
+        assertTrue(game.makeMove(engineMove[0], engineMove[1]));
+        engine.startPondering(game, first);
+        assertTrue(engine.isPondering());
+
+        // The opponent plays exactly the predicted reply: pondering goes on until the engine is asked to move
+        String[] reply = squares(first.principalVariation()[1]);
+        Thread.sleep(100);
+        assertTrue(game.makeMove(reply[0], reply[1]));
+        assertTrue(engine.isPondering());
+
+        SearchResult second = engine.think(game);
+        assertFalse(engine.isPondering());
+        String[] answer = squares(second.bestMove());
+        assertTrue(game.makeMove(answer[0], answer[1]));
+    }
+
+    @Test
+    void testPonderMissCancelsSearch() throws InterruptedException {
+        Game game = new Game(1);
+        Engine engine = new Engine();
+        game.setMoveListener(engine::onMovePlayed);
+
+        SearchResult first = engine.think(game);
+        String[] engineMove = squares(first.bestMove());
+        assertTrue(game.makeMove(engineMove[0], engineMove[1]));
+        engine.startPondering(game, first);
+        assertTrue(engine.isPondering());
+
+        // Any reply other than the predicted one stops the ponder search without waiting for the engine's turn
+        String[] predicted = squares(first.principalVariation()[1]);
+        String from = predicted[0].equals("a7") ? "h7" : "a7";
+        String to = from.equals("a7") ? "a6" : "h6";
+        assertTrue(game.makeMove(from, to));
+        waitUntilPonderingStops(engine);
+        assertFalse(engine.isPondering());
+    }
+
+    @Test
+    void testNoPonderingWithoutClock() {
+        Game game = new Game();
+        Engine engine = new Engine();
+        SearchResult result = engine.think(game);
+        String[] move = squares(result.bestMove());
+        game.makeMove(move[0], move[1]);
+
+        engine.startPondering(game, result);
+        assertFalse(engine.isPondering());
+    }
+}
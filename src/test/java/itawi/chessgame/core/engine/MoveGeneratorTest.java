@@ -0,0 +1,78 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+    // Count leaf nodes of the legal move tree, the standard way to validate a move generator
+    private long perft(Position position, int depth) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(position, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            if (!position.makeMove(moves[i])) {
+                continue;
+            }
+            nodes += depth == 1 ? 1 : perft(position, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    @Test
+    void testPerftStartPosition() {
+        Position position = Position.fromFen(Position.START_FEN);
+        assertEquals(20, perft(position, 1));
+        assertEquals(400, perft(position, 2));
+        assertEquals(8902, perft(position, 3));
+        assertEquals(197281, perft(position, 4));
+    }
+
+    @Test
+    void testPerftKiwipete() {
+        // Position rich in castling, en passant and promotion edge cases
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(48, perft(position, 1));
+        assertEquals(2039, perft(position, 2));
+        assertEquals(97862, perft(position, 3));
+    }
+
+    @Test
+    void testPerftEndgameWithEnPassantPins() {
+        Position position = Position.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(14, perft(position, 1));
+        assertEquals(191, perft(position, 2));
+        assertEquals(2812, perft(position, 3));
+        assertEquals(43238, perft(position, 4));
+    }
+
+    @Test
+    void testPerftPromotions() {
+        Position position = Position.fromFen("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        assertEquals(6, perft(position, 1));
+        assertEquals(264, perft(position, 2));
+        assertEquals(9467, perft(position, 3));
+    }
+
+    @Test
+    void testCapturesOnly() {
+        Position position = Position.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateCaptures(position, moves);
+
+        assertEquals(1, count);
+        assertEquals("e4d5", Move.toUci(moves[0]));
+    }
+
+    @Test
+    void testNoLegalMovesInCheckmate() {
+        // Fool's mate
+        Position position = Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        assertEquals(0, MoveGenerator.generateLegalMoves(position, moves));
+        assertTrue(position.isInCheck());
+    }
+}
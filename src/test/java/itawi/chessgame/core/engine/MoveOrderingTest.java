@@ -0,0 +1,106 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveOrderingTest {
+
+    private MoveOrdering ordering;
+    private Position position;
+    private int[] moves;
+    private int[] scores;
+    private int count;
+
+    @BeforeEach
+    void setUp() {
+        ordering = new MoveOrdering();
+        // White queen and pawn can both take the black rook; the knight can take a pawn
+        position = Position.fromFen("4k3/8/8/2p1r3/3P4/4Q3/2N5/4K3 w - - 0 1");
+        moves = new int[MoveGenerator.MAX_MOVES];
+        scores = new int[MoveGenerator.MAX_MOVES];
+        count = MoveGenerator.generateMoves(position, moves);
+    }
+
+    private int first() {
+        return MoveOrdering.pickMove(moves, scores, count, 0);
+    }
+
+    @Test
+    void testMvvLvaOrdersCapturesFirst() {
+        ordering.scoreMoves(position, moves, scores, count, 0, Move.NONE, Move.NONE);
+
+        assertEquals("d4e5", Move.toUci(first())); // Pawn takes rook
+        assertEquals("e3e5", Move.toUci(MoveOrdering.pickMove(moves, scores, count, 1))); // Queen takes rook
+        assertEquals("d4c5", Move.toUci(MoveOrdering.pickMove(moves, scores, count, 2))); // Pawn takes pawn
+    }
+
+    @Test
+    void testHashMoveComesFirst() {
+        int hashMove = Move.fromUci(position, "c2a3");
+        ordering.scoreMoves(position, moves, scores, count, 0, hashMove, Move.NONE);
+
+        assertEquals(hashMove, first());
+    }
+
+    @Test
+    void testKillerBeatsOtherQuietMoves() {
+        int killer = Move.fromUci(position, "e1f1");
+        ordering.recordCutoff(position, killer, 3, 4, Move.NONE, new int[0], 0);
+        ordering.scoreMoves(position, moves, scores, count, 3, Move.NONE, Move.NONE);
+
+        // Skip the three captures
+        for (int i = 0; i < 3; i++) {
+            MoveOrdering.pickMove(moves, scores, count, i);
+        }
+        assertEquals(killer, MoveOrdering.pickMove(moves, scores, count, 3));
+        int killerScore = scores[3];
+
+        // Killers belong to their ply, elsewhere the move only keeps its history score
+        ordering.scoreMoves(position, moves, scores, count, 4, Move.NONE, Move.NONE);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == killer) {
+                assertTrue(scores[i] < killerScore);
+            }
+        }
+    }
+
+    @Test
+    void testCounterMove() {
+        Position afterBlack = Position.fromFen("4k3/8/8/2p1r3/3P4/4Q3/2N5/4K3 b - - 0 1");
+        int blackMove = Move.fromUci(afterBlack, "e8d7");
+        afterBlack.makeMove(blackMove);
+
+        int[] replies = new int[MoveGenerator.MAX_MOVES];
+        int[] replyScores = new int[MoveGenerator.MAX_MOVES];
+        int replyCount = MoveGenerator.generateMoves(afterBlack, replies);
+        int counter = Move.fromUci(afterBlack, "c2b4");
+        ordering.recordCutoff(afterBlack, counter, 10, 2, blackMove, new int[0], 0);
+
+        // A different ply, so the killer slot does not apply, but the counter-move does
+        ordering.scoreMoves(afterBlack, replies, replyScores, replyCount, 1, Move.NONE, blackMove);
+        for (int i = 0; i < 3; i++) {
+            MoveOrdering.pickMove(replies, replyScores, replyCount, i);
+        }
+        assertEquals(counter, MoveOrdering.pickMove(replies, replyScores, replyCount, 3));
+    }
+
+    @Test
+    void testHistoryFavoursMovesThatCutOff() {
+        int good = Move.fromUci(position, "c2a3");
+        int bad = Move.fromUci(position, "e1d1");
+        ordering.recordCutoff(position, good, 1, 6, Move.NONE, new int[]{bad}, 1);
+        ordering.newSearch(); // Clears killers but keeps aged history
+        ordering.scoreMoves(position, moves, scores, count, 1, Move.NONE, Move.NONE);
+
+        int goodScore = 0;
+        int badScore = 0;
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == good) goodScore = scores[i];
+            if (moves[i] == bad) badScore = scores[i];
+        }
+        assertTrue(goodScore > 0);
+        assertTrue(badScore < 0);
+    }
+}
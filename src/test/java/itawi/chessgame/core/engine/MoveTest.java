@@ -0,0 +1,41 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveTest {
+
+    private static String san(String fen, String san) {
+        return Move.toUci(Move.fromSan(Position.fromFen(fen), san));
+    }
+
+    @Test
+    void testSanPiecesAndPawns() {
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        assertEquals("e2e4", san(start, "e4"));
+        assertEquals("g1f3", san(start, "Nf3"));
+        assertEquals("0000", san(start, "e5"));
+        assertEquals("0000", san(start, "Qh5"));
+        assertEquals("0000", san(start, "i9"));
+    }
+
+    @Test
+    void testSanCapturesAndDisambiguation() {
+        String fen = "4k3/8/8/3pP3/8/8/8/1N2KN2 w - d6 0 1";
+        assertEquals("e5d6", san(fen, "exd6")); // En passant
+        assertEquals("b1d2", san(fen, "Nbd2"));
+        assertEquals("f1d2", san(fen, "Nfd2"));
+        assertEquals("0000", san(fen, "Nd2")); // Ambiguous
+    }
+
+    @Test
+    void testSanCastlingAndPromotion() {
+        String fen = "r3k3/1P6/8/8/8/8/8/R3K2R w KQq - 0 1";
+        assertEquals("e1g1", san(fen, "O-O"));
+        assertEquals("e1c1", san(fen, "0-0-0+"));
+        assertEquals("b7a8q", san(fen, "bxa8=Q+"));
+        assertEquals("b7b8n", san(fen, "b8=N"));
+        assertEquals("b7b8r", san(fen, "b8R"));
+    }
+}
@@ -0,0 +1,128 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.game.Game;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+    @Test
+    void testFenRoundTrip() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertEquals(fen, Position.fromFen(fen).toFen());
+        assertEquals(Position.START_FEN, Position.fromFen(Position.START_FEN).toFen());
+    }
+
+    @Test
+    void testInvalidFen() {
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("8/8/8/8/8/8/8/8 w - - 0 1")); // No kings
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen(Position.START_FEN.replace(" w ", " x ")));
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("P3k3/8/8/8/8/8/8/4K3 w - - 0 1")); // Pawn on the last rank
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("4k3/8/8/8/8/8/8/p3K3 b - - 0 1")); // Pawn on the first rank
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen("7k/8/8/8/8/8/8/4K2R w - - 0 1")); // Black in check with white to move
+    }
+
+    @Test
+    void testFromNewGameMatchesStartPosition() {
+        Position position = Position.fromGame(new Game());
+        assertEquals(Position.START_FEN, position.toFen());
+        assertEquals(Position.fromFen(Position.START_FEN).getKey(), position.getKey());
+    }
+
+    @Test
+    void testFromGameAfterMoves() {
+        Game game = new Game();
+        game.makeMove("e2", "e4");
+        game.makeMove("d7", "d5");
+        game.makeMove("e4", "e5");
+        game.makeMove("f7", "f5");
+
+        // The en passant square is kept because e5 can capture on f6
+        Position position = Position.fromGame(game);
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6", position.toFen().substring(0, 57));
+        assertEquals(Position.WHITE, position.getSideToMove());
+    }
+
+    @Test
+    void testMakeUnmakeRestoresPosition() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String fen = position.toFen();
+        long key = position.getKey();
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(position, moves);
+        for (int i = 0; i < count; i++) {
+            if (position.makeMove(moves[i])) {
+                position.unmakeMove();
+            }
+            assertEquals(fen, position.toFen());
+            assertEquals(key, position.getKey());
+        }
+    }
+
+    @Test
+    void testIncrementalKeyMatchesFreshKey() {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (String uci : new String[]{"e2e4", "d7d5", "e4d5", "g8f6", "f1b5", "c7c6", "g1f3", "c6b5", "e1g1"}) {
+            assertTrue(position.makeMove(Move.fromUci(position, uci)), uci);
+            assertEquals(Position.fromFen(position.toFen()).getKey(), position.getKey(), uci);
+        }
+    }
+
+    @Test
+    void testPawnKeyTracksOnlyPawns() {
+        // En passant, a capture by a pawn and a promotion all change the pawn key; piece moves don't
+        Position position = Position.fromFen("4k3/1P6/8/3pP3/8/8/8/4K1N1 w - d6 0 1");
+        long start = position.getPawnKey();
+        for (String uci : new String[]{"e5d6", "e8d7", "b7b8n", "d7d6"}) {
+            assertTrue(position.makeMove(Move.fromUci(position, uci)), uci);
+            assertEquals(Position.fromFen(position.toFen()).getPawnKey(), position.getPawnKey(), uci);
+        }
+
+        position.makeMove(Move.fromUci(position, "g1f3"));
+        assertEquals(Position.fromFen(position.toFen()).getPawnKey(), position.getPawnKey());
+        assertEquals(0, position.getPawnKey()); // No pawns left
+
+        for (int i = 0; i < 5; i++) {
+            position.unmakeMove();
+        }
+        assertEquals(start, position.getPawnKey());
+    }
+
+    @Test
+    void testRepetition() {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (String uci : new String[]{"g1f3", "g8f6", "f3g1", "f6g8"}) {
+            position.makeMove(Move.fromUci(position, uci));
+        }
+        assertTrue(position.isRepetition());
+    }
+
+    @Test
+    void testNullMoveOnlyPassesTheTurn() {
+        Position position = Position.fromFen("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+        String fen = position.toFen();
+        long key = position.getKey();
+
+        position.makeNullMove();
+        assertEquals(Position.BLACK, position.getSideToMove());
+        assertEquals(-1, position.getEnPassantSquare());
+        assertNotEquals(key, position.getKey());
+        assertEquals(Move.NONE, position.lastMove());
+        assertFalse(position.isRepetition());
+
+        position.unmakeNullMove();
+        assertEquals(fen, position.toFen());
+        assertEquals(key, position.getKey());
+        assertEquals(0, position.getHistoryPly());
+    }
+
+    @Test
+    void testNonPawnMaterial() {
+        Position position = Position.fromFen("4k3/pppp4/8/8/8/8/4P3/4KN2 w - - 0 1");
+        assertTrue(position.hasNonPawnMaterial(Position.WHITE));
+        assertFalse(position.hasNonPawnMaterial(Position.BLACK));
+    }
+}
@@ -0,0 +1,56 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCacheTest {
+
+    @Test
+    void testCapacityIsPowerOfTwo() {
+        assertEquals(1024, new ScoreCache(1500).capacity());
+        assertEquals(1, new ScoreCache(0).capacity());
+    }
+
+    @Test
+    void testProbeAndHitRate() {
+        ScoreCache cache = new ScoreCache(16);
+        assertEquals(ScoreCache.MISS, cache.probe(5L));
+
+        cache.store(5L, -40);
+        assertEquals(-40, cache.probe(5L));
+        assertEquals(ScoreCache.MISS, cache.probe(21L)); // Same slot, different key
+
+        cache.store(21L, 7);
+        assertEquals(ScoreCache.MISS, cache.probe(5L)); // Replaced
+        assertEquals(4, cache.getProbes());
+        assertEquals(1, cache.getHits());
+        assertEquals(0.25, cache.getHitRate());
+    }
+
+    @Test
+    void testZeroKeyIsNotAHitUntilStored() {
+        ScoreCache cache = new ScoreCache(16);
+        assertEquals(ScoreCache.MISS, cache.probe(0L));
+        cache.store(0L, 0);
+        assertEquals(0, cache.probe(0L));
+    }
+
+    @Test
+    void testCachedEvaluatorReusesScores() {
+        ClassicalEvaluator classical = new ClassicalEvaluator();
+        CachedEvaluator cached = new CachedEvaluator(classical, 1024);
+        Position position = Position.fromFen(Position.START_FEN);
+        position.makeMove(Move.fromUci(position, "g1f3"));
+
+        int score = cached.evaluate(position);
+        assertEquals(score, cached.evaluate(position));
+        assertEquals(classical.evaluate(position), score);
+        assertEquals(1, cached.getCache().getHits());
+
+        // Same pieces with the other side to move is another cache entry with the opposite sign
+        Position other = Position.fromFen(position.toFen().replace(" b ", " w "));
+        assertEquals(-score, cached.evaluate(other));
+        assertEquals(1, cached.getCache().getHits());
+    }
+}
@@ -0,0 +1,166 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    @Test
+    void testFindsMateInOne() {
+        Position position = Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(position, 4);
+
+        assertEquals("a1a8", result.bestMoveUci());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE_SCORE - 1, result.score());
+    }
+
+    @Test
+    void testWinsHangingQueen() {
+        Position position = Position.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        SearchResult result = new Search().search(position, 3);
+
+        assertEquals("d1d5", result.bestMoveUci());
+    }
+
+    @Test
+    void testNoMovesWhenCheckmated() {
+        Position position = Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        SearchResult result = new Search().search(position, 3);
+
+        assertEquals(Move.NONE, result.bestMove());
+        assertEquals(-Search.MATE_SCORE, result.score());
+    }
+
+    @Test
+    void testPositionRestoredAfterSearch() {
+        Position position = Position.fromFen(Position.START_FEN);
+        new Search().search(position, 4);
+
+        assertEquals(Position.START_FEN, position.toFen());
+        assertEquals(0, position.getHistoryPly());
+    }
+
+    @Test
+    void testReportsFirstMoveCutoffRate() {
+        Position position = Position.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        SearchResult result = new Search().search(position, 5);
+
+        assertTrue(result.nodes() > 0);
+        assertTrue(result.firstMoveCutoffRate() > 0.5, "first-move cutoff rate was " + result.firstMoveCutoffRate());
+        assertTrue(result.principalVariation().length >= 1);
+        assertEquals(result.bestMove(), result.principalVariation()[0]);
+    }
+
+    @Test
+    void testReusedSearchIsDeterministic() {
+        Search search = new Search();
+        Position position = Position.fromFen(Position.START_FEN);
+        search.search(position, 4);
+
+        // Clearing the tables makes a reused instance behave like a fresh one
+        search.clear();
+        SearchResult reused = search.search(position, 4);
+        SearchResult fresh = new Search().search(position, 4);
+        assertEquals(fresh.nodes(), reused.nodes());
+        assertEquals(fresh.bestMove(), reused.bestMove());
+    }
+
+    @Test
+    void testHardDeadlineAbortsSearch() {
+        Position position = Position.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        String fen = position.toFen();
+
+        long start = System.currentTimeMillis();
+        SearchResult result = new Search().search(position, new SearchLimits(Search.MAX_PLY, 100, 200));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 1000, "search took " + elapsed + " ms");
+        assertNotEquals(Move.NONE, result.bestMove());
+        assertEquals(fen, position.toFen()); // Aborting unwinds every move it made
+    }
+
+    @Test
+    void testSingleLegalMoveReturnsImmediately() {
+        // The king's only move is to escape the check
+        Position position = Position.fromFen("k7/8/8/8/8/8/1r6/K6r w - - 0 1");
+        SearchResult result = new Search().search(position, SearchLimits.moveTime(10_000));
+
+        assertEquals("a1b2", result.bestMoveUci());
+        assertEquals(1, result.depth());
+    }
+
+    @Test
+    void testMultiPvFindsDistinctLinesBestFirst() {
+        Position position = Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        List<List<SearchResult>> updates = new ArrayList<>();
+        List<SearchResult> lines = new Search().searchLines(position, SearchLimits.depth(3), 3,
+                new AtomicBoolean(), updates::add);
+
+        assertEquals(3, updates.size()); // One update per completed depth
+        assertEquals(3, lines.size());
+        assertEquals("a1a8", lines.get(0).bestMoveUci());
+        assertEquals(1, lines.get(0).mateIn());
+        assertEquals(3, lines.stream().map(SearchResult::bestMove).distinct().count());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i - 1).score() >= lines.get(i).score());
+            assertFalse(lines.get(i).isMate());
+        }
+    }
+
+    @Test
+    void testMultiPvWithMoreLinesThanMoves() {
+        // The king has three legal moves
+        Position position = Position.fromFen("k7/8/8/8/8/8/8/2R4K b - - 0 1");
+        List<SearchResult> lines = new Search().searchLines(position, SearchLimits.depth(2), 5,
+                new AtomicBoolean(), results -> {
+                });
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void testEveryFeatureSetFindsTactics() {
+        List<SearchFeatures> variants = new ArrayList<>(List.of(SearchFeatures.ALL, SearchFeatures.NONE));
+        for (String feature : SearchFeatures.NAMES) {
+            variants.add(SearchFeatures.ALL.with(feature, false));
+        }
+        for (SearchFeatures features : variants) {
+            Search search = new Search();
+            search.setFeatures(features);
+
+            SearchResult mate = search.search(Position.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), 5);
+            assertEquals("a1a8", mate.bestMoveUci(), features.toString());
+            assertEquals(Search.MATE_SCORE - 1, mate.score(), features.toString());
+            assertEquals("d1d5", search.search(Position.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1"), 5).bestMoveUci(),
+                    features.toString());
+        }
+    }
+
+    @Test
+    void testSelectiveFeaturesSearchFewerNodes() {
+        Position position = Position.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        Search full = new Search();
+        full.setFeatures(SearchFeatures.NONE);
+        Search selective = new Search();
+
+        long fullNodes = full.search(position, 6).nodes();
+        long selectiveNodes = selective.search(position, 6).nodes();
+        assertTrue(selectiveNodes < fullNodes / 2, selectiveNodes + " vs " + fullNodes + " nodes");
+        assertEquals(Position.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4").toFen(),
+                position.toFen());
+    }
+
+    @Test
+    void testFeatureNames() {
+        SearchFeatures features = SearchFeatures.ALL.with("lmr", false);
+        assertFalse(features.lateMoveReductions());
+        assertFalse(features.isEnabled("LMR"));
+        assertTrue(features.isEnabled("NullMove"));
+        assertThrows(IllegalArgumentException.class, () -> features.with("Razoring", true));
+    }
+}
@@ -0,0 +1,77 @@
+package itawi.chessgame.core.engine;
+
+import itawi.chessgame.core.timer.ChessTimer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeManagerTest {
+
+    private final TimeManager timeManager = new TimeManager();
+
+    @Test
+    void testBudgetFitsRemainingTime() {
+        Position position = Position.fromFen(Position.START_FEN);
+        SearchLimits limits = timeManager.limitsFor(5 * 60 * 1000L, 0, position);
+
+        assertTrue(limits.isTimed());
+        assertTrue(limits.softTimeMillis() > 0);
+        assertTrue(limits.softTimeMillis() <= limits.hardTimeMillis());
+        assertTrue(limits.hardTimeMillis() <= 5 * 60 * 1000L / 4); // Never more than a quarter of the clock
+    }
+
+    @Test
+    void testEndgameGetsMoreTimePerMove() {
+        SearchLimits opening = timeManager.limitsFor(60_000, 0, Position.fromFen(Position.START_FEN));
+        SearchLimits endgame = timeManager.limitsFor(60_000, 0, Position.fromFen("8/5k2/8/8/8/8/2K1R3/8 w - - 0 60"));
+
+        assertTrue(endgame.softTimeMillis() > opening.softTimeMillis());
+    }
+
+    @Test
+    void testLowTimeStaysWithinClock() {
+        SearchLimits limits = timeManager.limitsFor(500, 0, Position.fromFen(Position.START_FEN));
+
+        assertTrue(limits.hardTimeMillis() < 500);
+    }
+
+    @Test
+    void testHighIncrementDoesNotOverspendLowClock() {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (long[] clock : new long[][]{{100, 2_000}, {500, 3_000}, {1_000, 10_000}, {60, 5_000}, {20, 1_000}}) {
+            SearchLimits limits = timeManager.limitsFor(clock[0], clock[1], position);
+
+            assertTrue(limits.hardTimeMillis() < clock[0], "hard limit " + limits.hardTimeMillis() + " with " + clock[0] + " ms left");
+            assertTrue(limits.softTimeMillis() <= limits.hardTimeMillis());
+            assertTrue(limits.softTimeMillis() >= 0);
+        }
+    }
+
+    @Test
+    void testDelayDoesNotOverspendLowClock() {
+        ChessTimer timer = new ChessTimer(300, 0, 5_000);
+        SearchLimits limits = timeManager.limitsFor(timer, "white", Position.fromFen(Position.START_FEN));
+
+        assertTrue(limits.hardTimeMillis() < 300);
+    }
+
+    @Test
+    void testIncrementIsSpent() {
+        Position position = Position.fromFen(Position.START_FEN);
+        SearchLimits withoutIncrement = timeManager.limitsFor(60_000, 0, position);
+        SearchLimits withIncrement = timeManager.limitsFor(60_000, 2_000, position);
+
+        assertTrue(withIncrement.softTimeMillis() > withoutIncrement.softTimeMillis());
+    }
+
+    @Test
+    void testLimitsFromChessTimer() {
+        ChessTimer timer = new ChessTimer(1);
+        timer.setBlackTimeMillis(10_000);
+        Position position = Position.fromFen(Position.START_FEN);
+
+        SearchLimits white = timeManager.limitsFor(timer, "white", position);
+        SearchLimits black = timeManager.limitsFor(timer, "black", position);
+        assertTrue(white.softTimeMillis() > black.softTimeMillis());
+    }
+}
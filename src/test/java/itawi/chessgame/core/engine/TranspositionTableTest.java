@@ -0,0 +1,57 @@
+package itawi.chessgame.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    private final TranspositionTable table = new TranspositionTable(1);
+
+    @Test
+    void testCapacityIsPowerOfTwo() {
+        assertEquals(1 << 16, table.capacity()); // 1 MB of 16-byte entries
+    }
+
+    @Test
+    void testStoreAndProbe() {
+        int move = Move.of(12, 28, Position.EMPTY, Move.DOUBLE_PUSH);
+        table.store(0x1234_5678_9ABCL, move, -57, 6, TranspositionTable.LOWER_BOUND, 3);
+
+        long entry = table.probe(0x1234_5678_9ABCL);
+        assertNotEquals(TranspositionTable.NO_ENTRY, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-57, TranspositionTable.score(entry, 3));
+        assertEquals(6, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(0x9999L));
+    }
+
+    @Test
+    void testMateScoresAreRelativeToStoredPosition() {
+        // Mate in 5 plies from the root, found at ply 3, is a mate in 2 plies from the stored position
+        table.store(42L, Move.NONE, Search.MATE_SCORE - 5, 4, TranspositionTable.EXACT, 3);
+
+        assertEquals(Search.MATE_SCORE - 5, TranspositionTable.score(table.probe(42L), 3));
+        assertEquals(Search.MATE_SCORE - 3, TranspositionTable.score(table.probe(42L), 1));
+    }
+
+    @Test
+    void testShallowBoundDoesNotReplaceDeepEntry() {
+        int move = Move.of(6, 21);
+        table.store(7L, move, 30, 8, TranspositionTable.EXACT, 0);
+        table.store(7L, Move.NONE, 10, 2, TranspositionTable.UPPER_BOUND, 0);
+
+        assertEquals(8, TranspositionTable.depth(table.probe(7L)));
+        assertEquals(move, TranspositionTable.move(table.probe(7L)));
+    }
+
+    @Test
+    void testClear() {
+        table.store(7L, Move.of(6, 21), 30, 8, TranspositionTable.EXACT, 0);
+        table.clear();
+
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(7L));
+    }
+}
@@ -0,0 +1,141 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookBuilderTest {
+    private static final String GAMES = """
+            [Event "Test"]
+            [White "A"]
+            [Black "B"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0
+
+            [Event "Test"]
+            [Result "1/2-1/2"]
+
+            1. e4 {A comment} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 Nf6 ; rest of line
+            1/2-1/2
+
+            [Event "Test"]
+            [Result "0-1"]
+
+            1. d4 d5 2. c4 e6 0-1
+
+            [Event "Unfinished"]
+            [Result "*"]
+
+            1. e4 c5 *
+
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReaderKeepsMainLineOnly() throws IOException {
+        List<PgnGame> games = readAll(new PgnReader(new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.US_ASCII))));
+
+        assertEquals(4, games.size());
+        assertEquals("A", games.get(0).tags().get("White"));
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), games.get(0).moves());
+        assertEquals(List.of("e4", "e5", "Nf3", "Nf6"), games.get(1).moves());
+        assertEquals("1/2-1/2", games.get(1).result());
+        assertEquals("*", games.get(3).result());
+    }
+
+    @Test
+    void testRangesSplitGamesExactlyOnce() throws IOException {
+        Path file = directory.resolve("games.pgn");
+        Files.writeString(file, GAMES.repeat(25), StandardCharsets.US_ASCII);
+        long size = Files.size(file);
+
+        for (long chunk : new long[]{37, 100, 211, size}) {
+            int count = 0;
+            for (long start = 0; start < size; start += chunk) {
+                try (PgnReader reader = new PgnReader(file, start, Math.min(size, start + chunk))) {
+                    count += readAll(reader).size();
+                }
+            }
+            assertEquals(100, count, "chunk of " + chunk + " bytes");
+        }
+    }
+
+    @Test
+    void testBuildCountsResultsForTheSideToMove() throws IOException {
+        Path pgn = directory.resolve("games.pgn");
+        Files.writeString(pgn, GAMES, StandardCharsets.US_ASCII);
+        Path bookFile = directory.resolve("book.bin");
+
+        BookBuilder builder = new BookBuilder(2, 1 << 20);
+        builder.setMinGames(1);
+        BookBuilder.Summary summary = builder.build(List.of(pgn), bookFile);
+        assertEquals(3, summary.games());
+        assertEquals(1, summary.skippedGames());
+
+        OpeningBook book = OpeningBook.open(bookFile);
+        Position start = Position.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        List<BookMove> moves = book.moves(start);
+        // e4: one win and one draw for white; d4 lost, so it has no weight and is left out
+        assertEquals(1, moves.size());
+        assertEquals("e2e4", moves.get(0).uci());
+        assertEquals(3, moves.get(0).weight());
+
+        start.makeMove(moves.get(0).move());
+        assertEquals(List.of("e7e5"), book.moves(start).stream().map(BookMove::uci).toList());
+        assertEquals(1, book.moves(start).get(0).weight()); // A loss and a draw for black
+    }
+
+    @Test
+    void testSpillingGivesTheSameBook() throws IOException {
+        // Every pair of opening pawn and knight moves, twice
+        List<String> white = List.of("a3", "a4", "b3", "b4", "c3", "c4", "d3", "d4", "e3", "e4", "f3", "f4", "g3", "g4",
+                "h3", "h4", "Na3", "Nc3", "Nf3", "Nh3");
+        StringBuilder games = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            for (String first : white) {
+                for (String second : white) {
+                    String reply = second.replace('3', '6').replace('4', '5');
+                    games.append("[Event \"Pairs\"]\n\n1. ").append(first).append(' ').append(reply).append(" 1-0\n\n");
+                }
+            }
+        }
+        Path pgn = directory.resolve("games.pgn");
+        Files.writeString(pgn, games, StandardCharsets.US_ASCII);
+
+        BookBuilder large = new BookBuilder(3, 1 << 20);
+        large.setChunkBytes(500);
+        large.build(List.of(pgn), directory.resolve("large.bin"));
+
+        BookBuilder small = new BookBuilder(3, 0); // Smallest maps, spilled to disk again and again
+        small.setChunkBytes(500);
+        BookBuilder.Summary summary = small.build(List.of(pgn), directory.resolve("small.bin"));
+
+        assertTrue(summary.runs() > 10);
+        assertEquals(800, summary.games());
+        assertArrayEquals(Files.readAllBytes(directory.resolve("large.bin")), Files.readAllBytes(directory.resolve("small.bin")));
+        try (var files = Files.list(directory)) {
+            assertEquals(3, files.count()); // Runs are removed
+        }
+    }
+
+    private static List<PgnGame> readAll(PgnReader reader) throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+            games.add(game);
+        }
+        return games;
+    }
+}
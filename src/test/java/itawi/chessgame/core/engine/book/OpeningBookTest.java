@@ -0,0 +1,113 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Engine;
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.SearchResult;
+import itawi.chessgame.core.game.Game;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String CASTLING = "r3k2r/pppq1ppp/2n1bn2/3pp3/3PP3/2N1BN2/PPPQ1PPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path directory;
+
+    private OpeningBook book() throws IOException {
+        Position start = Position.fromFen(START);
+        Position castling = Position.fromFen(CASTLING);
+        List<BookEntry> entries = new ArrayList<>();
+        entries.add(entry(start, "d2d4", 1));
+        entries.add(entry(start, "e2e4", 3));
+        entries.add(entry(castling, "e1g1", 5));
+        entries.add(entry(castling, "e1c1", 0)); // Never played
+        entries.add(new BookEntry(PolyglotKey.polyglotKey(start), OpeningBook.encodeMove(Move.of(12, 36)), 9, 0)); // e2e5 is not legal
+        // Unrelated positions around them, including keys with the top bit set
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 1000; i++) {
+            entries.add(new BookEntry(random.nextLong(), 0x0123, 1, 0));
+        }
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(file, entries);
+        return OpeningBook.open(file);
+    }
+
+    private static BookEntry entry(Position position, String uci, int weight) {
+        return new BookEntry(PolyglotKey.polyglotKey(position), OpeningBook.encodeMove(Move.fromUci(position, uci)), weight, 0);
+    }
+
+    @Test
+    void testMovesAreFoundHeaviestFirst() throws IOException {
+        OpeningBook book = book();
+        List<BookMove> moves = book.moves(Position.fromFen(START));
+
+        assertEquals(1005, book.getSize());
+        assertEquals(List.of("e2e4", "d2d4"), moves.stream().map(BookMove::uci).toList());
+        assertEquals(3, moves.get(0).weight());
+        assertTrue(book.moves(Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).isEmpty());
+    }
+
+    @Test
+    void testCastlingIsEncodedAsKingTakesRook() throws IOException {
+        Position position = Position.fromFen(CASTLING);
+        int castle = Move.fromUci(position, "e1g1");
+        assertEquals(7 | 4 << 6, OpeningBook.encodeMove(castle)); // e1h1
+
+        List<BookMove> moves = book().moves(position);
+        assertEquals(1, moves.size());
+        assertEquals(castle, moves.get(0).move());
+    }
+
+    @Test
+    void testPromotionEncoding() {
+        Position position = Position.fromFen("8/P6k/8/8/8/8/8/K7 w - - 0 1");
+        assertEquals(56 | 48 << 6 | 4 << 12, OpeningBook.encodeMove(Move.fromUci(position, "a7a8q")));
+        assertEquals(56 | 48 << 6 | 1 << 12, OpeningBook.encodeMove(Move.fromUci(position, "a7a8n")));
+    }
+
+    @Test
+    void testPickMoveFollowsWeights() throws IOException {
+        OpeningBook book = book();
+        Position position = Position.fromFen(START);
+        int e4 = Move.fromUci(position, "e2e4");
+        SplittableRandom random = new SplittableRandom(42);
+
+        int e4Count = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (book.pickMove(position, random) == e4) {
+                e4Count++;
+            }
+        }
+        assertEquals(3000, e4Count, 150);
+        assertEquals(Move.NONE, OpeningBook.empty().pickMove(position, random));
+    }
+
+    @Test
+    void testEnginePlaysBookMoveWithoutSearching() throws IOException {
+        Engine engine = new Engine();
+        engine.setBook(book());
+        Game game = new Game();
+
+        SearchResult result = engine.think(game);
+        assertEquals(0, result.nodes());
+        assertTrue(List.of("e2e4", "d2d4").contains(result.bestMoveUci()));
+    }
+
+    @Test
+    void testRejectsTruncatedFile() throws IOException {
+        Path file = directory.resolve("broken.bin");
+        Files.write(file, new byte[20]);
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.open(file));
+    }
+}
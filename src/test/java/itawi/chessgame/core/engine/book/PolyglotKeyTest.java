@@ -0,0 +1,66 @@
+package itawi.chessgame.core.engine.book;
+
+import itawi.chessgame.core.engine.Move;
+import itawi.chessgame.core.engine.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolyglotKeyTest {
+
+    @TempDir
+    Path directory;
+
+    private static Position play(String... moves) {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (String uci : moves) {
+            position.makeMove(Move.fromUci(position, uci));
+        }
+        return position;
+    }
+
+    @Test
+    void testMatchesPublishedKeys() {
+        assertEquals(0x463b96181691fc9cL, PolyglotKey.polyglotKey(play()));
+        assertEquals(0x823c9b50fd114196L, PolyglotKey.polyglotKey(play("e2e4")));
+        assertEquals(0x0756b94461c50fb0L, PolyglotKey.polyglotKey(play("e2e4", "d7d5")));
+        assertEquals(0x662fafb965db29d4L, PolyglotKey.polyglotKey(play("e2e4", "d7d5", "e4e5")));
+        assertEquals(0x22a48b5a8e47ff78L, PolyglotKey.polyglotKey(play("e2e4", "d7d5", "e4e5", "f7f5")));
+        assertEquals(0x652a607ca3f242c1L, PolyglotKey.polyglotKey(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2")));
+        assertEquals(0x00fdd303c946bdd9L, PolyglotKey.polyglotKey(play("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7")));
+        assertEquals(0x3c8123ea7b067637L, PolyglotKey.polyglotKey(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4")));
+        assertEquals(0x5c3f9b829b279560L, PolyglotKey.polyglotKey(play("a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3")));
+    }
+
+    @Test
+    void testEnPassantFileCountsOnlyWhenCapturePossible() {
+        // After e2e4 no black pawn stands next to e4, so the key is the same as without the en passant square
+        Position position = play("e2e4");
+        Position withoutEnPassant = Position.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        assertEquals(PolyglotKey.polyglotKey(withoutEnPassant), PolyglotKey.polyglotKey(position));
+    }
+
+    @Test
+    void testReadsPolyglotBook() throws IOException {
+        // Records as another Polyglot tool writes them: start position and 1. e4, sorted by unsigned key
+        ByteBuffer buffer = ByteBuffer.allocate(4 * OpeningBook.ENTRY_BYTES);
+        buffer.putLong(0x463b96181691fc9cL).putShort((short) 0x031C).putShort((short) 30).putInt(0); // e2e4
+        buffer.putLong(0x463b96181691fc9cL).putShort((short) 0x02DB).putShort((short) 20).putInt(0); // d2d4
+        buffer.putLong(0x823c9b50fd114196L).putShort((short) 0x0CA2).putShort((short) 12).putInt(0); // c7c5
+        buffer.putLong(0x823c9b50fd114196L).putShort((short) 0x0D24).putShort((short) 8).putInt(0); // e7e5
+        Path file = directory.resolve("polyglot.bin");
+        Files.write(file, buffer.array());
+
+        OpeningBook book = OpeningBook.open(file);
+        assertEquals(List.of("e2e4", "d2d4"), book.moves(play()).stream().map(BookMove::uci).toList());
+        assertEquals(List.of("c7c5", "e7e5"), book.moves(play("e2e4")).stream().map(BookMove::uci).toList());
+        assertTrue(book.moves(play("d2d4")).isEmpty());
+    }
+}
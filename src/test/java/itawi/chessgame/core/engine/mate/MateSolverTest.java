@@ -0,0 +1,75 @@
+package itawi.chessgame.core.engine.mate;
+
+import itawi.chessgame.core.engine.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MateSolverTest {
+
+    private final MateSolver solver = new MateSolver(4);
+
+    @Test
+    void testFindsBackRankMateInOne() {
+        MateResult result = solver.solve(Position.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"), 3, 100_000);
+
+        assertEquals(MateResult.Status.MATE, result.status());
+        assertEquals(1, result.mateIn());
+        assertEquals(List.of("d1d8"), result.movesUci());
+    }
+
+    @Test
+    void testFindsShortestMateAndLine() {
+        // Kc7 first, since Ra1+ at once lets the king out to b8
+        MateResult result = solver.solve(Position.fromFen("k7/8/2K5/8/8/8/8/1R6 w - - 0 1"), 4, 100_000);
+
+        assertEquals(MateResult.Status.MATE, result.status());
+        assertEquals(2, result.mateIn());
+        assertEquals(List.of("c6c7", "a8a7", "b1a1"), result.movesUci());
+    }
+
+    @Test
+    void testSolvesForBlack() {
+        MateResult result = solver.solve(
+                Position.fromFen("r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b kq - 0 1"), 4, 500_000);
+
+        assertEquals(MateResult.Status.MATE, result.status());
+        assertEquals(3, result.mateIn());
+        assertEquals(5, result.moves().length);
+        assertEquals("f8c5", result.movesUci().get(0));
+    }
+
+    @Test
+    void testNoMateWithinLimit() {
+        // King and rook need more than three moves to mate from here
+        MateResult result = solver.solve(Position.fromFen("4k3/8/8/8/8/8/8/4K2R w K - 0 1"), 3, 1_000_000);
+
+        assertEquals(MateResult.Status.NO_MATE, result.status());
+        assertEquals(0, result.moves().length);
+    }
+
+    @Test
+    void testStalemateIsNotMate() {
+        // Black to move has no legal moves but is not in check
+        MateResult result = solver.solve(Position.fromFen("7k/8/6Q1/8/8/8/8/K7 b - - 0 1"), 2, 100_000);
+
+        assertEquals(MateResult.Status.NO_MATE, result.status());
+    }
+
+    @Test
+    void testUnknownWhenNodesRunOut() {
+        MateResult result = solver.solve(Position.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), 5, 1_000);
+
+        assertEquals(MateResult.Status.UNKNOWN, result.status());
+        assertTrue(result.nodes() >= 1_000);
+    }
+
+    @Test
+    void testRejectsInvalidLength() {
+        Position position = Position.fromFen("6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(position, 0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> solver.solve(position, MateSolver.MAX_MOVES + 1, 1_000));
+    }
+}
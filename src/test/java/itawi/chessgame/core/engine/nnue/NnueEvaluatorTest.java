@@ -0,0 +1,98 @@
+package itawi.chessgame.core.engine.nnue;
+
+import itawi.chessgame.core.engine.MoveGenerator;
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import itawi.chessgame.core.engine.TranspositionTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NnueEvaluatorTest {
+
+    private static final NnueNetwork NETWORK = NnueNetwork.random(7);
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    void testIncrementalUpdatesMatchFullRefresh() {
+        NnueEvaluator incremental = new NnueEvaluator(NETWORK, new ScalarKernels());
+        SplittableRandom random = new SplittableRandom(11);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        // Random games through castling, en passant and promotions, taking moves back now and then
+        for (String fen : new String[]{Position.START_FEN, KIWIPETE, "8/P6k/8/3pP3/8/8/6Kp/8 w - d6 0 1"}) {
+            Position position = Position.fromFen(fen);
+            for (int i = 0; i < 200; i++) {
+                int count = MoveGenerator.generateLegalMoves(position, moves);
+                if (count == 0 || (position.getHistoryPly() > 0 && random.nextInt(4) == 0)) {
+                    if (position.getHistoryPly() == 0) {
+                        break;
+                    }
+                    position.unmakeMove();
+                } else {
+                    position.makeMove(moves[random.nextInt(count)]);
+                }
+                NnueEvaluator fresh = new NnueEvaluator(NETWORK, new ScalarKernels());
+                assertEquals(fresh.evaluate(position), incremental.evaluate(position), position.toFen());
+            }
+        }
+    }
+
+    @Test
+    void testVectorKernelsMatchScalarKernels() {
+        NnueEvaluator vector = new NnueEvaluator(NETWORK);
+        assertTrue(vector.isVectorized(), "tests run with the jdk.incubator.vector module");
+
+        NnueEvaluator scalar = new NnueEvaluator(NETWORK, new ScalarKernels());
+        Position position = Position.fromFen(KIWIPETE);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            assertEquals(scalar.evaluate(position), vector.evaluate(position));
+            position.unmakeMove();
+        }
+    }
+
+    @Test
+    void testEvaluationIsSymmetricUnderColorFlip() {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        int white = evaluator.evaluate(Position.fromFen("4k3/8/8/3p4/4P3/2N5/8/4K3 w - - 0 1"));
+        int black = evaluator.evaluate(Position.fromFen("4k3/8/2n5/4p3/3P4/8/8/4K3 b - - 0 1"));
+        assertEquals(white, black);
+    }
+
+    @Test
+    void testSaveAndLoadRoundTrip(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("random.nnue");
+        NETWORK.save(file);
+        assertEquals(NnueNetwork.fileSize(), Files.size(file));
+
+        NnueNetwork loaded = NnueNetwork.load(file);
+        Position position = Position.fromFen(KIWIPETE);
+        assertEquals(new NnueEvaluator(NETWORK).evaluate(position), new NnueEvaluator(loaded).evaluate(position));
+    }
+
+    @Test
+    void testLoadRejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("empty.nnue");
+        Files.write(file, new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> NnueNetwork.load(file));
+    }
+
+    @Test
+    void testSearchWithNnueEvaluator() {
+        Search search = new Search(new NnueEvaluator(NETWORK), new TranspositionTable(1));
+        Position position = Position.fromFen(KIWIPETE);
+        String fen = position.toFen();
+
+        assertNotEquals(0, search.search(position, 3).bestMove());
+        assertEquals(fen, position.toFen());
+    }
+}
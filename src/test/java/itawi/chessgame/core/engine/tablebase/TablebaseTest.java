@@ -0,0 +1,139 @@
+package itawi.chessgame.core.engine.tablebase;
+
+import itawi.chessgame.core.engine.Position;
+import itawi.chessgame.core.engine.Search;
+import itawi.chessgame.core.engine.SearchLimits;
+import itawi.chessgame.core.engine.SearchResult;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    @TempDir
+    static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(directory, 2);
+        generator.generate(Material.of("KPvK")); // Also solves the tables a promotion leads to
+        tablebase = generator.generate(Material.of("KRvK"));
+    }
+
+    @Test
+    void testMaterialNamesAreCanonical() {
+        assertEquals("KQvK", Material.of("KvKQ").getName());
+        assertEquals("KRPvKR", Material.of("krvkrp").getName());
+        assertEquals(Material.of("KQvK").getMirroredKey(), Material.of("KvKQ").getMirroredKey());
+        assertThrows(IllegalArgumentException.class, () -> Material.of("KQK"));
+        assertThrows(IllegalArgumentException.class, () -> Material.of("KXvK"));
+    }
+
+    @Test
+    void testMaterialsUpToThreePieces() {
+        List<String> names = Material.upTo(3).stream().map(Material::getName).toList();
+        assertEquals(List.of("KQvK", "KRvK", "KBvK", "KNvK", "KPvK"), names);
+        assertEquals(Set.of("KQvK", "KRvK", "KBvK", "KNvK"),
+                Material.of("KPvK").successors().stream().map(Material::getName).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testIndexRoundTrip() {
+        Material material = Material.of("KRvK");
+        int[] squares = new int[3];
+        for (long index = 0; index < material.getSize(); index += 97) {
+            int side = material.decode(index, squares);
+            assertEquals(index, material.index(squares, side));
+        }
+    }
+
+    @Test
+    void testLongestMates() throws IOException {
+        // The classic results: king and queen mate in at most 10 moves, king and rook in at most 16
+        assertEquals(10, longestMate("KQvK"));
+        assertEquals(16, longestMate("KRvK"));
+    }
+
+    @Test
+    void testQueenMates() {
+        Position mateInOne = Position.fromFen("k7/8/1K6/8/8/8/7Q/8 w - - 0 1");
+        assertEquals(Tablebase.WIN, tablebase.probeWdl(mateInOne));
+        assertEquals(1, tablebase.probeDtm(mateInOne));
+
+        Position mated = Position.fromFen("k6Q/8/1K6/8/8/8/8/8 b - - 0 1");
+        assertEquals(Tablebase.LOSS, tablebase.probeWdl(mated));
+        assertEquals(0, tablebase.probeDtm(mated));
+
+        Position stalemate = Position.fromFen("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        assertEquals(Tablebase.DRAW, tablebase.probeWdl(stalemate));
+        assertEquals(-1, tablebase.probeDtm(stalemate));
+    }
+
+    @Test
+    void testMirroredProbe() {
+        Position white = Position.fromFen("8/8/8/3k4/8/8/2R5/4K3 b - - 0 1");
+        Position black = Position.fromFen("4k3/2r5/8/8/3K4/8/8/8 w - - 0 1");
+        assertEquals(Tablebase.LOSS, tablebase.probeWdl(white));
+        assertEquals(tablebase.probeDtm(white), tablebase.probeDtm(black));
+        assertEquals(Tablebase.LOSS, tablebase.probeWdl(black));
+    }
+
+    @Test
+    void testPawnEndings() {
+        // King in front of its pawn on the sixth rank wins whoever moves
+        assertEquals(Tablebase.WIN, tablebase.probeWdl(Position.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")));
+        assertEquals(Tablebase.LOSS, tablebase.probeWdl(Position.fromFen("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")));
+        assertEquals(Tablebase.DRAW, tablebase.probeWdl(Position.fromFen("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")));
+        // A rook pawn cannot win against a king in the corner
+        assertEquals(Tablebase.DRAW, tablebase.probeWdl(Position.fromFen("k7/8/8/8/P7/8/8/K7 w - - 0 1")));
+    }
+
+    @Test
+    void testUncoveredPositions() {
+        assertEquals(Tablebase.UNKNOWN, tablebase.probeWdl(Position.fromFen("4k3/8/8/8/8/8/3PP3/4K3 w - - 0 1")));
+        assertEquals(Tablebase.UNKNOWN, tablebase.probeWdl(Position.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")));
+        assertEquals(Tablebase.NO_SCORE, Tablebase.empty().score(Position.fromFen("k7/8/1K6/8/8/8/7Q/8 w - - 0 1"), 0));
+    }
+
+    @Test
+    void testSearchPlaysShortestMate() {
+        Position position = Position.fromFen("8/8/8/3k4/8/8/8/4K2R w - - 0 1");
+        Search search = new Search();
+        search.setTablebase(tablebase);
+        SearchResult result = search.search(position, SearchLimits.depth(2));
+
+        assertTrue(result.isMate());
+        assertEquals((tablebase.probeDtm(position) + 1) / 2, result.mateIn());
+    }
+
+    @Test
+    void testGenerationSkipsCompleteTables() throws IOException {
+        Path file = directory.resolve("KQvK.wdl");
+        FileTime before = Files.getLastModifiedTime(file);
+        Tablebase reopened = new TablebaseGenerator(directory, 1).generate(Material.of("KQvK"));
+
+        assertEquals(before, Files.getLastModifiedTime(file));
+        assertTrue(reopened.contains(Material.of("KQvK")));
+        assertEquals(3, reopened.getMaxPieces());
+    }
+
+    private static int longestMate(String name) throws IOException {
+        byte[] bytes = Files.readAllBytes(directory.resolve(name + Tablebase.DTM_SUFFIX));
+        int longest = 0;
+        for (int i = Tablebase.HEADER_BYTES; i < bytes.length; i++) {
+            longest = Math.max(longest, bytes[i] & 0xFF);
+        }
+        return longest;
+    }
+}
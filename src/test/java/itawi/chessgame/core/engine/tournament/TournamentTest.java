@@ -0,0 +1,56 @@
+package itawi.chessgame.core.engine.tournament;
+
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentTest {
+
+    @Test
+    void testOpeningSuiteParsesMoveNumbers() {
+        OpeningSuite suite = OpeningSuite.of(List.of("1. e4 e5 2. Nf3 Nc6", "1.d4 d5 2.c4"));
+
+        assertEquals(2, suite.size());
+        assertEquals(List.of("e2e4", "e7e5", "g1f3", "b8c6"), suite.get(0));
+        assertEquals(List.of("d2d4", "d7d5", "c2c4"), suite.get(3)); // Wraps around
+        assertTrue(OpeningSuite.standard().size() > 10);
+    }
+
+    @Test
+    void testOpeningSuiteRejectsIllegalMoves() {
+        assertThrows(IllegalArgumentException.class, () -> OpeningSuite.of(List.of("1. e4 e4")));
+        assertThrows(IllegalArgumentException.class, () -> OpeningSuite.of(List.of()));
+    }
+
+    @Test
+    void testGameRecordScoresFromTheFirstEnginesSide() {
+        assertEquals(1, new GameRecord(0, 0, true, "1-0", "checkmate", 40, 0, 0).firstScore());
+        assertEquals(1, new GameRecord(1, 0, false, "0-1", "checkmate", 40, 0, 0).firstScore());
+        assertEquals(0, new GameRecord(1, 0, false, "1-0", "time forfeit", 40, 0, 0).firstScore());
+        assertEquals(0.5, new GameRecord(1, 0, false, "1/2-1/2", "draw", 40, 0, 0).firstScore());
+    }
+
+    @Test
+    void testParallelSelfPlay() {
+        Tournament tournament = new Tournament(EvaluatorFactory.CLASSICAL, EvaluatorFactory.CLASSICAL);
+        tournament.setWorkers(2);
+        tournament.setTimeMillis(2_000);
+        tournament.setMaxPlies(24);
+
+        TournamentResult result = tournament.run(OpeningSuite.standard(), 4);
+
+        assertEquals(4, result.games().size());
+        assertEquals(4, result.firstWins() + result.draws() + result.secondWins());
+        assertEquals(0, result.ruleMismatches());
+        assertTrue(result.nodesPerSecond() > 0);
+        for (int round = 0; round < 4; round++) {
+            GameRecord game = result.games().get(round);
+            assertEquals(round, game.round());
+            assertEquals(round / 2, game.opening());
+            assertEquals(round % 2 == 0, game.firstPlaysWhite()); // Each opening with both colors
+        }
+    }
+}
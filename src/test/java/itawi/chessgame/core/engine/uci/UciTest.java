@@ -0,0 +1,143 @@
+package itawi.chessgame.core.engine.uci;
+
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UciTest {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final Uci uci = new Uci(new PrintStream(buffer, true, StandardCharsets.UTF_8), EvaluatorFactory.CLASSICAL);
+
+    private List<String> output() {
+        return buffer.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private String lastLine() {
+        List<String> lines = output();
+        return lines.get(lines.size() - 1);
+    }
+
+    @Test
+    void testHandshake() {
+        uci.handle("uci");
+        uci.handle("isready");
+
+        List<String> lines = output();
+        assertTrue(lines.contains("id name " + Uci.NAME));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("option name Hash type spin")));
+        assertTrue(lines.indexOf("uciok") < lines.indexOf("readyok"));
+    }
+
+    @Test
+    void testGoDepthFromStartposWithMoves() {
+        uci.handle("position startpos moves e2e4 e7e5 g1f3");
+        uci.handle("go depth 4");
+        uci.awaitSearch();
+
+        assertTrue(output().stream().anyMatch(line -> line.startsWith("info depth 4 score cp ")));
+        assertTrue(lastLine().matches("bestmove [a-h][1-8][a-h][1-8]( ponder [a-h][1-8][a-h][1-8])?"), lastLine());
+    }
+
+    @Test
+    void testGoFindsMateFromFen() {
+        uci.handle("position fen 6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1");
+        uci.handle("go movetime 2000");
+        uci.awaitSearch();
+
+        assertTrue(output().stream().anyMatch(line -> line.contains("score mate 1")));
+        assertEquals("bestmove d1d8", lastLine());
+    }
+
+    @Test
+    void testInfiniteSearchWaitsForStop() throws InterruptedException {
+        uci.handle("position startpos");
+        uci.handle("go infinite");
+        Thread.sleep(200);
+        assertFalse(output().stream().anyMatch(line -> line.startsWith("bestmove")));
+
+        uci.handle("stop");
+        uci.awaitSearch();
+        assertTrue(lastLine().startsWith("bestmove "));
+    }
+
+    @Test
+    void testPonderHitPlaysWithinClock() {
+        uci.handle("position startpos moves e2e4");
+        uci.handle("go ponder wtime 3000 btime 3000");
+        long start = System.currentTimeMillis();
+        uci.handle("ponderhit");
+        uci.awaitSearch();
+
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        assertTrue(lastLine().startsWith("bestmove "));
+    }
+
+    @Test
+    void testBenchSignatureIsDeterministic() {
+        uci.handle("bench 4");
+        String first = output().stream().filter(line -> line.startsWith("Nodes searched")).findFirst().orElseThrow();
+        buffer.reset();
+        uci.handle("setoption name Hash value 1");
+        uci.handle("bench 4");
+        String second = output().stream().filter(line -> line.startsWith("Nodes searched")).findFirst().orElseThrow();
+
+        assertEquals(first, second);
+        assertTrue(output().stream().anyMatch(line -> line.startsWith("Nodes/second")));
+    }
+
+    @Test
+    void testRunStopsAtQuit() throws IOException {
+        uci.run(new BufferedReader(new StringReader("position startpos moves e2e5\nsetoption name Threads value 4\nquit\nisready\n")));
+
+        List<String> lines = output();
+        assertTrue(lines.contains("info string Illegal move: e2e5"));
+        assertTrue(lines.contains("info string The search is single-threaded; using 1 thread"));
+        assertFalse(lines.contains("readyok"));
+    }
+
+    @Test
+    void testFeatureOptionsChangeTheSearch() {
+        uci.handle("uci");
+        assertTrue(output().contains("option name LMR type check default true"));
+        uci.handle("bench 4");
+        String withFeatures = output().stream().filter(line -> line.startsWith("Nodes searched")).findFirst().orElseThrow();
+        buffer.reset();
+
+        for (String feature : new String[]{"NullMove", "LMR", "Futility", "Aspiration"}) {
+            uci.handle("setoption name " + feature + " value false");
+        }
+        uci.handle("bench 4");
+        String without = output().stream().filter(line -> line.startsWith("Nodes searched")).findFirst().orElseThrow();
+        assertNotEquals(withFeatures, without);
+        assertFalse(output().stream().anyMatch(line -> line.contains("Unknown option")));
+    }
+
+    @Test
+    void testMalformedInputIsReportedAndIgnored() {
+        assertTrue(uci.handle("go depth"));
+        assertTrue(uci.handle("go wtime x"));
+        assertTrue(uci.handle("setoption name Hash"));
+        assertTrue(uci.handle("bench abc"));
+
+        List<String> lines = output();
+        assertTrue(lines.contains("info string Invalid go command: Missing value for depth"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("info string Invalid go command:") && line.contains("x")));
+        assertTrue(lines.contains("info string Invalid value for Hash: "));
+        assertTrue(lines.contains("info string Invalid bench depth: abc"));
+        assertFalse(lines.stream().anyMatch(line -> line.startsWith("bestmove") || line.startsWith("Nodes searched")));
+
+        // The engine still answers well-formed commands
+        uci.handle("go depth 2");
+        uci.awaitSearch();
+        assertTrue(lastLine().startsWith("bestmove "));
+    }
+}
@@ -5,6 +5,9 @@ import itawi.chessgame.core.piece.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GameTest {
@@ -377,5 +380,16 @@ class GameTest {
         // Verify the white pawn was captured (removed from b4)
         assertNull(game.getBoard().getPieceAt("b4"), "The white pawn should be captured");
     }
-}
 
+    @Test
+    void testMoveListenerNotifiedOnSuccessfulMoves() {
+        List<String> moves = new ArrayList<>();
+        game.setMoveListener((from, to) -> moves.add(from + to));
+
+        game.makeMove("e2", "e5"); // Invalid, not reported
+        game.makeMove("e2", "e4");
+        game.makeMove("e7", "e5");
+
+        assertEquals(List.of("e2e4", "e7e5"), moves);
+    }
+}
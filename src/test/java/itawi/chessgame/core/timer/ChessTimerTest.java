@@ -3,6 +3,8 @@ package itawi.chessgame.core.timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ChessTimerTest {
@@ -153,4 +155,74 @@ public class ChessTimerTest {
         // Check that white's time did not change
         assertEquals(initialWhiteTime, chessTimer.getWhiteTimeMillis());
     }
+
+    @Test
+    public void testFischerIncrementIsAddedAfterEachMove() {
+        chessTimer = new ChessTimer(60_000, 2_000, 0);
+        chessTimer.startTimer();
+        chessTimer.switchTurn();
+
+        // White gains the increment, less the few milliseconds the move took
+        assertTrue(chessTimer.getWhiteTimeMillis() > 61_900);
+        assertTrue(chessTimer.getWhiteTimeMillis() <= 62_000);
+        assertEquals(60_000, chessTimer.getBlackTimeMillis());
+    }
+
+    @Test
+    public void testBronsteinDelayGivesBackTimeUpToTheDelay() throws InterruptedException {
+        chessTimer = new ChessTimer(60_000, 0, 1_000);
+        chessTimer.startTimer();
+        Thread.sleep(100);
+        chessTimer.switchTurn();
+
+        // A move within the delay costs nothing
+        assertEquals(60_000, chessTimer.getWhiteTimeMillis());
+
+        chessTimer.setBlackTimeMillis(200);
+        Thread.sleep(300);
+        // The delay does not save a player whose time runs out during the move
+        assertTrue(chessTimer.isTimeout());
+    }
+
+    @Test
+    public void testStateIsReadAtomically() {
+        chessTimer.startTimer();
+        ChessTimer.State before = chessTimer.getState();
+        chessTimer.switchTurn();
+        ChessTimer.State after = chessTimer.getState();
+
+        assertEquals("white", before.activeTimer());
+        assertEquals("black", after.activeTimer());
+        assertEquals(TEST_TIME_MILLIS, before.whiteMillis());
+        assertTrue(after.turnStartNanos() >= before.turnStartNanos());
+        assertThrows(IllegalArgumentException.class, () -> new ChessTimer(-1, 0, 0));
+    }
+
+    @Test
+    public void testConcurrentMovesAndReadsSeeConsistentClocks() throws InterruptedException {
+        chessTimer.startTimer();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean torn = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                ChessTimer.State state = chessTimer.getState();
+                // The side not to move is never charged for the running turn
+                String waiting = state.activeTimer().equals("white") ? "black" : "white";
+                long banked = waiting.equals("white") ? state.whiteMillis() : state.blackMillis();
+                if (state.remainingMillis(waiting) != banked || state.remainingMillis(state.activeTimer()) > TEST_TIME_MILLIS) {
+                    torn.set(true);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 10_000; i++) {
+            chessTimer.switchTurn();
+        }
+        done.set(true);
+        reader.join();
+
+        assertFalse(torn.get());
+        assertEquals("white", chessTimer.getActiveTimer());
+        assertTrue(chessTimer.getWhiteTimeMillis() <= TEST_TIME_MILLIS);
+    }
 }
@@ -0,0 +1,87 @@
+package itawi.chessgame.core.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(5, 8, "test-wheel");
+
+    @AfterEach
+    void tearDown() {
+        timer.close();
+    }
+
+    @Test
+    void testBucketsAreRoundedUpToAPowerOfTwo() {
+        assertEquals(8, timer.getBuckets());
+        HashedWheelTimer odd = new HashedWheelTimer(5, 100, "odd-wheel");
+        assertEquals(128, odd.getBuckets());
+        odd.close();
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer(0, 8, "bad-wheel"));
+    }
+
+    @Test
+    void testTasksRunInDeadlineOrderAndNeverEarly() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+        long[] ranAfter = new long[1];
+        // 120 ms is several turns of a 40 ms wheel
+        timer.schedule(() -> {
+            ranAfter[0] = System.nanoTime() - start;
+            order.add(3);
+            done.countDown();
+        }, 120);
+        timer.schedule(() -> {
+            order.add(1);
+            done.countDown();
+        }, 0);
+        timer.schedule(() -> {
+            order.add(2);
+            done.countDown();
+        }, 30);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), order);
+        assertTrue(ranAfter[0] >= TimeUnit.MILLISECONDS.toNanos(120));
+        assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    void testCancelledTasksDoNotRun() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        HashedWheelTimer.Timeout cancelled = timer.schedule(ran::countDown, 20);
+        HashedWheelTimer.Timeout kept = timer.schedule(() -> { }, 40);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+        assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    void testManyPendingTasksOnOneThread() throws InterruptedException {
+        int tasks = 100_000;
+        CountDownLatch done = new CountDownLatch(tasks / 2);
+        for (int i = 0; i < tasks; i++) {
+            HashedWheelTimer.Timeout timeout = timer.schedule(done::countDown, i % 200);
+            if (i % 2 == 1) {
+                timeout.cancel();
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, done.getCount());
+    }
+}
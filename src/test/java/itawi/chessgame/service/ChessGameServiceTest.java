@@ -0,0 +1,181 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.engine.EngineMetrics;
+import itawi.chessgame.core.engine.EngineScheduler;
+import itawi.chessgame.core.engine.EvaluatorFactory;
+import itawi.chessgame.core.engine.SearchFeatures;
+import itawi.chessgame.core.engine.book.OpeningBook;
+import itawi.chessgame.core.engine.tablebase.Tablebase;
+import itawi.chessgame.core.exception.GameNotFoundException;
+import itawi.chessgame.core.game.Game;
+import itawi.chessgame.core.piece.Pawn;
+import itawi.chessgame.core.piece.Piece;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChessGameServiceTest {
+
+    private final GameRegistry registry = new GameRegistry(0);
+    private final EngineScheduler scheduler = new EngineScheduler(1, 4);
+    private final ChessGameService service = new ChessGameService(registry, EvaluatorFactory.CLASSICAL,
+            Tablebase.empty(), OpeningBook.empty(), scheduler, EngineMetrics.none(), SearchFeatures.ALL);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        scheduler.close();
+        registry.close();
+    }
+
+    @Test
+    void testGamesAreIndependent() {
+        String first = service.newGame();
+        String second = service.newGame();
+
+        Map<String, Object> response = service.handleSquareClick(first, "e4", "e2");
+
+        assertEquals(true, response.get("moveSuccess"));
+        assertEquals("black", service.getGameStatus(first).get("currentTurn"));
+        assertEquals("white", service.getGameStatus(second).get("currentTurn"));
+    }
+
+    @Test
+    void testEngineMovePlaysInItsOwnGame() throws Exception {
+        String gameId = service.newGame();
+        String other = service.newGame();
+
+        Map<String, Object> response = service.makeEngineMove(gameId).get(10, TimeUnit.SECONDS);
+
+        assertEquals(true, response.get("moveSuccess"));
+        assertNotNull(response.get("engineMove"));
+        assertEquals("black", service.getGameStatus(gameId).get("currentTurn"));
+        assertEquals("white", service.getGameStatus(other).get("currentTurn"));
+    }
+
+    @Test
+    void testDeletedGamesAreNotFound() {
+        String gameId = service.newGame(5);
+        service.deleteGame(gameId);
+
+        assertThrows(GameNotFoundException.class, () -> service.getGameStatus(gameId));
+        assertThrows(GameNotFoundException.class, () -> service.makeEngineMove(gameId));
+        assertThrows(GameNotFoundException.class, () -> service.deleteGame(gameId));
+    }
+
+    @Test
+    void testMovesRespondWithTheChangedSquaresOnly() {
+        String gameId = service.newGame();
+
+        Map<String, Object> response = service.handleSquareClick(gameId, "e4", "e2");
+
+        assertNull(response.get("newBoardState"));
+        Map<?, ?> delta = (Map<?, ?>) response.get("delta");
+        assertEquals(1, delta.get("ply"));
+        assertEquals(List.of(Map.of("square", "e2"), Map.of("square", "e4", "type", "PAWN", "color", "white")),
+                delta.get("changes"));
+        assertEquals(1, service.getGameStatus(gameId).get("ply"));
+    }
+
+    @Test
+    void testCastlingDeltaMovesTheRook() {
+        String gameId = service.newGame();
+        String[] moves = {"e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "c4", "g8", "f6"};
+        for (int i = 0; i < moves.length; i += 2) {
+            service.handleSquareClick(gameId, moves[i + 1], moves[i]);
+        }
+
+        Map<?, ?> delta = (Map<?, ?>) service.handleSquareClick(gameId, "g1", "e1").get("delta");
+
+        assertEquals(7, delta.get("ply"));
+        assertEquals(List.of(Map.of("square", "e1"), Map.of("square", "f1", "type", "ROOK", "color", "white"),
+                Map.of("square", "g1", "type", "KING", "color", "white"), Map.of("square", "h1")), delta.get("changes"));
+    }
+
+    @Test
+    void testStatusCarriesTheLegalMoveMap() {
+        String gameId = service.newGame();
+
+        Map<?, ?> legalMoves = (Map<?, ?>) service.getGameStatus(gameId).get("legalMoves");
+        assertEquals(10, legalMoves.size());
+        assertEquals(20, legalMoves.values().stream().mapToInt(destinations -> ((String) destinations).length() / 2).sum());
+        assertEquals(List.of("f3", "h3"), service.getSnapshot(gameId).legalMovesFrom("g1").stream().sorted().toList());
+        assertEquals(List.of(), service.getSnapshot(gameId).legalMovesFrom("e7"));
+
+        // Selecting a piece answers from the same map
+        Map<String, Object> selection = service.handleSquareClick(gameId, "e2", null);
+        assertEquals(List.of("e3", "e4"), ((List<?>) selection.get("validMoves")).stream().sorted().toList());
+
+        Map<?, ?> status = (Map<?, ?>) service.handleSquareClick(gameId, "e4", "e2").get("gameStatus");
+        assertTrue(((Map<?, ?>) status.get("legalMoves")).containsKey("e7"));
+    }
+
+    @Test
+    void testEveryMoveInTheMapIsAcceptedByTheGame() {
+        // Long castling with b1 attacked by the knight on a3, where only the squares the king crosses matter
+        assertMapMatchesGame(() -> replay(moves("b1c3 b8c6 e2e3 c6a5 d1e2 a5c4 d2d3 c4a3 c1d2 e7e6")));
+        assertTrue(GameSnapshot.legalMovesOf(replay(moves("b1c3 b8c6 e2e3 c6a5 d1e2 a5c4 d2d3 c4a3 c1d2 e7e6")))
+                .get("e1").contains("c1"));
+        // Both castlings for black, and castling refused with the f-file attacked
+        assertMapMatchesGame(() -> replay(moves("e2e4 g8f6 d2d4 e7e6 g1f3 f8e7 b1c3 b8c6 c1f4 d7d6 d1d2 c8d7 f1c4 d8c8")));
+        assertMapMatchesGame(() -> replay(moves("e2e4 e7e5 g1f3 d7d6 f1c4 c8g4 b2b3 d8e7 c1a3")));
+        // Positions from random games
+        SplittableRandom random = new SplittableRandom(11);
+        for (int game = 0; game < 4; game++) {
+            List<String[]> played = new ArrayList<>();
+            for (int ply = 0; ply < 40; ply++) {
+                Supplier<Game> replay = () -> replay(played);
+                Map<String, String> legalMoves = assertMapMatchesGame(replay);
+                if (legalMoves.isEmpty()) {
+                    break;
+                }
+                List<String> from = legalMoves.keySet().stream().sorted().toList();
+                String square = from.get(random.nextInt(from.size()));
+                String destinations = legalMoves.get(square);
+                int pick = random.nextInt(destinations.length() / 2) * 2;
+                played.add(new String[]{square, destinations.substring(pick, pick + 2)});
+            }
+        }
+    }
+
+    // Every from and to square in the map must be a move the game itself accepts
+    private static Map<String, String> assertMapMatchesGame(Supplier<Game> position) {
+        Map<String, String> legalMoves = GameSnapshot.legalMovesOf(position.get());
+        legalMoves.forEach((from, destinations) -> {
+            for (int i = 0; i < destinations.length(); i += 2) {
+                String to = destinations.substring(i, i + 2);
+                assertTrue(position.get().makeMove(from, to), from + to + " is in the map but refused by the game");
+            }
+        });
+        return legalMoves;
+    }
+
+    private static Game replay(List<String[]> moves) {
+        Game game = new Game();
+        for (String[] move : moves) {
+            assertTrue(game.makeMove(move[0], move[1]));
+            Piece piece = game.getBoard().getPieceAt(move[1]);
+            if (piece instanceof Pawn && (move[1].endsWith("8") || move[1].endsWith("1"))) {
+                game.promotePawn(move[1], "queen");
+            }
+        }
+        return game;
+    }
+
+    // Moves in coordinate notation separated by spaces, e.g. "e2e4 e7e5"
+    private static List<String[]> moves(String line) {
+        List<String[]> moves = new ArrayList<>();
+        for (String move : line.split(" ")) {
+            moves.add(new String[]{move.substring(0, 2), move.substring(2, 4)});
+        }
+        return moves;
+    }
+}
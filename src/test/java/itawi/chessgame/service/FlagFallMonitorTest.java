@@ -0,0 +1,67 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.game.Game;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlagFallMonitorTest {
+
+    private final GameRegistry registry = new GameRegistry(0);
+    private final FlagFallMonitor monitor = new FlagFallMonitor(registry, 5, 64);
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+        registry.close();
+    }
+
+    @Test
+    void testFlagFallEndsTheGameWithoutARequest() throws InterruptedException {
+        Game game = new Game(1);
+        game.getTimer().setBlackTimeMillis(50);
+        String id = registry.register(game);
+        CountDownLatch over = new CountDownLatch(1);
+        registry.addPublishListener((entry, snapshot) -> {
+            if (Boolean.TRUE.equals(snapshot.status().get("isGameOver"))) {
+                over.countDown();
+            }
+        });
+
+        registry.withGame(id, entry -> entry.getGame().makeMove("e2", "e4"));
+        assertEquals(1, monitor.getWatched());
+
+        assertTrue(over.await(5, TimeUnit.SECONDS));
+        assertEquals("black lost on time", registry.snapshot(id).status().get("result"));
+        assertEquals(0, monitor.getWatched());
+    }
+
+    @Test
+    void testPausedAndRemovedGamesAreNotWatched() throws InterruptedException {
+        Game game = new Game(1);
+        game.getTimer().setBlackTimeMillis(50);
+        String id = registry.register(game);
+
+        registry.withGame(id, entry -> entry.getGame().makeMove("e2", "e4"));
+        registry.withGame(id, entry -> {
+            entry.getGame().getTimer().stopTimer();
+            return null;
+        });
+        assertEquals(0, monitor.getWatched());
+        Thread.sleep(100);
+        assertEquals(false, registry.snapshot(id).status().get("isGameOver"));
+
+        registry.withGame(id, entry -> {
+            entry.getGame().getTimer().setBlackTimeMillis(60_000);
+            entry.getGame().getTimer().startTimer();
+            return null;
+        });
+        assertEquals(1, monitor.getWatched());
+        registry.remove(id);
+        assertEquals(0, monitor.getWatched());
+    }
+}
@@ -0,0 +1,114 @@
+package itawi.chessgame.service;
+
+import itawi.chessgame.core.exception.GameNotFoundException;
+import itawi.chessgame.core.game.Game;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRegistryTest {
+
+    private final GameRegistry registry = new GameRegistry(0);
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void testRegisteredGamesAreFoundByTheirId() {
+        Game first = new Game();
+        Game second = new Game(5);
+        String firstId = registry.register(first);
+        String secondId = registry.register(second);
+
+        assertNotEquals(firstId, secondId);
+        assertSame(first, registry.get(firstId).getGame());
+        assertSame(second, registry.get(secondId).getGame());
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void testUnknownAndRemovedGamesAreNotFound() {
+        String id = registry.register(new Game());
+
+        assertTrue(registry.remove(id));
+        assertFalse(registry.remove(id));
+        assertThrows(GameNotFoundException.class, () -> registry.get(id));
+        assertThrows(GameNotFoundException.class, () -> registry.withGame("missing", entry -> 1));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testCommandsPublishSnapshotsAndReadsDoNot() {
+        String id = registry.register(new Game());
+        assertEquals(0, registry.snapshot(id).version());
+
+        registry.inspect(id, entry -> entry.getGame().getCurrentTurn());
+        assertEquals(0, registry.snapshot(id).version());
+
+        registry.withGame(id, entry -> entry.getGame().makeMove("e2", "e4"));
+        GameSnapshot snapshot = registry.snapshot(id);
+        assertEquals(1, snapshot.version());
+        assertEquals("black", snapshot.status().get("currentTurn"));
+        assertTrue(snapshot.board().stream().anyMatch(piece -> piece.getPosition().equals("e4")));
+    }
+
+    @Test
+    void testSnapshotsAreNotChangedByLaterMoves() {
+        String id = registry.register(new Game());
+        GameSnapshot before = registry.snapshot(id);
+
+        registry.withGame(id, entry -> entry.getGame().makeMove("e2", "e4"));
+
+        assertEquals("white", before.status().get("currentTurn"));
+        assertTrue(before.board().stream().anyMatch(piece -> piece.getPosition().equals("e2")));
+        assertThrows(UnsupportedOperationException.class, () -> before.status().put("currentTurn", "black"));
+    }
+
+    @Test
+    void testCommandsMayIssueCommandsAndFailures() {
+        String id = registry.register(new Game());
+
+        assertEquals("white", registry.withGame(id, entry -> registry.inspect(id, inner -> inner.getGame().getCurrentTurn())));
+        assertThrows(IllegalArgumentException.class, () -> registry.withGame(id, entry -> {
+            throw new IllegalArgumentException("Bad move");
+        }));
+        // A failed command does not block the mailbox
+        assertEquals("white", registry.inspect(id, entry -> entry.getGame().getCurrentTurn()));
+    }
+
+    @Test
+    void testIdleGamesAreRemovedAndReported() throws InterruptedException {
+        List<String> removed = new CopyOnWriteArrayList<>();
+        registry.addRemovalListener(entry -> removed.add(entry.getId()));
+        String idle = registry.register(new Game());
+        Thread.sleep(20);
+        String active = registry.register(new Game());
+
+        assertEquals(1, registry.removeIdle(10));
+        assertEquals(List.of(idle), removed);
+        assertSame(active, registry.get(active).getId());
+    }
+
+    @Test
+    void testMovesOnOneGameAreSerialised() throws InterruptedException {
+        String id = registry.register(new Game());
+        int[] counter = new int[1];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            executor.submit(() -> registry.withGame(id, entry -> ++counter[0]));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10_000, counter[0]);
+    }
+}